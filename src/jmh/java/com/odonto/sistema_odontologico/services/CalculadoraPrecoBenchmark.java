@@ -0,0 +1,129 @@
+package com.odonto.sistema_odontologico.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.odonto.sistema_odontologico.dto.DetalhamentoPrecoDTO;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.models.Procedimento;
+
+/**
+ * Linha de base do custo do cálculo de preço (vazão e alocação por operação com -prof gc).
+ * Procedimentos com 1 a 50 materiais (metade reutilizáveis), com e sem assistente,
+ * para cada faixa de desconto do paciente.
+ * Executar com: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args="CalculadoraPreco -prof gc"
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CalculadoraPrecoBenchmark {
+
+    /**
+     * Faixas de desconto de Paciente.calcularDesconto (idade e fidelidade)
+     */
+    public enum FaixaDesconto {
+        SEM_DESCONTO(30, 0),
+        FIDELIDADE_5(30, 150),
+        IDOSO_10(65, 0),
+        IDOSO_FIDELIDADE_20(65, 250);
+
+        final int idade;
+        final int fidelidade;
+
+        FaixaDesconto(int idade, int fidelidade) {
+            this.idade = idade;
+            this.fidelidade = fidelidade;
+        }
+    }
+
+    @Param({"1", "5", "20", "50"})
+    public int quantidadeMateriais;
+
+    @Param({"false", "true"})
+    public boolean assistente;
+
+    @Param({"SEM_DESCONTO", "FIDELIDADE_5", "IDOSO_10", "IDOSO_FIDELIDADE_20"})
+    public FaixaDesconto faixa;
+
+    // o cálculo do valor final em si é comparado entre os engines em PrecoEngineBenchmark
+    private final PrecoDecimalEngine precoEngine = new PrecoDecimalEngine();
+    private final CalculadoraPrecoService calculadora = new CalculadoraPrecoService(precoEngine);
+
+    private Procedimento procedimento;
+
+    @Setup
+    public void montarProcedimento() {
+        Random random = new Random(42);
+        List<Material> materiais = new ArrayList<>(quantidadeMateriais);
+        for (int i = 0; i < quantidadeMateriais; i++) {
+            materiais.add(Material.builder()
+                    .id((long) i + 1)
+                    .nomeMaterial("Material " + i)
+                    .quantidade(100)
+                    // valores de catálogo entre R$ 0,50 e R$ 300,00
+                    .valor(BigDecimal.valueOf(50 + random.nextInt(29_950), 2))
+                    .reutilizavel(i % 2 == 0)
+                    .build());
+        }
+
+        procedimento = new Procedimento();
+        procedimento.setNomeProcedimento("Procedimento de referência");
+        procedimento.setAssistente(assistente);
+        procedimento.setDuracao(45f);
+        procedimento.setPaciente(Paciente.builder()
+                .id(1L)
+                .nomePaciente("Paciente de referência")
+                .idade(faixa.idade)
+                .fidelidade(faixa.fidelidade)
+                .build());
+        procedimento.setMateriais(materiais);
+        procedimento.setValorFinal(precoEngine.calcularValorFinal(procedimento));
+    }
+
+    @Benchmark
+    public BigDecimal calcularValorFinal() {
+        return precoEngine.calcularValorFinal(procedimento);
+    }
+
+    @Benchmark
+    public DetalhamentoPrecoDTO calcularDetalhamento() {
+        return calculadora.calcularDetalhamento(procedimento);
+    }
+
+    @Benchmark
+    public String calcularDetalhamentoEmTexto() {
+        return CalculadoraPrecoService.formatarTexto(calculadora.calcularDetalhamento(procedimento));
+    }
+
+    @Benchmark
+    public void materialCalcularValorProcedimento(Blackhole blackhole) {
+        for (Material material : procedimento.getMateriais()) {
+            blackhole.consume(material.calcularValorProcedimento());
+        }
+    }
+
+    @Benchmark
+    public double pacienteCalcularDesconto() {
+        return procedimento.getPaciente().calcularDesconto();
+    }
+}
@@ -0,0 +1,92 @@
+package com.odonto.sistema_odontologico.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.odonto.sistema_odontologico.dto.ItemOrcamentoDTO;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.models.Procedimento;
+
+/**
+ * Escalabilidade do cálculo paralelo do orçamento: mesma carga com 1, 2, 4 e 8 workers.
+ * Com escala linear o tempo por orçamento cai na proporção dos workers (até o número de núcleos).
+ * Executar com: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args="Orcamento"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrcamentoBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int paralelismo;
+
+    // plano de tratamento típico e um orçamento grande
+    @Param({"30", "200"})
+    public int itens;
+
+    private final CalculadoraPrecoService calculadora = new CalculadoraPrecoService(new PrecoDecimalEngine());
+
+    private ForkJoinPool pool;
+    private List<Procedimento> procedimentos;
+
+    @Setup
+    public void preparar() {
+        pool = new ForkJoinPool(paralelismo);
+
+        Random random = new Random(42);
+        List<Material> catalogo = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            catalogo.add(Material.builder()
+                    .id((long) i + 1)
+                    .nomeMaterial("Material " + i)
+                    .quantidade(100)
+                    .valor(BigDecimal.valueOf(50 + random.nextInt(29_950), 2))
+                    .reutilizavel(i % 3 == 0)
+                    .build());
+        }
+        Paciente paciente = Paciente.builder().id(1L).nomePaciente("Paciente").idade(62).fidelidade(120).build();
+
+        procedimentos = new ArrayList<>(itens);
+        for (int i = 0; i < itens; i++) {
+            Procedimento procedimento = new Procedimento();
+            procedimento.setNomeProcedimento("Procedimento " + i);
+            procedimento.setAssistente(i % 2 == 0);
+            procedimento.setDuracao(30f + random.nextInt(90));
+            procedimento.setValorMaoObra(new BigDecimal("100.00"));
+            procedimento.setPaciente(paciente);
+            procedimento.setMateriais(new ArrayList<>(catalogo.subList(0, 1 + random.nextInt(20))));
+            procedimentos.add(procedimento);
+        }
+    }
+
+    @TearDown
+    public void encerrar() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<ItemOrcamentoDTO> orcar() {
+        return OrcamentoService.precificar(pool, calculadora, procedimentos);
+    }
+}
@@ -0,0 +1,90 @@
+package com.odonto.sistema_odontologico.services;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.models.Procedimento;
+
+/**
+ * Latência e alocação (-prof gc, gc.alloc.rate.norm) do valor final: BigDecimal x centavos em long.
+ * Executar com: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args="PrecoEngine -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrecoEngineBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int quantidadeMateriais;
+
+    private final PrecoDecimalEngine decimal = new PrecoDecimalEngine();
+    private final PrecoCentavosEngine centavos = new PrecoCentavosEngine();
+
+    private Procedimento procedimento;
+
+    @Setup
+    public void montarProcedimento() {
+        Random random = new Random(42);
+        List<Material> materiais = new ArrayList<>(quantidadeMateriais);
+        for (int i = 0; i < quantidadeMateriais; i++) {
+            materiais.add(Material.builder()
+                    .id((long) i + 1)
+                    .nomeMaterial("Material " + i)
+                    .quantidade(100)
+                    .valor(BigDecimal.valueOf(50 + random.nextInt(29_950), 2))
+                    .reutilizavel(i % 2 == 0)
+                    .build());
+        }
+
+        procedimento = new Procedimento();
+        procedimento.setNomeProcedimento("Procedimento de referência");
+        procedimento.setAssistente(true);
+        procedimento.setDuracao(50f);
+        // idoso com fidelidade: desconto de 15%, o caso com mais arredondamento
+        procedimento.setPaciente(Paciente.builder()
+                .id(1L)
+                .nomePaciente("Paciente de referência")
+                .idade(65)
+                .fidelidade(150)
+                .build());
+        procedimento.setMateriais(materiais);
+    }
+
+    @Benchmark
+    public BigDecimal decimal() {
+        return decimal.calcularValorFinal(procedimento);
+    }
+
+    @Benchmark
+    public BigDecimal centavos() {
+        return centavos.calcularValorFinal(procedimento);
+    }
+
+    /**
+     * Sem a conversão final para BigDecimal
+     */
+    @Benchmark
+    public long centavosLong() {
+        return centavos.calcularValorFinalCentavos(procedimento);
+    }
+}
@@ -2,8 +2,12 @@ package com.odonto.sistema_odontologico;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableAsync
+@EnableScheduling
 public class SistemaOdontologicoApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,114 @@
+package com.odonto.sistema_odontologico.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Contagem das instruções SQL executadas pela thread da requisição atual:
+ * quantidade de execuções (um lote JDBC conta como uma), linhas lidas/alteradas e tempo no banco.
+ * Fora de uma requisição (jobs agendados, threads assíncronas) nada é contado.
+ */
+public final class ContadorSql {
+
+    private static final ThreadLocal<Contagem> ATUAL = new ThreadLocal<>();
+
+    private ContadorSql() {
+    }
+
+    public static Contagem iniciar() {
+        Contagem contagem = new Contagem();
+        ATUAL.set(contagem);
+        return contagem;
+    }
+
+    /**
+     * Contagem da requisição atual, ou null fora de uma requisição
+     */
+    public static Contagem atual() {
+        return ATUAL.get();
+    }
+
+    public static void encerrar() {
+        ATUAL.remove();
+    }
+
+    public static final class Contagem {
+
+        private int consultas;
+        private long linhas;
+        private long nanos;
+        private long inicioConsulta;
+
+        public int getConsultas() {
+            return consultas;
+        }
+
+        public long getLinhas() {
+            return linhas;
+        }
+
+        public long getTempoMs() {
+            return nanos / 1_000_000;
+        }
+
+        @Override
+        public String toString() {
+            return consultas + " consultas, " + linhas + " linhas, " + getTempoMs() + " ms";
+        }
+    }
+
+    /**
+     * Ouvinte do datasource-proxy: execuções e tempo pelas instruções, linhas pelo ResultSet.next()
+     */
+    static final class Ouvinte implements QueryExecutionListener, MethodExecutionListener {
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            Contagem contagem = ATUAL.get();
+            if (contagem != null) {
+                contagem.inicioConsulta = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            Contagem contagem = ATUAL.get();
+            if (contagem == null) {
+                return;
+            }
+            contagem.consultas++;
+            contagem.nanos += System.nanoTime() - contagem.inicioConsulta;
+            // linhas alteradas por INSERT/UPDATE/DELETE (as lidas são contadas no ResultSet)
+            Object resultado = execInfo.getResult();
+            if (resultado instanceof Integer alteradas && alteradas > 0) {
+                contagem.linhas += alteradas;
+            } else if (resultado instanceof int[] lote) {
+                for (int alteradas : lote) {
+                    contagem.linhas += Math.max(alteradas, 0);
+                }
+            }
+        }
+
+        @Override
+        public void beforeMethod(MethodExecutionContext executionContext) {
+        }
+
+        @Override
+        public void afterMethod(MethodExecutionContext executionContext) {
+            if (executionContext.getTarget() instanceof ResultSet
+                    && "next".equals(executionContext.getMethod().getName())
+                    && Boolean.TRUE.equals(executionContext.getResult())) {
+                Contagem contagem = ATUAL.get();
+                if (contagem != null) {
+                    contagem.linhas++;
+                }
+            }
+        }
+    }
+}
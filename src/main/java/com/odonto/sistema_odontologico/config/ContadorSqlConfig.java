@@ -0,0 +1,32 @@
+package com.odonto.sistema_odontologico.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+/**
+ * Registra o filtro que devolve a contagem de SQL da requisição (ContadorSql, ligado ao
+ * DataSource em ProxyDataSourceConfig) nos cabeçalhos X-SQL-* da resposta.
+ * Ligado só com odonto.sql.contador.habilitado=true (perfil dev e testes): em produção os cabeçalhos
+ * expõem detalhes internos e o filtro guarda a resposta em buffer.
+ */
+@Configuration
+@ConditionalOnProperty(name = "odonto.sql.contador.habilitado", havingValue = "true")
+public class ContadorSqlConfig {
+
+    @Bean
+    public FilterRegistrationBean<ContadorSqlFilter> contadorSqlFilter(Environment environment) {
+        int limiteConsultas = environment.getProperty("odonto.sql.limite-consultas", Integer.class, 20);
+        boolean falhar = environment.getProperty("odonto.sql.falhar-acima-do-limite", Boolean.class, false);
+
+        FilterRegistrationBean<ContadorSqlFilter> registro =
+                new FilterRegistrationBean<>(new ContadorSqlFilter(limiteConsultas, falhar));
+        registro.addUrlPatterns("/api/*");
+        // primeiro da cadeia, para contar também o que outros filtros executarem
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registro;
+    }
+}
@@ -0,0 +1,246 @@
+package com.odonto.sistema_odontologico.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Conta as instruções SQL de cada requisição e devolve o resultado nos cabeçalhos
+ * X-SQL-Consultas, X-SQL-Linhas e X-SQL-Tempo-Ms.
+ *
+ * Cabeçalhos precisam ir antes do corpo, e o corpo JSON é serializado depois do controller
+ * (carregamentos lazy acontecem nesse momento), então a resposta é retida em memória até o fim
+ * da requisição, até o primeiro flush ou até passar de TAMANHO_RETIDO bytes - o que vier antes.
+ * Nos endpoints /stream o corpo é escrito em outra thread: os cabeçalhos saem com o que foi
+ * executado na thread da requisição e as consultas do stream não são contadas.
+ *
+ * Acima de limiteConsultas instruções é registrado um aviso com o endpoint; com falhar=true
+ * (usado nos testes) a requisição termina com IllegalStateException.
+ */
+public class ContadorSqlFilter extends OncePerRequestFilter {
+
+    public static final String CABECALHO_CONSULTAS = "X-SQL-Consultas";
+    public static final String CABECALHO_LINHAS = "X-SQL-Linhas";
+    public static final String CABECALHO_TEMPO = "X-SQL-Tempo-Ms";
+
+    private static final int TAMANHO_RETIDO = 64 * 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(ContadorSqlFilter.class);
+
+    private final int limiteConsultas;
+    private final boolean falhar;
+
+    public ContadorSqlFilter(int limiteConsultas, boolean falhar) {
+        this.limiteConsultas = limiteConsultas;
+        this.falhar = falhar;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContadorSql.Contagem contagem = ContadorSql.iniciar();
+        RespostaComContagem resposta = new RespostaComContagem(response, contagem);
+        try {
+            chain.doFilter(request, resposta);
+        } finally {
+            ContadorSql.encerrar();
+            resposta.concluir();
+        }
+
+        if (contagem.getConsultas() > limiteConsultas) {
+            String mensagem = "Endpoint " + request.getMethod() + " " + request.getRequestURI()
+                    + " executou " + contagem + " (limite de " + limiteConsultas + " consultas)";
+            if (falhar) {
+                throw new IllegalStateException(mensagem);
+            }
+            log.warn(mensagem);
+        }
+    }
+
+    /**
+     * Retém o corpo até que os cabeçalhos de contagem possam ser definidos
+     */
+    private static class RespostaComContagem extends HttpServletResponseWrapper {
+
+        private final ContadorSql.Contagem contagem;
+        private final ByteArrayOutputStream retido = new ByteArrayOutputStream();
+        private final ReentrantLock trava = new ReentrantLock();
+        private boolean liberado;
+        private SaidaRetida saida;
+        private PrintWriter writer;
+
+        RespostaComContagem(HttpServletResponse response, ContadorSql.Contagem contagem) {
+            super(response);
+            this.contagem = contagem;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (saida == null) {
+                saida = new SaidaRetida();
+            }
+            return saida;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            liberar();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            liberar();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            liberar();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            liberar();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void resetBuffer() {
+            trava.lock();
+            try {
+                retido.reset();
+            } finally {
+                trava.unlock();
+            }
+            super.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            trava.lock();
+            try {
+                retido.reset();
+            } finally {
+                trava.unlock();
+            }
+            super.reset();
+        }
+
+        void concluir() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            liberar();
+        }
+
+        /**
+         * Define os cabeçalhos e passa a escrever direto na resposta original.
+         * Travado porque nos endpoints /stream outra thread pode estar escrevendo; ReentrantLock
+         * em vez de synchronized para uma thread virtual não prender a thread de plataforma
+         * enquanto escreve na rede.
+         */
+        void liberar() throws IOException {
+            trava.lock();
+            try {
+                if (liberado) {
+                    return;
+                }
+                liberado = true;
+                if (!isCommitted()) {
+                    setHeader(CABECALHO_CONSULTAS, String.valueOf(contagem.getConsultas()));
+                    setHeader(CABECALHO_LINHAS, String.valueOf(contagem.getLinhas()));
+                    setHeader(CABECALHO_TEMPO, String.valueOf(contagem.getTempoMs()));
+                }
+                if (retido.size() > 0) {
+                    retido.writeTo(getResponse().getOutputStream());
+                    retido.reset();
+                }
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        private class SaidaRetida extends ServletOutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                trava.lock();
+                try {
+                    if (liberado) {
+                        getResponse().getOutputStream().write(b);
+                        return;
+                    }
+                    retido.write(b);
+                    if (retido.size() > TAMANHO_RETIDO) {
+                        liberar();
+                    }
+                } finally {
+                    trava.unlock();
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                trava.lock();
+                try {
+                    if (liberado) {
+                        getResponse().getOutputStream().write(b, off, len);
+                        return;
+                    }
+                    retido.write(b, off, len);
+                    if (retido.size() > TAMANHO_RETIDO) {
+                        liberar();
+                    }
+                } finally {
+                    trava.unlock();
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                liberar();
+                getResponse().getOutputStream().flush();
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                try {
+                    getResponse().getOutputStream().setWriteListener(writeListener);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+    }
+}
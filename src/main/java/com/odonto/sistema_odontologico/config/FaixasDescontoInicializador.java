@@ -0,0 +1,36 @@
+package com.odonto.sistema_odontologico.config;
+
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * A faixa de desconto passou a ser gravada no paciente. Em bancos que já tinham pacientes a coluna
+ * é criada vazia, então aqui ela é preenchida uma vez com a mesma regra usada nos demais UPDATEs
+ * (PacienteRepository.FAIXA_DESCONTO).
+ */
+@Component
+public class FaixasDescontoInicializador {
+
+    private static final Logger log = LoggerFactory.getLogger(FaixasDescontoInicializador.class);
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PostConstruct
+    public void preencherFaixas() {
+        Integer preenchidos = new TransactionTemplate(transactionManager)
+                .execute(status -> pacienteRepository.preencherFaixasDesconto());
+        if (preenchidos != null && preenchidos > 0) {
+            log.info("Faixa de desconto preenchida para {} pacientes existentes", preenchidos);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.odonto.sistema_odontologico.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.HibernateMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Métricas expostas em /actuator/prometheus (e /actuator/metrics):
+ * - odonto.servico: tempo de cada método dos services anotados com @Timed (tags class e method)
+ * - http.server.requests: tempo de cada endpoint (automático do Spring MVC)
+ * - spring.data.repository.invocations: tempo de cada chamada de repositório (automático do Spring Data)
+ * - hibernate.*: consultas, entidades e cache de segundo nível
+ * - hikaricp.*: uso do pool de conexões (automático)
+ */
+@Configuration
+public class MetricasConfig {
+
+    public static final String METRICA_SERVICOS = "odonto.servico";
+
+    /**
+     * Faz o @Timed funcionar em qualquer bean (inclusive anotado na classe)
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterBinder hibernateMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> HibernateMetrics.monitor(registry,
+                entityManagerFactory.unwrap(SessionFactory.class), "entityManagerFactory");
+    }
+}
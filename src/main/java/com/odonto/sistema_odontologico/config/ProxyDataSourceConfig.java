@@ -0,0 +1,90 @@
+package com.odonto.sistema_odontologico.config;
+
+import com.odonto.sistema_odontologico.services.ConsultasLentasService;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Envolve o DataSource com o datasource-proxy. Os ouvintes ligados dependem das propriedades:
+ * - odonto.sql.contador.habilitado: contagem por requisição (ContadorSql)
+ * - odonto.sql.lentas.habilitado: log de consultas lentas e ranking (ConsultasLentasService)
+ * Os dois vêm desligados (ligados no perfil dev); com os dois desligados o DataSource continua
+ * sendo o Hikari puro, sem proxy em cada chamada JDBC.
+ */
+@Configuration
+public class ProxyDataSourceConfig {
+
+    static final String NOME_PROXY = "odonto";
+
+    /**
+     * static para ser criado antes dos demais beans e alcançar o DataSource na inicialização
+     */
+    @Bean
+    public static BeanPostProcessor proxyDataSource(Environment environment,
+                                                    ObjectProvider<ConsultasLentasService> consultasLentas) {
+        boolean contar = environment.getProperty("odonto.sql.contador.habilitado", Boolean.class, false);
+        boolean registrarLentas = environment.getProperty("odonto.sql.lentas.habilitado", Boolean.class, false);
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource
+                        || (!contar && !registrarLentas)) {
+                    return bean;
+                }
+                ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(dataSource).name(NOME_PROXY);
+                if (contar) {
+                    ContadorSql.Ouvinte ouvinte = new ContadorSql.Ouvinte();
+                    builder.listener(ouvinte)
+                            .methodListener(ouvinte)
+                            .proxyResultSet();
+                }
+                if (registrarLentas) {
+                    builder.listener(new OuvinteAdiado(consultasLentas));
+                }
+                return builder.build();
+            }
+        };
+    }
+
+    /**
+     * O DataSource é criado antes do service; ele só é resolvido na primeira consulta
+     */
+    private static final class OuvinteAdiado implements QueryExecutionListener {
+
+        private final ObjectProvider<ConsultasLentasService> provedor;
+        private volatile ConsultasLentasService alvo;
+
+        OuvinteAdiado(ObjectProvider<ConsultasLentasService> provedor) {
+            this.provedor = provedor;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            ConsultasLentasService service = alvo;
+            if (service == null) {
+                service = provedor.getIfAvailable();
+                if (service == null) {
+                    return;
+                }
+                alvo = service;
+            }
+            service.afterQuery(execInfo, queryInfoList);
+        }
+    }
+}
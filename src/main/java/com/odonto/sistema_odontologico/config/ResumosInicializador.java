@@ -0,0 +1,40 @@
+package com.odonto.sistema_odontologico.config;
+
+import com.odonto.sistema_odontologico.services.RelatorioService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * As tabelas de resumo dos relatórios só são mantidas a partir de quando passaram a existir.
+ * Em bancos que já tinham procedimentos elas começam vazias, então aqui são calculadas uma vez
+ * a partir dos procedimentos existentes.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class ResumosInicializador {
+
+    private static final Logger log = LoggerFactory.getLogger(ResumosInicializador.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RelatorioService relatorioService;
+
+    @PostConstruct
+    public void carregarResumos() {
+        boolean semResumos = !Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM resumo_receita_diaria)", Boolean.class));
+        boolean comProcedimentos = Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM procedimentos WHERE data_criacao IS NOT NULL)", Boolean.class));
+        if (semResumos && comProcedimentos) {
+            relatorioService.reconstruir();
+            log.info("Resumos de faturamento e consumo calculados a partir dos procedimentos existentes");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.odonto.sistema_odontologico.config;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Os ids eram IDENTITY e passaram a usar sequences (com alocação de 50 em 50).
+ * Em bancos já existentes as sequences são criadas começando em 1, então aqui elas são
+ * avançadas para depois do maior id de cada tabela, evitando colisão de chave primária.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SequenciasInicializador {
+
+    // mesmo valor de allocationSize nas entidades
+    private static final int ALOCACAO = 50;
+
+    private static final Map<String, String> SEQUENCIAS = Map.of(
+            "materiais_seq", "materiais",
+            "pacientes_seq", "pacientes",
+            "procedimentos_seq", "procedimentos"
+    );
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void ajustarSequencias() {
+        SEQUENCIAS.forEach((sequencia, tabela) -> {
+            Long maiorId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabela, Long.class);
+            List<Long> proximoValor = jdbcTemplate.queryForList(
+                    "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?",
+                    Long.class, sequencia.toUpperCase());
+
+            // o otimizador pooled usa o intervalo (valor - ALOCACAO, valor], por isso a folga
+            if (!proximoValor.isEmpty() && proximoValor.get(0) <= maiorId + ALOCACAO) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequencia + " RESTART WITH " + (maiorId + ALOCACAO + 1));
+            }
+        });
+    }
+}
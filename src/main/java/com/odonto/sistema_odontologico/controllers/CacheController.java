@@ -0,0 +1,35 @@
+package com.odonto.sistema_odontologico.controllers;
+
+import com.odonto.sistema_odontologico.services.EstatisticasCacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller de diagnóstico do cache de segundo nível (Material e Paciente)
+ */
+@RestController
+@RequestMapping("/api/cache")
+@CrossOrigin(origins = "*")
+public class CacheController {
+
+    @Autowired
+    private EstatisticasCacheService estatisticasCacheService;
+
+    @GetMapping("/estatisticas")
+    public ResponseEntity<?> estatisticas() {
+        try {
+            return ResponseEntity.ok(estatisticasCacheService.estatisticas());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro interno: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/estatisticas")
+    public ResponseEntity<Void> zerarEstatisticas() {
+        estatisticasCacheService.zerar();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.odonto.sistema_odontologico.controllers;
+
+import com.odonto.sistema_odontologico.dto.ConsultaLentaDTO;
+import com.odonto.sistema_odontologico.services.ConsultasLentasService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controller de diagnóstico: formatos de consulta SQL que mais consumiram tempo de banco
+ */
+@RestController
+@RequestMapping("/api/sql")
+@CrossOrigin(origins = "*")
+@ConditionalOnProperty(name = "odonto.sql.lentas.habilitado", havingValue = "true")
+public class ConsultasLentasController {
+
+    private static final int LIMITE_MAXIMO = 200;
+
+    @Autowired
+    private ConsultasLentasService consultasLentasService;
+
+    /**
+     * GET - Ranking por tempo total, da consulta mais cara para a mais barata
+     */
+    @GetMapping("/consultas-lentas")
+    public ResponseEntity<List<ConsultaLentaDTO>> topConsultas(@RequestParam(defaultValue = "20") int limite) {
+        int limiteAplicado = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        return ResponseEntity.ok(consultasLentasService.topConsultas(limiteAplicado));
+    }
+
+    @DeleteMapping("/consultas-lentas")
+    public ResponseEntity<Void> zerar() {
+        consultasLentasService.zerar();
+        return ResponseEntity.noContent().build();
+    }
+}
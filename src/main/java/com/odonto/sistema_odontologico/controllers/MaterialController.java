@@ -1,13 +1,26 @@
 package com.odonto.sistema_odontologico.controllers;
 
+import com.odonto.sistema_odontologico.dto.PaginaCursor;
 import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.services.AlertaEstoqueService;
+import com.odonto.sistema_odontologico.services.BuscaNomeService;
+import com.odonto.sistema_odontologico.services.ImportacaoService;
 import com.odonto.sistema_odontologico.services.MaterialService;
+import com.odonto.sistema_odontologico.services.VersaoDadosService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,12 +29,21 @@ import java.util.Optional;
  */
 @RestController
 @RequestMapping("/api/materiais")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG)
 public class MaterialController {
 
     @Autowired
     private MaterialService materialService;
 
+    @Autowired
+    private ImportacaoService importacaoService;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    @Autowired
+    private AlertaEstoqueService alertaEstoqueService;
+
     @PostMapping
     public ResponseEntity<?> cadastrar(@Valid @RequestBody Material material) {
         try {
@@ -33,25 +55,91 @@ public class MaterialController {
         }
     }
 
+    /**
+     * GET - Lista completa com ETag: If-None-Match igual à versão atual responde 304 sem consultar o banco
+     */
     @GetMapping
-    public ResponseEntity<List<Material>> listarTodos() {
+    public ResponseEntity<List<Material>> listarTodos(WebRequest request) {
         try {
+            String etag = versaoDadosService.etag(VersaoDadosService.Tipo.MATERIAL);
+            if (request.checkNotModified(etag)) {
+                return null; // resposta 304 já preenchida pelo Spring
+            }
             List<Material> materiais = materialService.listarTodos();
             if (materiais.isEmpty()) {
-                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+                return ResponseEntity.noContent().eTag(etag).cacheControl(CacheControl.noCache()).build();
             }
-            return new ResponseEntity<>(materiais, HttpStatus.OK);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(materiais);
         } catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * Listagem paginada por cursor (id do último item da página anterior)
+     */
+    @GetMapping("/pagina")
+    public ResponseEntity<?> listarPagina(@RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer tamanho) {
+        try {
+            PaginaCursor<Material> pagina = materialService.listarPagina(cursor, tamanho);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Erro: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro interno: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Listagem completa em NDJSON, escrita em stream sem carregar a tabela em memória
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> listarStream() {
+        StreamingResponseBody corpo = saida -> materialService.escreverNdjson(saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(corpo);
+    }
+
+    /**
+     * POST - Importação em massa de materiais (CSV com cabeçalho, array JSON ou NDJSON), lida em stream
+     */
+    @PostMapping(value = "/importar", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> importar(@RequestHeader(HttpHeaders.CONTENT_TYPE) String tipo, InputStream corpo) {
+        try {
+            return ResponseEntity.ok(importacaoService.importarMateriais(corpo, ImportacaoService.Formato.doTipo(tipo)));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Erro ao ler arquivo: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Erro interno: " + e.getMessage());
+        }
+    }
+
+    /**
+     * GET - Alertas de estoque em tempo real (Server-Sent Events): evento estoque-baixo quando a quantidade
+     * chega ao ponto de reposição do material e estoque-reposto quando volta a ficar acima dele
+     */
+    @GetMapping(value = "/alertas", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter alertas() {
+        return alertaEstoqueService.assinar();
+    }
+
+    /**
+     * GET - Detalhe com ETag, respondendo 304 sem consultar o banco quando o cliente já tem a versão atual
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<?> buscarPorId(@PathVariable Long id) {
+    public ResponseEntity<?> buscarPorId(@PathVariable Long id, WebRequest request) {
         try {
+            String etag = versaoDadosService.etag(id, VersaoDadosService.Tipo.MATERIAL);
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
             Optional<Material> material = materialService.buscarPorId(id);
             if (material.isPresent()) {
-                return ResponseEntity.ok(material.get());
+                return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(material.get());
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body("Material não encontrado com ID: " + id);
@@ -63,9 +151,10 @@ public class MaterialController {
     }
 
     @GetMapping("/buscar")
-    public ResponseEntity<List<Material>> buscarPorNome(@RequestParam String nome) {
+    public ResponseEntity<List<Material>> buscarPorNome(@RequestParam String nome,
+                                                      @RequestParam(defaultValue = "" + BuscaNomeService.LIMITE_PADRAO) int limite) {
         try {
-            List<Material> materiais = materialService.buscarPorNome(nome);
+            List<Material> materiais = materialService.buscarPorNome(nome, Math.min(Math.max(limite, 1), 500));
             if (materiais.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.NO_CONTENT);
             }
@@ -0,0 +1,48 @@
+package com.odonto.sistema_odontologico.controllers;
+
+import com.odonto.sistema_odontologico.dto.ProcedimentoDTO;
+import com.odonto.sistema_odontologico.dto.ResultadoOrcamentoDTO;
+import com.odonto.sistema_odontologico.services.OrcamentoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controller de orçamentos: preço de vários procedimentos sem cadastrá-los
+ */
+@RestController
+@RequestMapping("/api/orcamentos")
+@CrossOrigin(origins = "*")
+public class OrcamentoController {
+
+    private static final int TAMANHO_MAXIMO_ORCAMENTO = 200;
+
+    @Autowired
+    private OrcamentoService orcamentoService;
+
+    /**
+     * Cada item é validado e calculado de forma independente: itens inválidos vêm com erro
+     * e ficam fora do valor total
+     */
+    @PostMapping
+    public ResponseEntity<?> orcar(@RequestBody List<ProcedimentoDTO> dtos) {
+        if (dtos == null || dtos.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Erro: lista de procedimentos vazia");
+        }
+        if (dtos.size() > TAMANHO_MAXIMO_ORCAMENTO) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Erro: o orçamento aceita no máximo " + TAMANHO_MAXIMO_ORCAMENTO + " procedimentos");
+        }
+        try {
+            ResultadoOrcamentoDTO resultado = orcamentoService.orcar(dtos);
+            return new ResponseEntity<>(resultado, HttpStatus.OK);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao calcular orçamento: " + e.getMessage());
+        }
+    }
+}
@@ -1,13 +1,31 @@
 package com.odonto.sistema_odontologico.controllers;
 
+import com.odonto.sistema_odontologico.dto.PaginaCursor;
+import com.odonto.sistema_odontologico.dto.ProcedimentoResumo;
+import com.odonto.sistema_odontologico.models.LancamentoFidelidade;
 import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.services.BuscaNomeService;
+import com.odonto.sistema_odontologico.services.FidelidadeService;
+import com.odonto.sistema_odontologico.services.ImportacaoService;
 import com.odonto.sistema_odontologico.services.PacienteService;
+import com.odonto.sistema_odontologico.services.ProcedimentoService;
+import com.odonto.sistema_odontologico.services.VersaoDadosService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.web.PagedModel;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -15,12 +33,24 @@ import java.util.List;
  */
 @RestController
 @RequestMapping("/api/pacientes")
-@CrossOrigin(origins = "*") // Permitir acesso de qualquer origem (ajustar em produção)
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG) // Permitir acesso de qualquer origem (ajustar em produção)
 public class PacienteController {
 
     @Autowired
     private PacienteService pacienteService;
 
+    @Autowired
+    private ImportacaoService importacaoService;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    @Autowired
+    private ProcedimentoService procedimentoService;
+
+    @Autowired
+    private FidelidadeService fidelidadeService;
+
     @PostMapping
     public ResponseEntity<Paciente> cadastrar(@Valid @RequestBody Paciente paciente) {
         try {
@@ -31,30 +61,112 @@ public class PacienteController {
         }
     }
 
+    /**
+     * GET - Lista completa com ETag: If-None-Match igual à versão atual responde 304 sem consultar o banco.
+     * ?tier= filtra pela faixa de desconto gravada (0, 5, 10, 15 ou 20)
+     */
     @GetMapping
-    public ResponseEntity<List<Paciente>> listarTodos() {
+    public ResponseEntity<?> listarTodos(@RequestParam(required = false) Integer tier, WebRequest request) {
         try {
-            List<Paciente> pacientes = pacienteService.listarTodos();
+            String etag = versaoDadosService.etag(VersaoDadosService.Tipo.PACIENTE);
+            if (request.checkNotModified(etag)) {
+                return null; // resposta 304 já preenchida pelo Spring
+            }
+            List<Paciente> pacientes = tier == null
+                    ? pacienteService.listarTodos()
+                    : pacienteService.listarPorFaixaDesconto(tier);
             if (pacientes.isEmpty()) {
-                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+                return ResponseEntity.noContent().eTag(etag).cacheControl(CacheControl.noCache()).build();
             }
-            return new ResponseEntity<>(pacientes, HttpStatus.OK);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(pacientes);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Erro: " + e.getMessage());
         } catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * GET - Listagem paginada por cursor (id do último item da página anterior)
+     */
+    @GetMapping("/pagina")
+    public ResponseEntity<PaginaCursor<Paciente>> listarPagina(@RequestParam(required = false) String cursor,
+                                                               @RequestParam(required = false) Integer tamanho) {
+        try {
+            return new ResponseEntity<>(pacienteService.listarPagina(cursor, tamanho), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * GET - Listagem completa em NDJSON, escrita em stream sem carregar a tabela em memória
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> listarStream() {
+        StreamingResponseBody corpo = saida -> pacienteService.escreverNdjson(saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(corpo);
+    }
+
+    /**
+     * POST - Importação em massa de pacientes (CSV com cabeçalho, array JSON ou NDJSON), lida em stream
+     */
+    @PostMapping(value = "/importar", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> importar(@RequestHeader(HttpHeaders.CONTENT_TYPE) String tipo, InputStream corpo) {
+        try {
+            return ResponseEntity.ok(importacaoService.importarPacientes(corpo, ImportacaoService.Formato.doTipo(tipo)));
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Erro ao ler arquivo: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Erro interno: " + e.getMessage());
+        }
+    }
+
+    /**
+     * GET - Detalhe com ETag, respondendo 304 sem consultar o banco quando o cliente já tem a versão atual
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<Paciente> buscarPorId(@PathVariable Long id) {
+    public ResponseEntity<Paciente> buscarPorId(@PathVariable Long id, WebRequest request) {
+        String etag = versaoDadosService.etag(id, VersaoDadosService.Tipo.PACIENTE);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         return pacienteService.buscarPorId(id)
-                .map(paciente -> new ResponseEntity<>(paciente, HttpStatus.OK))
+                .map(paciente -> ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(paciente))
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
+    /**
+     * GET - Histórico paginado de procedimentos do paciente, filtrado por data (from/to no formato yyyy-MM-dd)
+     */
+    @GetMapping("/{id}/procedimentos")
+    public ResponseEntity<PagedModel<ProcedimentoResumo>> listarProcedimentos(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "20") int tamanho) {
+        try {
+            return new ResponseEntity<>(new PagedModel<>(
+                    procedimentoService.buscarHistoricoPaciente(id, from, to, pagina, tamanho)), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (RuntimeException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @GetMapping("/buscar")
-    public ResponseEntity<List<Paciente>> buscarPorNome(@RequestParam String nome) {
+    public ResponseEntity<List<Paciente>> buscarPorNome(@RequestParam String nome,
+                                                      @RequestParam(defaultValue = "" + BuscaNomeService.LIMITE_PADRAO) int limite) {
         try {
-            List<Paciente> pacientes = pacienteService.buscarPorNome(nome);
+            List<Paciente> pacientes = pacienteService.buscarPorNome(nome, Math.min(Math.max(limite, 1), 500));
             if (pacientes.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.NO_CONTENT);
             }
@@ -90,18 +202,33 @@ public class PacienteController {
     }
 
     /**
-     * PATCH - Adicionar pontos de fidelidade
+     * PATCH - Adicionar pontos de fidelidade (negativos debitam, sem deixar o saldo negativo)
      */
     @PatchMapping("/{id}/fidelidade")
-    public ResponseEntity<Paciente> adicionarFidelidade(@PathVariable Long id,
-                                                        @RequestParam Integer pontos) {
+    public ResponseEntity<?> adicionarFidelidade(@PathVariable Long id,
+                                                 @RequestParam Integer pontos) {
         try {
             Paciente paciente = pacienteService.adicionarPontosFidelidade(id, pontos);
             return new ResponseEntity<>(paciente, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Erro: " + e.getMessage());
         } catch (RuntimeException e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         } catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * GET - Extrato de pontos de fidelidade, lançamentos mais recentes primeiro
+     */
+    @GetMapping("/{id}/fidelidade/extrato")
+    public ResponseEntity<List<LancamentoFidelidade>> extratoFidelidade(@PathVariable Long id,
+                                                                        @RequestParam(required = false) Integer limite) {
+        List<LancamentoFidelidade> lancamentos = fidelidadeService.extrato(id, PaginaCursor.limitarTamanho(limite));
+        if (lancamentos.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return ResponseEntity.ok(lancamentos);
+    }
+}
@@ -1,11 +1,25 @@
 package com.odonto.sistema_odontologico.controllers;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,10 +29,22 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
  
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.odonto.sistema_odontologico.dto.DetalhamentoPrecoDTO;
+import com.odonto.sistema_odontologico.dto.PaginaCursor;
 import com.odonto.sistema_odontologico.dto.ProcedimentoDTO;
+import com.odonto.sistema_odontologico.dto.ProcedimentoResumoDTO;
+import com.odonto.sistema_odontologico.dto.ResultadoLoteDTO;
 import com.odonto.sistema_odontologico.models.Procedimento;
+import com.odonto.sistema_odontologico.services.BuscaNomeService;
+import com.odonto.sistema_odontologico.services.CalculadoraPrecoService;
+import com.odonto.sistema_odontologico.services.ExportacaoService;
 import com.odonto.sistema_odontologico.services.ProcedimentoService;
+import com.odonto.sistema_odontologico.services.VersaoDadosService;
 
 import jakarta.validation.Valid;
 
@@ -27,12 +53,25 @@ import jakarta.validation.Valid;
  */
 @RestController
 @RequestMapping("/api/procedimentos")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG)
 public class ProcedimentoController {
 
+    private static final int TAMANHO_MAXIMO_LOTE = 1000;
+    private static final int TAMANHO_MAXIMO_DETALHAMENTOS = 500;
+
+    // o JSON do procedimento inclui paciente e materiais: o ETag muda com escritas em qualquer um deles
+    private static final VersaoDadosService.Tipo[] PROCEDIMENTO_E_RELACIONADOS = {
+            VersaoDadosService.Tipo.PROCEDIMENTO, VersaoDadosService.Tipo.PACIENTE, VersaoDadosService.Tipo.MATERIAL};
+
     @Autowired
     private ProcedimentoService procedimentoService;
 
+    @Autowired
+    private ExportacaoService exportacaoService;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
     @PostMapping
     public ResponseEntity<?> cadastrar(@Valid @RequestBody ProcedimentoDTO dto) {
         try {
@@ -47,29 +86,153 @@ public class ProcedimentoController {
         }
     }
 
+    /**
+     * Cadastro em lote: cada item é validado separadamente e o resultado traz o status de cada um
+     */
+    @PostMapping("/lote")
+    public ResponseEntity<?> cadastrarLote(@RequestBody List<ProcedimentoDTO> dtos) {
+        if (dtos == null || dtos.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Erro: lista de procedimentos vazia");
+        }
+        if (dtos.size() > TAMANHO_MAXIMO_LOTE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Erro: o lote aceita no máximo " + TAMANHO_MAXIMO_LOTE + " procedimentos");
+        }
+        try {
+            ResultadoLoteDTO resultado = procedimentoService.cadastrarLote(dtos);
+            HttpStatus status = resultado.getCadastrados() > 0 ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST;
+            return new ResponseEntity<>(resultado, status);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao cadastrar lote: " + e.getMessage());
+        }
+    }
+
+    /**
+     * GET - Lista com ETag: If-None-Match igual à versão atual responde 304 sem consultar o banco.
+     * view=resumo|detalhe troca a entidade completa por uma visão reduzida e fields=a,b,c devolve só os campos pedidos
+     */
     @GetMapping
-    public ResponseEntity<List<Procedimento>> listarTodos() {
+    public ResponseEntity<?> listarTodos(@RequestParam(required = false) String view,
+                                         @RequestParam(required = false) String fields,
+                                         WebRequest request) {
         try {
-            List<Procedimento> procedimentos = procedimentoService.listarTodos();
+            Set<String> campos = lerCampos(fields);
+            ProcedimentoService.Visao visao = view == null && campos.isEmpty()
+                    ? null
+                    : ProcedimentoService.Visao.escolher(view, campos);
+            String etag = versaoDadosService.etag(PROCEDIMENTO_E_RELACIONADOS);
+            if (request.checkNotModified(etag)) {
+                return null; // resposta 304 já preenchida pelo Spring
+            }
+            List<?> procedimentos = visao == null ? procedimentoService.listarTodos() : procedimentoService.listarVisao(visao);
             if (procedimentos.isEmpty()) {
-                return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+                return ResponseEntity.noContent().eTag(etag).cacheControl(CacheControl.noCache()).build();
             }
-            return new ResponseEntity<>(procedimentos, HttpStatus.OK);
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+                    .body(visao == null ? procedimentos : comCampos(procedimentos, campos));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Erro: " + e.getMessage());
         } catch (Exception e) {
-            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro interno: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Listagem paginada por cursor: ordenarPor = id (padrão) ou dataCriacao
+     */
+    @GetMapping("/pagina")
+    public ResponseEntity<?> listarPagina(@RequestParam(required = false) String cursor,
+                                          @RequestParam(required = false) Integer tamanho,
+                                          @RequestParam(defaultValue = "id") String ordenarPor) {
+        try {
+            PaginaCursor<Procedimento> pagina = procedimentoService.listarPagina(cursor, tamanho, ordenarPor);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Erro: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro interno: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Listagem completa em NDJSON, escrita em stream sem carregar a tabela em memória
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> listarStream() {
+        StreamingResponseBody corpo = saida -> procedimentoService.escreverNdjson(saida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(corpo);
+    }
+
+    /**
+     * Exportação em CSV ou NDJSON dos procedimentos com paciente e materiais, filtrada por período
+     * (de/ate no formato yyyy-MM-dd), escrita direto do cursor do banco sem carregar entidades
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportar(
+            @RequestParam(defaultValue = "csv") String formato,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+        ExportacaoService.Formato formatoExportacao;
+        try {
+            formatoExportacao = ExportacaoService.Formato.valueOf(formato.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Erro: Formato inválido: " + formato + " (use csv ou ndjson)");
+        }
+        if (de != null && ate != null && de.isAfter(ate)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Erro: Data inicial posterior à data final");
         }
+
+        boolean csv = formatoExportacao == ExportacaoService.Formato.CSV;
+        StreamingResponseBody corpo = saida -> exportacaoService.exportarProcedimentos(formatoExportacao, de, ate, saida);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(csv ? "procedimentos.csv" : "procedimentos.ndjson")
+                        .build()
+                        .toString())
+                .body(corpo);
     }
 
+    /**
+     * GET - Detalhe com ETag, respondendo 304 sem consultar o banco quando o cliente já tem a versão atual
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<?> buscarPorId(@PathVariable Long id) {
+    public ResponseEntity<?> buscarPorId(@PathVariable Long id,
+                                         @RequestParam(required = false) String view,
+                                         @RequestParam(required = false) String fields,
+                                         WebRequest request) {
         try {
-            Optional<Procedimento> procedimento = procedimentoService.buscarPorId(id);
+            Set<String> campos = lerCampos(fields);
+            ProcedimentoService.Visao visao = view == null && campos.isEmpty()
+                    ? null
+                    : ProcedimentoService.Visao.escolher(view, campos);
+            String etag = versaoDadosService.etag(id, PROCEDIMENTO_E_RELACIONADOS);
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            Optional<?> procedimento = visao == null
+                    ? procedimentoService.buscarPorId(id)
+                    : procedimentoService.buscarVisao(id, visao);
             if (procedimento.isPresent()) {
-                return ResponseEntity.ok(procedimento.get());
+                return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache())
+                        .body(visao == null ? procedimento.get() : comCampos(procedimento.get(), campos));
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body("Procedimento não encontrado com ID: " + id);
             }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Erro: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Erro interno: " + e.getMessage());
@@ -77,9 +240,10 @@ public class ProcedimentoController {
     }
 
     @GetMapping("/buscar")
-    public ResponseEntity<List<Procedimento>> buscarPorNome(@RequestParam String nome) {
+    public ResponseEntity<List<Procedimento>> buscarPorNome(@RequestParam String nome,
+                                                      @RequestParam(defaultValue = "" + BuscaNomeService.LIMITE_PADRAO) int limite) {
         try {
-            List<Procedimento> procedimentos = procedimentoService.buscarPorNome(nome);
+            List<Procedimento> procedimentos = procedimentoService.buscarPorNome(nome, Math.min(Math.max(limite, 1), 500));
             if (procedimentos.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.NO_CONTENT);
             }
@@ -129,10 +293,19 @@ public class ProcedimentoController {
         }
     }
     
+    /**
+     * Composição do preço; formato=texto devolve o resumo em texto puro
+     */
     @GetMapping("/{id}/detalhamento")
-    public ResponseEntity<?> gerarDetalhamentoCalculo(@PathVariable Long id) {
+    public ResponseEntity<?> calcularDetalhamento(@PathVariable Long id,
+                                                  @RequestParam(defaultValue = "json") String formato) {
         try {
-            String detalhamento = procedimentoService.gerarDetalhamentoCalculo(id);
+            DetalhamentoPrecoDTO detalhamento = procedimentoService.calcularDetalhamento(id);
+            if ("texto".equals(formato)) {
+                return ResponseEntity.ok()
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .body(CalculadoraPrecoService.formatarTexto(detalhamento));
+            }
             return ResponseEntity.ok(detalhamento);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -142,4 +315,52 @@ public class ProcedimentoController {
                     .body("Erro interno: " + e.getMessage());
         }
     }
+
+    /**
+     * Detalhamento de vários procedimentos em uma requisição: ?ids=1,2,3 (ids inexistentes são ignorados)
+     */
+    @GetMapping("/detalhamentos")
+    public ResponseEntity<?> calcularDetalhamentos(@RequestParam List<Long> ids,
+                                                   @RequestParam(defaultValue = "json") String formato) {
+        List<Long> idsDistintos = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (idsDistintos.isEmpty() || idsDistintos.size() > TAMANHO_MAXIMO_DETALHAMENTOS) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Erro: informe de 1 a " + TAMANHO_MAXIMO_DETALHAMENTOS + " ids");
+        }
+        try {
+            List<DetalhamentoPrecoDTO> detalhamentos = procedimentoService.calcularDetalhamentos(idsDistintos);
+            if ("texto".equals(formato)) {
+                String texto = detalhamentos.stream()
+                        .map(d -> "Procedimento " + d.getProcedimentoId() + "\n" + CalculadoraPrecoService.formatarTexto(d))
+                        .collect(Collectors.joining("\n\n"));
+                return ResponseEntity.ok()
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .body(texto);
+            }
+            return ResponseEntity.ok(detalhamentos);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro interno: " + e.getMessage());
+        }
+    }
+
+    private static Set<String> lerCampos(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(campo -> !campo.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * Aplica o filtro de campos das visões; sem fields, todos os campos da visão são serializados
+     */
+    private static MappingJacksonValue comCampos(Object corpo, Set<String> campos) {
+        MappingJacksonValue valor = new MappingJacksonValue(corpo);
+        valor.setFilters(new SimpleFilterProvider().addFilter(ProcedimentoResumoDTO.FILTRO_CAMPOS,
+                campos.isEmpty() ? SimpleBeanPropertyFilter.serializeAll() : SimpleBeanPropertyFilter.filterOutAllExcept(campos)));
+        return valor;
+    }
 }
@@ -0,0 +1,98 @@
+package com.odonto.sistema_odontologico.controllers;
+
+import com.odonto.sistema_odontologico.services.RelatorioService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+/**
+ * Controller de relatórios: lê apenas as tabelas de resumo, nunca a de procedimentos.
+ * Períodos em yyyy-MM-dd, datas inclusivas; sem "de" são os últimos 30 dias até "ate" (padrão: hoje).
+ */
+@RestController
+@RequestMapping("/api/relatorios")
+@CrossOrigin(origins = "*")
+public class RelatorioController {
+
+    @Autowired
+    private RelatorioService relatorioService;
+
+    /**
+     * GET - Faturamento agrupado por dia ou mes
+     */
+    @GetMapping("/receita")
+    public ResponseEntity<?> receita(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,
+            @RequestParam(defaultValue = "dia") String agrupar) {
+        try {
+            return ResponseEntity.ok(relatorioService.receita(de, ate, agrupar));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Erro: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro interno: " + e.getMessage());
+        }
+    }
+
+    /**
+     * GET - Pacientes que mais faturaram no período
+     */
+    @GetMapping("/receita/pacientes")
+    public ResponseEntity<?> receitaPorPaciente(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,
+            @RequestParam(defaultValue = "20") int limite) {
+        try {
+            return ResponseEntity.ok(relatorioService.receitaPorPaciente(de, ate, limite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Erro: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro interno: " + e.getMessage());
+        }
+    }
+
+    /**
+     * GET - Unidades de material descartável consumidas no período, por material
+     */
+    @GetMapping("/consumo-materiais")
+    public ResponseEntity<?> consumoMateriais(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+        try {
+            return ResponseEntity.ok(relatorioService.consumoMateriais(de, ate));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Erro: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro interno: " + e.getMessage());
+        }
+    }
+
+    /**
+     * GET - Consumo diário de um material no período
+     */
+    @GetMapping("/consumo-materiais/{materialId}")
+    public ResponseEntity<?> consumoMaterialPorDia(
+            @PathVariable Long materialId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate) {
+        try {
+            return ResponseEntity.ok(relatorioService.consumoMaterialPorDia(materialId, de, ate));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body("Erro: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro interno: " + e.getMessage());
+        }
+    }
+}
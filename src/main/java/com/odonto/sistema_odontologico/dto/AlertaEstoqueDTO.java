@@ -0,0 +1,29 @@
+package com.odonto.sistema_odontologico.dto;
+
+import java.time.LocalDateTime;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+/**
+ * Alerta enviado pelo stream /api/materiais/alertas quando a quantidade de um material cruza o ponto de reposição
+ */
+public class AlertaEstoqueDTO {
+
+    public enum Tipo { ESTOQUE_BAIXO, ESTOQUE_REPOSTO }
+
+    private Tipo tipo;
+
+    private Long materialId;
+
+    private String nomeMaterial;
+
+    private int quantidade;
+
+    private int pontoReposicao;
+
+    private LocalDateTime momento;
+}
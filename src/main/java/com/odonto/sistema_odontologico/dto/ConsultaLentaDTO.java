@@ -0,0 +1,27 @@
+package com.odonto.sistema_odontologico.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+/**
+ * Formato de consulta (literais trocados por ?) com o tempo acumulado na janela do ranking
+ */
+public class ConsultaLentaDTO {
+
+    private String consulta;
+
+    private long execucoes;
+
+    private long tempoTotalMs;
+
+    private double tempoMedioMs;
+
+    private long tempoMaximoMs;
+
+    // método do service que executou a consulta na última vez em que ela foi registrada no log
+    private String origem;
+}
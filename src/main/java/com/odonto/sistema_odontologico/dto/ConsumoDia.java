@@ -0,0 +1,13 @@
+package com.odonto.sistema_odontologico.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Projeção do consumo diário de um material
+ */
+public interface ConsumoDia {
+
+    LocalDate getDia();
+
+    Long getUnidades();
+}
@@ -0,0 +1,13 @@
+package com.odonto.sistema_odontologico.dto;
+
+/**
+ * Projeção do resumo de consumo somado por material no período
+ */
+public interface ConsumoMaterial {
+
+    Long getMaterialId();
+
+    String getNomeMaterial();
+
+    Long getUnidades();
+}
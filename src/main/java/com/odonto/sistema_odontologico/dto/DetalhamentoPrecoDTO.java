@@ -0,0 +1,68 @@
+package com.odonto.sistema_odontologico.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+/**
+ * Composição do preço de um procedimento: materiais, mão de obra, assistente e desconto.
+ * Valores em reais com 2 casas; o valor final é arredondado a partir dos valores exatos,
+ * por isso pode diferir em 1 centavo da soma das parcelas arredondadas.
+ * Para procedimento já cadastrado, valorFinal é o gravado (o que foi cobrado) e as parcelas são
+ * recalculadas com os preços e o desconto atuais: valorRecalculado é o total dessas parcelas e
+ * divergente indica que ele não bate com o gravado (preço de material ou faixa do paciente mudou).
+ */
+public class DetalhamentoPrecoDTO {
+
+    private Long procedimentoId;
+
+    private List<Item> materiais;
+
+    private BigDecimal custoMateriais;
+
+    private BigDecimal valorHora;
+
+    private Float duracao;
+
+    private BigDecimal custoMaoObra;
+
+    private BigDecimal adicionalAssistente;
+
+    private BigDecimal subtotal;
+
+    private double percentualDesconto;
+
+    private BigDecimal valorDesconto;
+
+    private BigDecimal valorFinal;
+
+    private BigDecimal valorRecalculado;
+
+    private boolean divergente;
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @Builder
+    /**
+     * Material usado no procedimento - valorCobrado é 10% do valor quando reutilizável
+     */
+    public static class Item {
+
+        private Long materialId;
+
+        private String nomeMaterial;
+
+        private BigDecimal valor;
+
+        private boolean reutilizavel;
+
+        private BigDecimal valorCobrado;
+    }
+}
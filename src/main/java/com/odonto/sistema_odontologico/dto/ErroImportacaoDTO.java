@@ -0,0 +1,18 @@
+package com.odonto.sistema_odontologico.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+/**
+ * Registro recusado na importação - linha é a linha do CSV (o cabeçalho é a linha 1) ou a posição do item no JSON
+ */
+public class ErroImportacaoDTO {
+
+    private long linha;
+
+    private String erro;
+}
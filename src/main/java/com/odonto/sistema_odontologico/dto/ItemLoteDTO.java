@@ -0,0 +1,29 @@
+package com.odonto.sistema_odontologico.dto;
+
+import java.math.BigDecimal;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+/**
+ * Resultado de um item do cadastro em lote - indice é a posição do item na lista enviada
+ */
+public class ItemLoteDTO {
+
+    private int indice;
+
+    private boolean sucesso;
+
+    private Long procedimentoId;
+
+    private BigDecimal valorFinal;
+
+    private String erro;
+
+    public static ItemLoteDTO falha(int indice, String erro) {
+        return ItemLoteDTO.builder().indice(indice).sucesso(false).erro(erro).build();
+    }
+}
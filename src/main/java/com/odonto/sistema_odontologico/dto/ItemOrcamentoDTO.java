@@ -0,0 +1,33 @@
+package com.odonto.sistema_odontologico.dto;
+
+import java.math.BigDecimal;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+/**
+ * Preço de um item do orçamento - indice é a posição do item na lista enviada
+ */
+public class ItemOrcamentoDTO {
+
+    private int indice;
+
+    private boolean sucesso;
+
+    private String nomeProcedimento;
+
+    private Long pacienteId;
+
+    private BigDecimal valorFinal;
+
+    private DetalhamentoPrecoDTO detalhamento;
+
+    private String erro;
+
+    public static ItemOrcamentoDTO falha(int indice, String erro) {
+        return ItemOrcamentoDTO.builder().indice(indice).sucesso(false).erro(erro).build();
+    }
+}
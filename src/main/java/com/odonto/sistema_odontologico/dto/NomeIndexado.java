@@ -0,0 +1,11 @@
+package com.odonto.sistema_odontologico.dto;
+
+/**
+ * Projeção id + nome usada para montar o índice de busca por nome
+ */
+public interface NomeIndexado {
+
+    Long getId();
+
+    String getNome();
+}
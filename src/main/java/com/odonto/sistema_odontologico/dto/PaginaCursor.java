@@ -0,0 +1,43 @@
+package com.odonto.sistema_odontologico.dto;
+
+import java.util.List;
+import java.util.function.Function;
+import lombok.*;
+
+@Getter
+@AllArgsConstructor
+/**
+ * Página de uma listagem paginada por cursor (keyset).
+ * O proximoCursor deve ser enviado na próxima requisição; é null quando não há mais itens.
+ */
+public class PaginaCursor<T> {
+
+    public static final int TAMANHO_PADRAO = 50;
+    public static final int TAMANHO_MAXIMO = 500;
+
+    private List<T> itens;
+
+    private String proximoCursor;
+
+    /**
+     * Garante que o tamanho da página fique entre 1 e TAMANHO_MAXIMO
+     */
+    public static int limitarTamanho(Integer tamanho) {
+        if (tamanho == null || tamanho <= 0) {
+            return TAMANHO_PADRAO;
+        }
+        return Math.min(tamanho, TAMANHO_MAXIMO);
+    }
+
+    /**
+     * Monta a página a partir de uma consulta que buscou tamanho + 1 itens:
+     * o item extra só indica que existe próxima página e é descartado
+     */
+    public static <T> PaginaCursor<T> de(List<T> resultado, int tamanho, Function<T, String> cursorDe) {
+        if (resultado.size() <= tamanho) {
+            return new PaginaCursor<>(resultado, null);
+        }
+        List<T> itens = resultado.subList(0, tamanho);
+        return new PaginaCursor<>(itens, cursorDe.apply(itens.get(tamanho - 1)));
+    }
+}
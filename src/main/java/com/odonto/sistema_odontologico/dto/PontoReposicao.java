@@ -0,0 +1,13 @@
+package com.odonto.sistema_odontologico.dto;
+
+/**
+ * Projeção dos materiais monitorados pelos alertas de estoque
+ */
+public interface PontoReposicao {
+
+    Long getId();
+
+    String getNomeMaterial();
+
+    Integer getPontoReposicao();
+}
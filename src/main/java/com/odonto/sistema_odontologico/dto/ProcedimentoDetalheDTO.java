@@ -0,0 +1,76 @@
+package com.odonto.sistema_odontologico.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonFilter(ProcedimentoResumoDTO.FILTRO_CAMPOS)
+/**
+ * Visão "detalhe" de Procedimento - o resumo mais mão de obra e os materiais usados,
+ * sem o estoque (quantidade) de cada material
+ */
+public class ProcedimentoDetalheDTO {
+
+    private Long id;
+
+    private String nomeProcedimento;
+
+    private Boolean assistente;
+
+    private Float duracao;
+
+    private BigDecimal valorMaoObra;
+
+    private BigDecimal valorFinal;
+
+    private LocalDateTime dataCriacao;
+
+    private Long pacienteId;
+
+    private String nomePaciente;
+
+    private List<MaterialUsado> materiais;
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class MaterialUsado {
+
+        private Long id;
+
+        private String nomeMaterial;
+
+        private BigDecimal valor;
+
+        private Boolean reutilizavel;
+
+        static MaterialUsado de(Material material) {
+            return new MaterialUsado(material.getId(), material.getNomeMaterial(), material.getValor(), material.getReutilizavel());
+        }
+    }
+
+    public static ProcedimentoDetalheDTO de(Procedimento procedimento) {
+        return ProcedimentoDetalheDTO.builder()
+                .id(procedimento.getId())
+                .nomeProcedimento(procedimento.getNomeProcedimento())
+                .assistente(procedimento.getAssistente())
+                .duracao(procedimento.getDuracao())
+                .valorMaoObra(procedimento.getValorMaoObra())
+                .valorFinal(procedimento.getValorFinal())
+                .dataCriacao(procedimento.getDataCriacao())
+                .pacienteId(procedimento.getPaciente().getId())
+                .nomePaciente(procedimento.getPaciente().getNomePaciente())
+                .materiais(procedimento.getMateriais().stream().map(MaterialUsado::de).toList())
+                .build();
+    }
+}
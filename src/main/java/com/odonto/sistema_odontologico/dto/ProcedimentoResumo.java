@@ -0,0 +1,23 @@
+package com.odonto.sistema_odontologico.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Projeção enxuta de Procedimento para o histórico do paciente - só as colunas exibidas na tela,
+ * sem carregar paciente nem materiais
+ */
+public interface ProcedimentoResumo {
+
+    Long getId();
+
+    String getNomeProcedimento();
+
+    Boolean getAssistente();
+
+    Float getDuracao();
+
+    BigDecimal getValorFinal();
+
+    LocalDateTime getDataCriacao();
+}
@@ -0,0 +1,46 @@
+package com.odonto.sistema_odontologico.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonFilter(ProcedimentoResumoDTO.FILTRO_CAMPOS)
+/**
+ * Visão "resumo" de Procedimento para listagens - paciente reduzido a id e nome, sem materiais.
+ * A ordem dos campos é a do construtor usado na consulta de ProcedimentoRepository.listarResumos
+ */
+public class ProcedimentoResumoDTO {
+
+    // filtro Jackson que aplica o ?fields= (seleção de campos) nas visões de Procedimento
+    public static final String FILTRO_CAMPOS = "camposProcedimento";
+
+    private Long id;
+
+    private String nomeProcedimento;
+
+    private Boolean assistente;
+
+    private Float duracao;
+
+    private BigDecimal valorFinal;
+
+    private LocalDateTime dataCriacao;
+
+    private Long pacienteId;
+
+    private String nomePaciente;
+
+    public static ProcedimentoResumoDTO de(Procedimento procedimento) {
+        return new ProcedimentoResumoDTO(procedimento.getId(), procedimento.getNomeProcedimento(),
+                procedimento.getAssistente(), procedimento.getDuracao(), procedimento.getValorFinal(),
+                procedimento.getDataCriacao(), procedimento.getPaciente().getId(),
+                procedimento.getPaciente().getNomePaciente());
+    }
+}
@@ -0,0 +1,16 @@
+package com.odonto.sistema_odontologico.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Projeção do resumo de faturamento somado por dia (todos os pacientes)
+ */
+public interface ReceitaDia {
+
+    LocalDate getDia();
+
+    Long getProcedimentos();
+
+    BigDecimal getReceita();
+}
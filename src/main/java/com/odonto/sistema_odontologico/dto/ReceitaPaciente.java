@@ -0,0 +1,17 @@
+package com.odonto.sistema_odontologico.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Projeção do resumo de faturamento somado por paciente no período
+ */
+public interface ReceitaPaciente {
+
+    Long getPacienteId();
+
+    String getNomePaciente();
+
+    Long getProcedimentos();
+
+    BigDecimal getReceita();
+}
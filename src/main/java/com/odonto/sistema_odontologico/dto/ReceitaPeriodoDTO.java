@@ -0,0 +1,22 @@
+package com.odonto.sistema_odontologico.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+/**
+ * Faturamento de um período (dia ou mês, identificado pelo primeiro dia)
+ */
+public class ReceitaPeriodoDTO {
+
+    private LocalDate inicio;
+
+    private long procedimentos;
+
+    private BigDecimal receita;
+}
@@ -0,0 +1,29 @@
+package com.odonto.sistema_odontologico.dto;
+
+import java.util.List;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+/**
+ * Resumo de uma importação em massa - erros lista apenas os primeiros registros recusados (inválidos ou duplicados)
+ */
+public class ResultadoImportacaoDTO {
+
+    private long total;
+
+    private long importados;
+
+    private long duplicados;
+
+    private long falhas;
+
+    private long duracaoMs;
+
+    private double linhasPorSegundo;
+
+    private List<ErroImportacaoDTO> erros;
+}
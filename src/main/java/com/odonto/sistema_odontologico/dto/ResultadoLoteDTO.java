@@ -0,0 +1,23 @@
+package com.odonto.sistema_odontologico.dto;
+
+import java.util.List;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+/**
+ * Resumo do cadastro em lote de procedimentos, com o resultado de cada item
+ */
+public class ResultadoLoteDTO {
+
+    private int total;
+
+    private int cadastrados;
+
+    private int falhas;
+
+    private List<ItemLoteDTO> itens;
+}
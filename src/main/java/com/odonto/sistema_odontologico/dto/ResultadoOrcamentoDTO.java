@@ -0,0 +1,26 @@
+package com.odonto.sistema_odontologico.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+/**
+ * Orçamento de vários procedimentos (nada é gravado): valor de cada item e soma dos itens válidos
+ */
+public class ResultadoOrcamentoDTO {
+
+    private int total;
+
+    private int precificados;
+
+    private int falhas;
+
+    private BigDecimal valorTotal;
+
+    private List<ItemOrcamentoDTO> itens;
+}
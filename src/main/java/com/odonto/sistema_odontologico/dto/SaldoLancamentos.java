@@ -0,0 +1,17 @@
+package com.odonto.sistema_odontologico.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projeção da soma dos lançamentos de fidelidade de um paciente anteriores a uma data (compactação)
+ */
+public interface SaldoLancamentos {
+
+    Long getPacienteId();
+
+    Long getPontos();
+
+    Long getQuantidade();
+
+    LocalDateTime getUltimo();
+}
@@ -0,0 +1,47 @@
+package com.odonto.sistema_odontologico.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Resumo de unidades de material descartável consumidas por dia, mantido incrementalmente
+ * pelo RelatorioService a cada procedimento cadastrado ou excluído
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@IdClass(ConsumoMaterialDiario.Chave.class)
+@Table(name = "resumo_consumo_material_diario", indexes = {
+        @Index(name = "idx_resumo_consumo_material_dia", columnList = "material_id, dia")
+})
+public class ConsumoMaterialDiario {
+
+    @Id
+    @Column(nullable = false)
+    private LocalDate dia;
+
+    @Id
+    @Column(name = "material_id", nullable = false)
+    private Long materialId;
+
+    @Column(nullable = false)
+    private Long unidades;
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Chave implements Serializable {
+
+        private LocalDate dia;
+
+        private Long materialId;
+    }
+}
@@ -0,0 +1,47 @@
+package com.odonto.sistema_odontologico.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Efeito colateral pendente de uma escrita (outbox transacional): gravado na mesma transação da
+ * escrita e aplicado depois do commit pelo OutboxService. A linha é apagada na mesma transação
+ * em que o efeito é aplicado, então cada evento produz efeito no banco uma única vez.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "outbox_eventos", indexes = {
+        @Index(name = "idx_outbox_agregado", columnList = "tipo, agregado_id")
+})
+public class EventoOutbox {
+
+    public enum Tipo { PROCEDIMENTO_CADASTRADO }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_eventos_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private Tipo tipo;
+
+    // id do registro que originou o evento (o handler relê o estado atual do banco)
+    @Column(name = "agregado_id", nullable = false)
+    private Long agregadoId;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+
+    @Column(nullable = false)
+    private Integer tentativas;
+
+    @Column(name = "ultimo_erro", length = 500)
+    private String ultimoErro;
+}
@@ -0,0 +1,49 @@
+package com.odonto.sistema_odontologico.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lançamento do extrato de pontos de fidelidade (somente inclusão). A coluna fidelidade do paciente
+ * é o saldo, atualizado na mesma transação de cada lançamento: a soma dos lançamentos de um
+ * paciente é sempre igual ao seu saldo. Lançamentos antigos são compactados em um único lançamento
+ * de origem COMPACTACAO com a mesma soma.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "lancamentos_fidelidade", indexes = {
+        @Index(name = "idx_lancamento_paciente_data", columnList = "paciente_id, criado_em"),
+        @Index(name = "idx_lancamento_data", columnList = "criado_em") // compactação
+})
+public class LancamentoFidelidade {
+
+    public enum Origem { SALDO_INICIAL, PROCEDIMENTO, AJUSTE, COMPACTACAO }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lancamento_fidelidade_seq")
+    @SequenceGenerator(name = "lancamento_fidelidade_seq", sequenceName = "lancamentos_fidelidade_seq", allocationSize = 50) // permite inserts em lote (JDBC batch)
+    private Long id;
+
+    @Column(name = "paciente_id", nullable = false)
+    private Long pacienteId;
+
+    @Column(nullable = false)
+    private Integer pontos;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Origem origem;
+
+    // procedimento que gerou os pontos (origem PROCEDIMENTO)
+    @Column(name = "referencia_id")
+    private Long referenciaId;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+}
@@ -3,6 +3,9 @@ package com.odonto.sistema_odontologico.models;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 
 @Getter
@@ -11,12 +14,16 @@ import java.math.BigDecimal;
 @NoArgsConstructor
 @Builder
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // catálogo pequeno e muito lido: fica no cache de segundo nível
+@DynamicUpdate // UPDATE só das colunas alteradas: editar nome/valor não sobrescreve a quantidade
 @Table(name = "materiais")
 
 public class Material {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "material_seq")
+    @SequenceGenerator(name = "material_seq", sequenceName = "materiais_seq", allocationSize = 50) // permite inserts em lote (JDBC batch)
     private Long id;
 
     @NotBlank(message = "Nome do material é obrigatório")
@@ -28,6 +35,11 @@ public class Material {
     @Column(nullable = false)
     private Integer quantidade;
 
+    // ao chegar nesta quantidade o material precisa ser reposto e é emitido um alerta (null = sem alerta)
+    @Min(value = 0, message = "Ponto de reposição não pode ser negativo")
+    @Column(name = "ponto_reposicao")
+    private Integer pontoReposicao;
+
     @NotNull(message = "Valor é obrigatório")
     @DecimalMin(value = "0.0", inclusive = false, message = "Valor deve ser maior que zero")
     @Column(nullable = false, precision = 10, scale = 2)
@@ -55,11 +67,17 @@ public class Material {
 
     /**
      * Diminui a quantidade em estoque se o material NÃO for reutilizável
+     * Lança exceção se não houver estoque suficiente (antes a operação era ignorada silenciosamente)
+     * Só altera a entidade em memória: para gravar no banco use MaterialRepository.descontarEstoque
      */
     public void descontarEstoque(Integer quantidadeUsada) {
-        if (!reutilizavel && this.quantidade >= quantidadeUsada) {
-            this.quantidade -= quantidadeUsada;
+        if (reutilizavel) {
+            return;
+        }
+        if (this.quantidade < quantidadeUsada) {
+            throw new IllegalStateException("Estoque insuficiente de " + nomeMaterial + ". Disponível: " + quantidade);
         }
+        this.quantidade -= quantidadeUsada;
     }
 
     @Override
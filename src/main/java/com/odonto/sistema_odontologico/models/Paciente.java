@@ -1,8 +1,14 @@
 package com.odonto.sistema_odontologico.models;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.util.List;
 
 @Getter
 @Setter
@@ -10,12 +16,21 @@ import lombok.*;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "pacientes")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) // lido a cada procedimento: fica no cache de segundo nível
+@DynamicUpdate // UPDATE só das colunas alteradas: editar nome/idade não regrava a fidelidade
+@Table(name = "pacientes", indexes = {
+        @Index(name = "idx_paciente_faixa_desconto", columnList = "faixa_desconto")
+})
 
 public class Paciente {
 
+    // faixas possíveis de calcularFaixaDesconto
+    public static final List<Integer> FAIXAS_DESCONTO = List.of(0, 5, 10, 15, 20);
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "paciente_seq")
+    @SequenceGenerator(name = "paciente_seq", sequenceName = "pacientes_seq", allocationSize = 50) // permite inserts em lote (JDBC batch)
     private Long id;
 
     @NotBlank(message = "Nome do paciente é obrigatório")
@@ -33,25 +48,71 @@ public class Paciente {
     private Integer fidelidade = 0;
 
     /**
-     * Calcula desconto baseado em idade e fidelidade
-     * @return percentual de desconto (0.0 a 1.0)
+     * Percentual de desconto (0, 5, 10, 15 ou 20) derivado de idade e fidelidade, gravado para permitir
+     * consultar pacientes por faixa. Calculado no @PrePersist; depois disso só o banco o regrava, pelo
+     * CASE de PacienteRepository.recalcularFaixasDesconto sobre a linha já travada. A coluna fica fora do
+     * UPDATE da entidade para que uma instância com saldo antigo nunca grave uma faixa desatualizada.
      */
-    public double calcularDesconto() {
-        double desconto = 0.0;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "faixa_desconto", updatable = false)
+    private Integer faixaDesconto;
+
+    /**
+     * Regra do desconto: 10% para idosos, mais 5% (100 a 199 pontos) ou 10% (200 pontos ou mais)
+     * de fidelidade, limitado a 25%
+     * @return percentual inteiro de desconto
+     */
+    public static int calcularFaixaDesconto(int idade, int fidelidade) {
+        int desconto = 0;
 
         // Desconto por idade (idosos)
         if (idade >= 60) {
-            desconto += 0.10; // 10%
+            desconto += 10;
         }
 
         // Desconto por fidelidade
         if (fidelidade >= 100 && fidelidade < 200) {
-            desconto += 0.05; // 5%
+            desconto += 5;
         } else if (fidelidade >= 200) {
-            desconto += 0.10; // 10%
+            desconto += 10;
+        }
+
+        return Math.min(desconto, 25); // máximo 25% de desconto
+    }
+
+    @PrePersist
+    public void atualizarFaixaDesconto() {
+        if (idade != null && fidelidade != null) {
+            faixaDesconto = calcularFaixaDesconto(idade, fidelidade);
         }
+    }
+
+    /**
+     * Faixa gravada; linhas ainda sem faixa (inseridas fora da JPA) são calculadas na hora
+     * @return percentual inteiro de desconto (0 a 25)
+     */
+    public int percentualDesconto() {
+        return faixaDesconto != null ? faixaDesconto : calcularFaixaDesconto(idade, fidelidade);
+    }
 
-        return Math.min(desconto, 0.25); // máximo 25% de desconto
+    /**
+     * Desconto da faixa somado em double como no cálculo original (0.10 + 0.05 = 0.15000000000000002),
+     * para o PrecoDecimalEngine continuar dando os mesmos valores
+     * @return percentual de desconto (0.0 a 1.0)
+     */
+    public double calcularDesconto() {
+        int faixa = percentualDesconto();
+        double desconto = 0.0;
+        // faixa = 10 (idade ou fidelidade) + 5 ou 10 (fidelidade)
+        if (faixa >= 10) {
+            desconto += 0.10;
+        }
+        if (faixa % 10 == 5) {
+            desconto += 0.05;
+        } else if (faixa >= 20) {
+            desconto += 0.10;
+        }
+        return Math.min(desconto, 0.25);
     }
 
     @Override
@@ -61,6 +122,7 @@ public class Paciente {
                 ", nomePaciente='" + nomePaciente + '\'' +
                 ", idade=" + idade +
                 ", fidelidade=" + fidelidade +
+                ", faixaDesconto=" + faixaDesconto +
                 '}';
     }
 }
@@ -3,6 +3,7 @@ package com.odonto.sistema_odontologico.models;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -15,11 +16,15 @@ import java.util.List;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "procedimentos")
+@Table(name = "procedimentos", indexes = {
+        @Index(name = "idx_procedimento_paciente_data", columnList = "paciente_id, data_criacao"),
+        @Index(name = "idx_procedimento_data", columnList = "data_criacao") // exportação por período
+})
 public class Procedimento {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "procedimento_seq")
+    @SequenceGenerator(name = "procedimento_seq", sequenceName = "procedimentos_seq", allocationSize = 50) // permite inserts em lote (JDBC batch)
     private Long id;
 
     @NotBlank(message = "Nome do procedimento é obrigatório")
@@ -41,6 +46,7 @@ public class Procedimento {
     private Paciente paciente;
 
     @ManyToMany //relacionamento com materiais: m:m
+    @BatchSize(size = 50) // carrega os materiais de vários procedimentos em uma única consulta
     @JoinTable(
             name = "procedimento_materiais",
             joinColumns = @JoinColumn(name = "procedimento_id"),
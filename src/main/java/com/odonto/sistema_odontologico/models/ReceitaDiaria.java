@@ -0,0 +1,51 @@
+package com.odonto.sistema_odontologico.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Resumo de faturamento por dia e paciente, mantido incrementalmente pelo RelatorioService
+ * a cada procedimento cadastrado ou excluído (os relatórios não leem a tabela de procedimentos)
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@IdClass(ReceitaDiaria.Chave.class)
+@Table(name = "resumo_receita_diaria", indexes = {
+        @Index(name = "idx_resumo_receita_paciente_dia", columnList = "paciente_id, dia")
+})
+public class ReceitaDiaria {
+
+    @Id
+    @Column(nullable = false)
+    private LocalDate dia;
+
+    @Id
+    @Column(name = "paciente_id", nullable = false)
+    private Long pacienteId;
+
+    @Column(name = "quantidade_procedimentos", nullable = false)
+    private Long quantidadeProcedimentos;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal receita;
+
+    @Getter
+    @Setter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Chave implements Serializable {
+
+        private LocalDate dia;
+
+        private Long pacienteId;
+    }
+}
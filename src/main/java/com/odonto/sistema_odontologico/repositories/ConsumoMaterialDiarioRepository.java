@@ -0,0 +1,29 @@
+package com.odonto.sistema_odontologico.repositories;
+
+import com.odonto.sistema_odontologico.dto.ConsumoDia;
+import com.odonto.sistema_odontologico.dto.ConsumoMaterial;
+import com.odonto.sistema_odontologico.models.ConsumoMaterialDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ConsumoMaterialDiarioRepository extends JpaRepository<ConsumoMaterialDiario, ConsumoMaterialDiario.Chave> {
+
+    // Unidades consumidas por material no período, da mais consumida para a menos
+    @Query("SELECT c.materialId AS materialId, m.nomeMaterial AS nomeMaterial, SUM(c.unidades) AS unidades " +
+            "FROM ConsumoMaterialDiario c LEFT JOIN Material m ON m.id = c.materialId " +
+            "WHERE c.dia BETWEEN :de AND :ate GROUP BY c.materialId, m.nomeMaterial " +
+            "ORDER BY SUM(c.unidades) DESC, c.materialId")
+    List<ConsumoMaterial> somarPorMaterial(@Param("de") LocalDate de, @Param("ate") LocalDate ate);
+
+    // Consumo diário de um material no período
+    @Query("SELECT c.dia AS dia, c.unidades AS unidades FROM ConsumoMaterialDiario c " +
+            "WHERE c.materialId = :materialId AND c.dia BETWEEN :de AND :ate ORDER BY c.dia")
+    List<ConsumoDia> listarPorDia(@Param("materialId") Long materialId,
+                                       @Param("de") LocalDate de, @Param("ate") LocalDate ate);
+}
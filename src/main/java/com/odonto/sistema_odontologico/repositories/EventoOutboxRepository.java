@@ -0,0 +1,33 @@
+package com.odonto.sistema_odontologico.repositories;
+
+import com.odonto.sistema_odontologico.models.EventoOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long> {
+
+    @Query("SELECT e FROM EventoOutbox e WHERE e.tentativas < :maximoTentativas ORDER BY e.id")
+    List<EventoOutbox> listarPendentes(@Param("maximoTentativas") int maximoTentativas, Pageable pageable);
+
+    /**
+     * Reivindica o evento: só um processador recebe 1 (o DELETE trava a linha até o fim da transação)
+     */
+    @Modifying
+    @Query("DELETE FROM EventoOutbox e WHERE e.id = :id")
+    int reivindicar(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM EventoOutbox e WHERE e.tipo = :tipo AND e.agregadoId = :agregadoId")
+    int descartar(@Param("tipo") EventoOutbox.Tipo tipo, @Param("agregadoId") Long agregadoId);
+
+    @Modifying
+    @Query("UPDATE EventoOutbox e SET e.tentativas = e.tentativas + 1, e.ultimoErro = :erro WHERE e.id = :id")
+    int registrarFalha(@Param("id") Long id, @Param("erro") String erro);
+}
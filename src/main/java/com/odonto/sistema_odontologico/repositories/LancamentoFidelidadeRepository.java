@@ -0,0 +1,37 @@
+package com.odonto.sistema_odontologico.repositories;
+
+import com.odonto.sistema_odontologico.dto.SaldoLancamentos;
+import com.odonto.sistema_odontologico.models.LancamentoFidelidade;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface LancamentoFidelidadeRepository extends JpaRepository<LancamentoFidelidade, Long> {
+
+    // Extrato do paciente, mais recentes primeiro
+    List<LancamentoFidelidade> findByPacienteIdOrderByCriadoEmDescIdDesc(Long pacienteId, Pageable pageable);
+
+    @Query("SELECT COALESCE(SUM(l.pontos), 0) FROM LancamentoFidelidade l WHERE l.pacienteId = :pacienteId")
+    long somarPontos(@Param("pacienteId") Long pacienteId);
+
+    // Pacientes com mais de um lançamento antes do limite (os que a compactação reduz)
+    @Query("SELECT l.pacienteId AS pacienteId, SUM(l.pontos) AS pontos, COUNT(l) AS quantidade, MAX(l.criadoEm) AS ultimo " +
+            "FROM LancamentoFidelidade l WHERE l.criadoEm < :limite " +
+            "GROUP BY l.pacienteId HAVING COUNT(l) > 1")
+    List<SaldoLancamentos> listarCompactaveis(@Param("limite") LocalDateTime limite, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM LancamentoFidelidade l WHERE l.pacienteId = :pacienteId AND l.criadoEm < :limite")
+    int removerAnteriores(@Param("pacienteId") Long pacienteId, @Param("limite") LocalDateTime limite);
+
+    @Modifying
+    @Query("DELETE FROM LancamentoFidelidade l WHERE l.pacienteId = :pacienteId")
+    int removerDoPaciente(@Param("pacienteId") Long pacienteId);
+}
@@ -1,10 +1,20 @@
 package com.odonto.sistema_odontologico.repositories;
 
+import com.odonto.sistema_odontologico.dto.NomeIndexado;
+import com.odonto.sistema_odontologico.dto.PontoReposicao;
 import com.odonto.sistema_odontologico.models.Material;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface MaterialRepository extends JpaRepository<Material, Long> {
@@ -12,7 +22,14 @@ public interface MaterialRepository extends JpaRepository<Material, Long> {
     // Buscar materiais por nome
     List<Material> findByNomeMaterialContainingIgnoreCase(String nome);
 
+    // Catálogo completo (seletor de materiais): resultado guardado no cache de consultas,
+    // invalidado automaticamente quando materiais são cadastrados, editados ou excluídos
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Material> findAll();
+
     // Buscar materiais reutilizáveis
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Material> findByReutilizavel(Boolean reutilizavel);
 
     // Buscar materiais com estoque baixo
@@ -20,4 +37,49 @@ public interface MaterialRepository extends JpaRepository<Material, Long> {
 
     // Buscar materiais com estoque disponível
     List<Material> findByQuantidadeGreaterThan(Integer quantidade);
-}
\ No newline at end of file
+
+    // Espaço de consulta declarado pelos UPDATEs de estoque. Um UPDATE em lote (JPQL ou SQL sem espaço)
+    // faz o Hibernate esvaziar toda a região de Material e invalidar as consultas em cache da tabela;
+    // com um espaço que nenhuma entidade usa, nada é invalidado e quem chama remove do cache só o
+    // material alterado. O catálogo em cache (findAll, findByReutilizavel) guarda apenas os ids, que não
+    // mudam com a quantidade.
+    String ESPACO_ESTOQUE = "materiais_estoque";
+
+    // Desconta do estoque em um único UPDATE condicional (sem ler-modificar-gravar):
+    // retorna 0 se o material não existe ou não há quantidade suficiente
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ESPACO_ESTOQUE))
+    @Query(value = "UPDATE materiais SET quantidade = quantidade - :quantidade " +
+            "WHERE id = :id AND quantidade >= :quantidade", nativeQuery = true)
+    int descontarEstoque(@Param("id") Long id, @Param("quantidade") Integer quantidade);
+
+    // Soma ao estoque em um único UPDATE: retorna 0 se o material não existe
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ESPACO_ESTOQUE))
+    @Query(value = "UPDATE materiais SET quantidade = quantidade + :quantidade WHERE id = :id", nativeQuery = true)
+    int adicionarEstoque(@Param("id") Long id, @Param("quantidade") Integer quantidade);
+
+    // Saldo atual lido do banco (não do cache), usado após os UPDATEs acima para detectar o ponto de reposição
+    @Query("SELECT m.quantidade FROM Material m WHERE m.id = :id")
+    Integer buscarQuantidade(@Param("id") Long id);
+
+    // Materiais com ponto de reposição definido, monitorados pelos alertas de estoque
+    @Query("SELECT m.id AS id, m.nomeMaterial AS nomeMaterial, m.pontoReposicao AS pontoReposicao " +
+            "FROM Material m WHERE m.pontoReposicao IS NOT NULL")
+    List<PontoReposicao> listarPontosReposicao();
+
+    // Paginação por cursor (keyset) ordenada por id
+    List<Material> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Somente id e nome, para montar o índice de busca por nome
+    @Query("SELECT m.id AS id, m.nomeMaterial AS nome FROM Material m")
+    List<NomeIndexado> listarNomes();
+
+    // Leitura em stream (cursor do banco) para exportação sem carregar a tabela inteira
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT m FROM Material m ORDER BY m.id")
+    Stream<Material> streamTodos();
+}
@@ -1,10 +1,20 @@
 package com.odonto.sistema_odontologico.repositories;
 
+import com.odonto.sistema_odontologico.dto.NomeIndexado;
 import com.odonto.sistema_odontologico.models.Paciente;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface PacienteRepository extends JpaRepository<Paciente, Long> {
@@ -17,4 +27,52 @@ public interface PacienteRepository extends JpaRepository<Paciente, Long> {
 
     // Buscar pacientes com fidelidade maior que x valor
     List<Paciente> findByFidelidadeGreaterThanEqual(Integer fidelidade);
-}
\ No newline at end of file
+
+    // Espaço de consulta declarado pelos UPDATEs de saldo e faixa: com ele o Hibernate não esvazia a região
+    // inteira de Paciente a cada crédito; quem chama remove do cache só os pacientes alterados
+    String ESPACO_FIDELIDADE = "pacientes_fidelidade";
+
+    // Regra de Paciente.calcularFaixaDesconto em SQL, aplicada sobre os valores atuais da linha;
+    // FaixaDescontoTest confere as duas em toda a grade de idade × fidelidade
+    String FAIXA_DESCONTO = "(CASE WHEN idade >= 60 THEN 10 ELSE 0 END) + " +
+            "(CASE WHEN fidelidade >= 200 THEN 10 WHEN fidelidade >= 100 THEN 5 ELSE 0 END)";
+
+    // Soma pontos de fidelidade em um único UPDATE (sem ler-modificar-gravar):
+    // retorna 0 se o paciente não existe ou se o saldo ficaria negativo
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ESPACO_FIDELIDADE))
+    @Query(value = "UPDATE pacientes SET fidelidade = fidelidade + :pontos " +
+            "WHERE id = :id AND fidelidade + :pontos >= 0", nativeQuery = true)
+    int adicionarFidelidade(@Param("id") Long id, @Param("pontos") Integer pontos);
+
+    // Recalcula a faixa de desconto no próprio UPDATE: a linha travada já tem o saldo e a idade
+    // confirmados por outras transações, então a faixa nunca sai de um saldo lido antes
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = ESPACO_FIDELIDADE))
+    @Query(value = "UPDATE pacientes SET faixa_desconto = " + FAIXA_DESCONTO + " WHERE id IN :ids", nativeQuery = true)
+    int recalcularFaixasDesconto(@Param("ids") Collection<Long> ids);
+
+    // Preenche a faixa de linhas gravadas antes de a coluna existir (na inicialização, com o cache vazio)
+    @Modifying
+    @Query(value = "UPDATE pacientes SET faixa_desconto = " + FAIXA_DESCONTO + " WHERE faixa_desconto IS NULL",
+            nativeQuery = true)
+    int preencherFaixasDesconto();
+
+    // Pacientes de uma faixa de desconto (índice em faixa_desconto)
+    List<Paciente> findByFaixaDescontoOrderByIdAsc(Integer faixaDesconto);
+
+    // Paginação por cursor (keyset) ordenada por id
+    List<Paciente> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Somente id e nome, para montar o índice de busca por nome
+    @Query("SELECT p.id AS id, p.nomePaciente AS nome FROM Paciente p")
+    List<NomeIndexado> listarNomes();
+
+    // Leitura em stream (cursor do banco) para exportação sem carregar a tabela inteira
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Paciente p ORDER BY p.id")
+    Stream<Paciente> streamTodos();
+}
@@ -1,24 +1,93 @@
 package com.odonto.sistema_odontologico.repositories;
 
+import com.odonto.sistema_odontologico.dto.NomeIndexado;
+import com.odonto.sistema_odontologico.dto.ProcedimentoResumo;
+import com.odonto.sistema_odontologico.dto.ProcedimentoResumoDTO;
 import com.odonto.sistema_odontologico.models.Procedimento;
 import com.odonto.sistema_odontologico.models.Paciente;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProcedimentoRepository extends JpaRepository<Procedimento, Long> {
 
+    // As consultas abaixo trazem paciente e materiais no mesmo SELECT (fetch join),
+    // evitando uma consulta extra por procedimento durante a serialização
+
+    @Override
+    @EntityGraph(attributePaths = {"paciente", "materiais"})
+    List<Procedimento> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = {"paciente", "materiais"})
+    Optional<Procedimento> findById(Long id);
+
+    // Vários procedimentos por id em uma única consulta (detalhamento em lote)
+    @EntityGraph(attributePaths = {"paciente", "materiais"})
+    List<Procedimento> findByIdIn(Collection<Long> ids);
+
     // Buscar procedimentos por nome
+    @EntityGraph(attributePaths = {"paciente", "materiais"})
     List<Procedimento> findByNomeProcedimentoContainingIgnoreCase(String nome);
 
     // Buscar procedimentos de um paciente específico
     List<Procedimento> findByPaciente(Paciente paciente);
 
     // Buscar procedimentos de um paciente por ID
+    @EntityGraph(attributePaths = {"paciente", "materiais"})
     List<Procedimento> findByPacienteId(Long pacienteId);
 
     // Buscar procedimentos que usaram assistente
+    @EntityGraph(attributePaths = {"paciente", "materiais"})
     List<Procedimento> findByAssistente(Boolean assistente);
-}
\ No newline at end of file
+
+    // Histórico resumido de um paciente em um período (usa o índice paciente_id, data_criacao)
+    Page<ProcedimentoResumo> findByPacienteIdAndDataCriacaoBetween(Long pacienteId,
+                                                                   LocalDateTime inicio,
+                                                                   LocalDateTime fim,
+                                                                   Pageable pageable);
+
+    // Com Pageable, fetch join da coleção faria o limite ser aplicado em memória. A paginação por cursor
+    // carrega os materiais em lote via @BatchSize; a listagem em NDJSON busca primeiro os ids da página
+    // (listarIdsApos) e depois as entidades por findByIdIn, que traz paciente e materiais no mesmo SELECT
+
+    // Paginação por cursor (keyset) ordenada por id
+    List<Procedimento> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Primeira página da paginação por cursor ordenada por data de criação
+    List<Procedimento> findByDataCriacaoIsNotNullOrderByDataCriacaoAscIdAsc(Pageable pageable);
+
+    // Páginas seguintes: (dataCriacao, id) maiores que o cursor
+    @Query("SELECT p FROM Procedimento p " +
+            "WHERE p.dataCriacao > :dataCriacao " +
+            "OR (p.dataCriacao = :dataCriacao AND p.id > :id) " +
+            "ORDER BY p.dataCriacao ASC, p.id ASC")
+    List<Procedimento> buscarAposDataCriacao(@Param("dataCriacao") LocalDateTime dataCriacao,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+
+    // Somente id e nome, para montar o índice de busca por nome
+    @Query("SELECT p.id AS id, p.nomeProcedimento AS nome FROM Procedimento p")
+    List<NomeIndexado> listarNomes();
+
+    // visão "resumo" da listagem: só as colunas exibidas, sem materiais e sem entidades no contexto de persistência
+    @Query("SELECT new com.odonto.sistema_odontologico.dto.ProcedimentoResumoDTO(p.id, p.nomeProcedimento, " +
+            "p.assistente, p.duracao, p.valorFinal, p.dataCriacao, pa.id, pa.nomePaciente) " +
+            "FROM Procedimento p JOIN p.paciente pa ORDER BY p.id")
+    List<ProcedimentoResumoDTO> listarResumos();
+
+    // Ids da página seguinte (keyset) da listagem completa em NDJSON; cada página é carregada depois
+    // por findByIdIn, com paciente e materiais no mesmo SELECT
+    @Query("SELECT p.id FROM Procedimento p WHERE p.id > :id ORDER BY p.id")
+    List<Long> listarIdsApos(@Param("id") Long id, Pageable pageable);
+}
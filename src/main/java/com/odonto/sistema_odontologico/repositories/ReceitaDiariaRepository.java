@@ -0,0 +1,30 @@
+package com.odonto.sistema_odontologico.repositories;
+
+import com.odonto.sistema_odontologico.dto.ReceitaDia;
+import com.odonto.sistema_odontologico.dto.ReceitaPaciente;
+import com.odonto.sistema_odontologico.models.ReceitaDiaria;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ReceitaDiariaRepository extends JpaRepository<ReceitaDiaria, ReceitaDiaria.Chave> {
+
+    // Faturamento por dia no período (uma linha por dia com movimento)
+    @Query("SELECT r.dia AS dia, SUM(r.quantidadeProcedimentos) AS procedimentos, SUM(r.receita) AS receita " +
+            "FROM ReceitaDiaria r WHERE r.dia BETWEEN :de AND :ate GROUP BY r.dia ORDER BY r.dia")
+    List<ReceitaDia> somarPorDia(@Param("de") LocalDate de, @Param("ate") LocalDate ate);
+
+    // Pacientes que mais faturaram no período
+    @Query("SELECT r.pacienteId AS pacienteId, p.nomePaciente AS nomePaciente, " +
+            "SUM(r.quantidadeProcedimentos) AS procedimentos, SUM(r.receita) AS receita " +
+            "FROM ReceitaDiaria r LEFT JOIN Paciente p ON p.id = r.pacienteId " +
+            "WHERE r.dia BETWEEN :de AND :ate GROUP BY r.pacienteId, p.nomePaciente " +
+            "ORDER BY SUM(r.receita) DESC, r.pacienteId")
+    List<ReceitaPaciente> somarPorPaciente(@Param("de") LocalDate de, @Param("ate") LocalDate ate, Pageable pageable);
+}
@@ -0,0 +1,46 @@
+package com.odonto.sistema_odontologico.services;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Agenda ações em memória para depois do fim da transação atual, para que estruturas em memória
+ * (estoque, índices) só reflitam o que foi de fato gravado no banco
+ */
+final class AcoesTransacao {
+
+    private AcoesTransacao() {
+    }
+
+    /**
+     * Executa a ação após o commit; sem transação ativa, executa imediatamente
+     */
+    static void aposConfirmar(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+
+    /**
+     * Executa a ação se a transação atual for desfeita; sem transação ativa, não faz nada
+     */
+    static void aoDesfazer(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        acao.run();
+                    }
+                }
+            });
+        }
+    }
+}
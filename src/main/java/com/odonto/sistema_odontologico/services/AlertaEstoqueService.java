@@ -0,0 +1,313 @@
+package com.odonto.sistema_odontologico.services;
+
+import com.odonto.sistema_odontologico.config.MetricasConfig;
+import com.odonto.sistema_odontologico.dto.AlertaEstoqueDTO;
+import com.odonto.sistema_odontologico.dto.PontoReposicao;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Alertas de estoque por ponto de reposição, enviados por Server-Sent Events.
+ * Os motores de estoque informam cada variação de quantidade; quando ela cruza o ponto de reposição
+ * do material (chega nele ou volta a ficar acima) um alerta é publicado após o commit.
+ * As conexões SSE são assíncronas e cada assinante tem sua própria fila limitada de eventos,
+ * esvaziada em lotes por um pool fixo e pequeno de threads de envio (odonto.estoque.alertas.threads-envio),
+ * compartilhado por todos: o número de threads não cresce com o de assinantes. Quem deixa a fila
+ * encher é desconectado (o EventSource reconecta) em vez de perder alertas em silêncio, e uma escrita
+ * parada além de odonto.estoque.alertas.prazo-escrita-ms (cliente que não lê ou meio desconectado)
+ * desconecta o assinante e interrompe a thread presa nela. Se a escrita do servidor não atender à
+ * interrupção, a thread só volta ao pool quando o conector desistir da escrita.
+ */
+@Service
+@Timed(value = MetricasConfig.METRICA_SERVICOS, histogram = true)
+public class AlertaEstoqueService {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertaEstoqueService.class);
+
+    // eventos aguardando envio para um assinante; com a fila cheia o assinante é desconectado
+    private static final int TAMANHO_FILA_ASSINANTE = 100;
+
+    // eventos escritos de uma vez para um assinante antes de a thread passar a vez aos demais
+    private static final int LOTE_ENVIO = 16;
+
+    private record Limite(String nomeMaterial, int ponto) {
+    }
+
+    /**
+     * Conexão SSE com a fila dos eventos ainda não escritos; no máximo uma thread escreve por vez
+     */
+    private static final class Assinante {
+
+        private final SseEmitter emitter;
+
+        private final BlockingQueue<SseEmitter.SseEventBuilder> fila = new ArrayBlockingQueue<>(TAMANHO_FILA_ASSINANTE);
+
+        // há uma tarefa de envio agendada ou em andamento para este assinante
+        private final AtomicBoolean agendado = new AtomicBoolean();
+
+        private volatile boolean encerrado;
+
+        // thread escrevendo neste assinante agora e desde quando (System.nanoTime); guardados pelo monitor
+        private Thread escritor;
+        private long escrevendoDesde;
+
+        private Assinante(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+    }
+
+    // só materiais com ponto de reposição: os demais não geram consulta nem alerta
+    private final Map<Long, Limite> limites = new ConcurrentHashMap<>();
+
+    private final Set<Assinante> assinantes = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong sequencia = new AtomicLong();
+
+    private final AtomicInteger threads = new AtomicInteger();
+
+    // no máximo uma tarefa por assinante na fila do pool (ver Assinante.agendado)
+    private ExecutorService envio;
+
+    @Value("${odonto.estoque.alertas.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${odonto.estoque.alertas.threads-envio:4}")
+    private int threadsEnvio;
+
+    @Value("${odonto.estoque.alertas.prazo-escrita-ms:5000}")
+    private long prazoEscritaMs;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @PostConstruct
+    public void carregar() {
+        envio = Executors.newFixedThreadPool(threadsEnvio, tarefa -> {
+            Thread thread = new Thread(tarefa, "alertas-estoque-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (PontoReposicao ponto : materialRepository.listarPontosReposicao()) {
+            limites.put(ponto.getId(), new Limite(ponto.getNomeMaterial(), ponto.getPontoReposicao()));
+        }
+        log.info("Alertas de estoque monitorando {} materiais", limites.size());
+    }
+
+    /**
+     * Atualiza o ponto de reposição monitorado após o commit do cadastro ou da alteração do material
+     */
+    public void definirLimite(Material material) {
+        Long id = material.getId();
+        String nome = material.getNomeMaterial();
+        Integer ponto = material.getPontoReposicao();
+        AcoesTransacao.aposConfirmar(() -> {
+            if (ponto == null) {
+                limites.remove(id);
+            } else {
+                limites.put(id, new Limite(nome, ponto));
+            }
+        });
+    }
+
+    public void removerLimite(Long materialId) {
+        AcoesTransacao.aposConfirmar(() -> limites.remove(materialId));
+    }
+
+    /**
+     * Indica se o material tem ponto de reposição; sem ele o motor não precisa ler o saldo após o UPDATE
+     */
+    public boolean monitorado(Long materialId) {
+        return limites.containsKey(materialId);
+    }
+
+    /**
+     * Chamado pelos motores de estoque a cada variação de quantidade
+     */
+    public void quantidadeAlterada(Long materialId, int antes, int depois) {
+        Limite limite = limites.get(materialId);
+        if (limite == null) {
+            return;
+        }
+        boolean estavaAbaixo = antes <= limite.ponto();
+        boolean ficouAbaixo = depois <= limite.ponto();
+        if (estavaAbaixo == ficouAbaixo) {
+            return;
+        }
+        AlertaEstoqueDTO alerta = AlertaEstoqueDTO.builder()
+                .tipo(ficouAbaixo ? AlertaEstoqueDTO.Tipo.ESTOQUE_BAIXO : AlertaEstoqueDTO.Tipo.ESTOQUE_REPOSTO)
+                .materialId(materialId)
+                .nomeMaterial(limite.nomeMaterial())
+                .quantidade(depois)
+                .pontoReposicao(limite.ponto())
+                .momento(LocalDateTime.now())
+                .build();
+        AcoesTransacao.aposConfirmar(() -> publicar(alerta));
+    }
+
+    /**
+     * Nova assinatura do stream; o EventSource do navegador reconecta sozinho quando o tempo expira
+     */
+    public SseEmitter assinar() {
+        return assinar(new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter assinar(SseEmitter emitter) {
+        Assinante assinante = new Assinante(emitter);
+        emitter.onCompletion(() -> assinantes.remove(assinante));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(erro -> assinantes.remove(assinante));
+        assinantes.add(assinante);
+        // libera os cabeçalhos da resposta para o cliente saber que está conectado
+        entregar(assinante, SseEmitter.event().comment("conectado"));
+        return emitter;
+    }
+
+    public int totalAssinantes() {
+        return assinantes.size();
+    }
+
+    /**
+     * Comentário periódico: mantém a conexão aberta em proxies e descobre assinantes desconectados
+     */
+    @Scheduled(fixedDelayString = "${odonto.estoque.alertas.intervalo-heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Assinante assinante : assinantes) {
+            entregar(assinante, SseEmitter.event().comment("ping"));
+        }
+    }
+
+    /**
+     * Desconecta os assinantes com uma escrita parada há mais que o prazo e interrompe a thread presa
+     * nela, devolvendo-a aos demais assinantes
+     */
+    @Scheduled(fixedDelayString = "${odonto.estoque.alertas.intervalo-verificacao-ms:1000}")
+    public void verificarEscritas() {
+        long limite = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(prazoEscritaMs);
+        for (Assinante assinante : assinantes) {
+            synchronized (assinante) {
+                if (assinante.escritor != null && assinante.escrevendoDesde - limite < 0) {
+                    log.warn("Escrita para assinante de alertas de estoque parada há mais de {} ms; desconectando", prazoEscritaMs);
+                    desconectar(assinante);
+                    assinante.escritor.interrupt();
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        envio.shutdownNow();
+        assinantes.forEach(assinante -> assinante.emitter.complete());
+        assinantes.clear();
+    }
+
+    void publicar(AlertaEstoqueDTO alerta) {
+        long id = sequencia.incrementAndGet();
+        String evento = alerta.getTipo() == AlertaEstoqueDTO.Tipo.ESTOQUE_BAIXO ? "estoque-baixo" : "estoque-reposto";
+        for (Assinante assinante : assinantes) {
+            // o builder acumula o texto do evento: cada assinante precisa do seu
+            entregar(assinante, SseEmitter.event()
+                    .id(Long.toString(id))
+                    .name(evento)
+                    .data(alerta, MediaType.APPLICATION_JSON));
+        }
+    }
+
+    private void entregar(Assinante assinante, SseEmitter.SseEventBuilder evento) {
+        if (assinante.encerrado) {
+            return;
+        }
+        if (!assinante.fila.offer(evento)) {
+            // não acompanha os alertas (lento ou meio desconectado): a escrita presa em andamento
+            // segura o emitter, então quem o encerra é a thread de envio quando ela terminar
+            log.warn("Assinante de alertas de estoque com {} eventos pendentes será desconectado", TAMANHO_FILA_ASSINANTE);
+            desconectar(assinante);
+        }
+        agendar(assinante);
+    }
+
+    private void desconectar(Assinante assinante) {
+        assinante.encerrado = true;
+        assinantes.remove(assinante);
+        assinante.fila.clear();
+    }
+
+    private void agendar(Assinante assinante) {
+        if (assinante.agendado.compareAndSet(false, true)) {
+            try {
+                envio.execute(() -> esvaziar(assinante));
+            } catch (RejectedExecutionException e) {
+                // aplicação encerrando
+                assinante.agendado.set(false);
+            }
+        }
+    }
+
+    private void esvaziar(Assinante assinante) {
+        SseEmitter.SseEventBuilder evento;
+        int enviados = 0;
+        while (!assinante.encerrado && enviados < LOTE_ENVIO && (evento = assinante.fila.poll()) != null) {
+            try {
+                escrever(assinante, evento);
+                enviados++;
+            } catch (IOException | IllegalStateException e) {
+                // cliente desconectado (ou escrita interrompida pelo prazo): o erro encerra a conexão
+                desconectar(assinante);
+                assinante.emitter.completeWithError(e);
+                return;
+            }
+        }
+        if (assinante.encerrado) {
+            assinante.emitter.complete();
+            return;
+        }
+        assinante.agendado.set(false);
+        // lote cheio (o resto vai para o fim da fila do pool, depois dos outros assinantes) ou
+        // evento enfileirado depois do último poll, quando a tarefa ainda constava como agendada
+        if (!assinante.fila.isEmpty()) {
+            agendar(assinante);
+        }
+    }
+
+    private void escrever(Assinante assinante, SseEmitter.SseEventBuilder evento) throws IOException {
+        synchronized (assinante) {
+            assinante.escritor = Thread.currentThread();
+            assinante.escrevendoDesde = System.nanoTime();
+        }
+        try {
+            assinante.emitter.send(evento);
+        } finally {
+            synchronized (assinante) {
+                assinante.escritor = null;
+            }
+            // interrupção do prazo que chegou quando a escrita já terminava: não vale para o próximo assinante
+            Thread.interrupted();
+        }
+    }
+}
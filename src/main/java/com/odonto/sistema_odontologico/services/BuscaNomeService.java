@@ -0,0 +1,112 @@
+package com.odonto.sistema_odontologico.services;
+
+import com.odonto.sistema_odontologico.config.MetricasConfig;
+import com.odonto.sistema_odontologico.dto.NomeIndexado;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+import com.odonto.sistema_odontologico.repositories.ProcedimentoRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Busca por nome de pacientes, materiais e procedimentos usando índices de trigramas em memória,
+ * evitando o LIKE '%termo%' (varredura da tabela inteira) a cada tecla digitada.
+ * Os índices são montados em segundo plano quando a aplicação sobe; até lá as buscas vão ao banco.
+ * Os services avisam inclusões, alterações e exclusões, aplicadas no índice após o commit.
+ */
+@Service
+@Timed(value = MetricasConfig.METRICA_SERVICOS, histogram = true)
+public class BuscaNomeService {
+
+    private static final Logger log = LoggerFactory.getLogger(BuscaNomeService.class);
+
+    public static final int LIMITE_PADRAO = 50;
+
+    public enum Tipo { PACIENTE, MATERIAL, PROCEDIMENTO }
+
+    private final Map<Tipo, IndiceTrigramas> indices = new EnumMap<>(Tipo.class);
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private ProcedimentoRepository procedimentoRepository;
+
+    public BuscaNomeService() {
+        for (Tipo tipo : Tipo.values()) {
+            indices.put(tipo, new IndiceTrigramas());
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregarIndices() {
+        carregar(Tipo.PACIENTE, pacienteRepository::listarNomes);
+        carregar(Tipo.MATERIAL, materialRepository::listarNomes);
+        carregar(Tipo.PROCEDIMENTO, procedimentoRepository::listarNomes);
+    }
+
+    /**
+     * Ids mais relevantes para o termo, ou vazio se o índice ainda não foi carregado
+     */
+    public Optional<List<Long>> buscar(Tipo tipo, String termo, int limite) {
+        IndiceTrigramas indice = indices.get(tipo);
+        if (!indice.isPronto()) {
+            return Optional.empty();
+        }
+        return Optional.of(indice.buscar(termo, limite));
+    }
+
+    public void indexar(Tipo tipo, Long id, String nome) {
+        AcoesTransacao.aposConfirmar(() -> indices.get(tipo).indexar(id, nome));
+    }
+
+    public void remover(Tipo tipo, Long id) {
+        AcoesTransacao.aposConfirmar(() -> indices.get(tipo).remover(id));
+    }
+
+    /**
+     * Reordena as entidades carregadas do banco (findAllById não garante ordem) pela ordem de relevância
+     */
+    public static <T> List<T> ordenarPorIds(List<T> entidades, List<Long> ids, Function<T, Long> idDe) {
+        Map<Long, Integer> posicoes = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            posicoes.put(ids.get(i), i);
+        }
+        entidades.sort(Comparator.comparing((T entidade) -> posicoes.get(idDe.apply(entidade))));
+        return entidades;
+    }
+
+    private void carregar(Tipo tipo, Supplier<List<NomeIndexado>> consulta) {
+        IndiceTrigramas indice = indices.get(tipo);
+        try {
+            long inicio = System.currentTimeMillis();
+            for (NomeIndexado item : consulta.get()) {
+                indice.carregar(item.getId(), item.getNome());
+            }
+            indice.marcarPronto();
+            log.info("Índice de busca de {} carregado: {} nomes em {} ms",
+                    tipo, indice.tamanho(), System.currentTimeMillis() - inicio);
+        } catch (RuntimeException e) {
+            log.warn("Falha ao carregar índice de busca de {}; buscas continuam no banco", tipo, e);
+        }
+    }
+}
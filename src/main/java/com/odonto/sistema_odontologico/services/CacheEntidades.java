@@ -0,0 +1,32 @@
+package com.odonto.sistema_odontologico.services;
+
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Remove do cache de segundo nível só as entidades alteradas por UPDATEs em SQL, que não passam
+ * pelo contexto de persistência (ver os espaços de consulta em MaterialRepository e PacienteRepository)
+ */
+final class CacheEntidades {
+
+    private CacheEntidades() {
+    }
+
+    static void remover(EntityManager entityManager, Class<?> entidade, Long id) {
+        remover(entityManager, entidade, List.of(id));
+    }
+
+    /**
+     * Remove agora e de novo após o commit: entre os dois, uma leitura concorrente ainda vê a linha
+     * confirmada anterior e pode recolocá-la no cache
+     */
+    static void remover(EntityManager entityManager, Class<?> entidade, Collection<Long> ids) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        List<Long> copia = List.copyOf(ids);
+        copia.forEach(id -> cache.evict(entidade, id));
+        AcoesTransacao.aposConfirmar(() -> copia.forEach(id -> cache.evict(entidade, id)));
+    }
+}
@@ -3,9 +3,16 @@ package com.odonto.sistema_odontologico.services;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.config.MetricasConfig;
+import com.odonto.sistema_odontologico.dto.DetalhamentoPrecoDTO;
 import com.odonto.sistema_odontologico.models.Procedimento;
 
 /**
@@ -14,93 +21,96 @@ import com.odonto.sistema_odontologico.models.Procedimento;
  * 1. Custo dos materiais (reutilizáveis têm 90% de desconto)
  * 2. Mão de obra (valor por hora * duração)
  * 3. Adicional de assistente (se houver, +50 reais fixo)
- * 4. Desconto do paciente (baseado em idade e fidelidade)
+ * 4. Desconto do paciente (faixa gravada no paciente, derivada de idade e fidelidade)
  */
 @Service
+@Timed(value = MetricasConfig.METRICA_SERVICOS, histogram = true)
 public class CalculadoraPrecoService {
 
-    private static final BigDecimal ADICIONAL_ASSISTENTE = new BigDecimal("50.00");
+    private static final String METRICA_CALCULOS = "odonto.preco.calculos";
 
-    public BigDecimal calcularValorFinal(Procedimento procedimento) {
-        BigDecimal valorTotal = BigDecimal.ZERO;
+    @Autowired
+    private PrecoEngine precoEngine;
 
-        // 1. Custo dos materiais
-        BigDecimal custoMateriais = calcularCustoMateriais(procedimento);
-        valorTotal = valorTotal.add(custoMateriais);
+    @Autowired
+    private MeterRegistry meterRegistry;
 
-        // 2. Mão de obra (valor por hora * duração)
-        BigDecimal custoMaoObra = calcularCustoMaoObra(procedimento);
-        valorTotal = valorTotal.add(custoMaoObra);
+    private Counter calculosValorFinal;
+    private Counter calculosDetalhamento;
 
-        // 3. Adicional de assistente
-        if (procedimento.getAssistente()) {
-            valorTotal = valorTotal.add(ADICIONAL_ASSISTENTE);
-        }
+    public CalculadoraPrecoService() {
+    }
 
-        // 4. Aplicar desconto do paciente
-        double percentualDesconto = procedimento.getPaciente().calcularDesconto();
-        BigDecimal desconto = valorTotal.multiply(BigDecimal.valueOf(percentualDesconto));
-        valorTotal = valorTotal.subtract(desconto);
+    // usado por testes e benchmarks, fora do contexto do Spring
+    CalculadoraPrecoService(PrecoEngine precoEngine) {
+        this.precoEngine = precoEngine;
+        this.meterRegistry = new SimpleMeterRegistry();
+        registrarMetricas();
+    }
 
-        return valorTotal.setScale(2, RoundingMode.HALF_UP);
+    @PostConstruct
+    public void registrarMetricas() {
+        calculosValorFinal = meterRegistry.counter(METRICA_CALCULOS, "tipo", "valor_final");
+        calculosDetalhamento = meterRegistry.counter(METRICA_CALCULOS, "tipo", "detalhamento");
     }
 
     /**
-     * Calcula o custo total dos materiais
-     * Materiais reutilizáveis: cobram apenas 10% do valor
-     * Materiais descartáveis: cobram valor integral
+     * Valor final do procedimento, calculado pelo engine configurado em odonto.preco.engine
      */
-    private BigDecimal calcularCustoMateriais(Procedimento procedimento) {
-        return procedimento.getMateriais().stream()
-                .map(Material::calcularValorProcedimento)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public BigDecimal calcularValorFinal(Procedimento procedimento) {
+        calculosValorFinal.increment();
+        return precoEngine.calcularValorFinal(procedimento);
     }
 
     /**
-     * Calcula o custo da mão de obra
-     * Valor base por hora * duração em horas
+     * Composição do preço calculada junto com o valor final (uma única passada pelos materiais).
+     * Para procedimento já cadastrado, o valor final é o gravado (o que foi cobrado na época) e o total
+     * das parcelas recalculadas vai em valorRecalculado, com divergente quando os dois não batem
      */
-    private BigDecimal calcularCustoMaoObra(Procedimento procedimento) {
-        BigDecimal valorPorHora = procedimento.getValorMaoObra();
-        BigDecimal duracaoDecimal = BigDecimal.valueOf(procedimento.getDuracao()/60.0);
-        return valorPorHora.multiply(duracaoDecimal);
+    public DetalhamentoPrecoDTO calcularDetalhamento(Procedimento procedimento) {
+        calculosDetalhamento.increment();
+        DetalhamentoPrecoDTO detalhamento = precoEngine.detalhar(procedimento);
+        BigDecimal recalculado = detalhamento.getValorFinal();
+        detalhamento.setValorRecalculado(recalculado);
+        if (procedimento.getValorFinal() != null) {
+            detalhamento.setValorFinal(procedimento.getValorFinal());
+            detalhamento.setDivergente(procedimento.getValorFinal().compareTo(recalculado) != 0);
+        }
+        return detalhamento;
     }
 
     /**
-     * Retorna o detalhamento do cálculo (para ver no postman - back)
+     * Detalhamento em texto (para ver no postman - back), montado a partir da composição já calculada
      */
-    public String gerarDetalhamentoCalculo(Procedimento procedimento) {
-        StringBuilder detalhamento = new StringBuilder();
-
-        BigDecimal custoMateriais = calcularCustoMateriais(procedimento);
-        BigDecimal custoMaoObra = calcularCustoMaoObra(procedimento);
-        double percentualDesconto = procedimento.getPaciente().calcularDesconto();
-
-        detalhamento.append("=== DETALHAMENTO DO CÁLCULO ===\n");
-        detalhamento.append(String.format("Materiais: R$ %.2f\n", custoMateriais));
-        detalhamento.append(String.format("Mão de obra: R$ %.2f (R$ %.2f/h x %.2fh)\n",
-                custoMaoObra, procedimento.getValorMaoObra(), procedimento.getDuracao()));
-
-        if (procedimento.getAssistente()) {
-            detalhamento.append(String.format("Assistente: R$ %.2f\n", ADICIONAL_ASSISTENTE));
-        }
-
-        BigDecimal subtotal = custoMateriais.add(custoMaoObra);
-        if (procedimento.getAssistente()) {
-            subtotal = subtotal.add(ADICIONAL_ASSISTENTE);
+    public static String formatarTexto(DetalhamentoPrecoDTO detalhamento) {
+        StringBuilder texto = new StringBuilder(256);
+        texto.append("=== DETALHAMENTO DO CÁLCULO ===\n");
+        texto.append("Materiais: R$ ").append(moeda(detalhamento.getCustoMateriais())).append('\n');
+        texto.append("Mão de obra: R$ ").append(moeda(detalhamento.getCustoMaoObra()))
+                .append(" (R$ ").append(moeda(detalhamento.getValorHora())).append("/h x ")
+                .append(moeda(new BigDecimal(detalhamento.getDuracao().toString()))).append("h)\n");
+
+        if (detalhamento.getAdicionalAssistente().signum() > 0) {
+            texto.append("Assistente: R$ ").append(moeda(detalhamento.getAdicionalAssistente())).append('\n');
         }
 
-        detalhamento.append(String.format("Subtotal: R$ %.2f\n", subtotal));
+        texto.append("Subtotal: R$ ").append(moeda(detalhamento.getSubtotal())).append('\n');
 
-        if (percentualDesconto > 0) {
-            BigDecimal valorDesconto = subtotal.multiply(BigDecimal.valueOf(percentualDesconto));
-            detalhamento.append(String.format("Desconto paciente (%.0f%%): -R$ %.2f\n",
-                    percentualDesconto * 100, valorDesconto));
+        if (detalhamento.getPercentualDesconto() > 0) {
+            texto.append("Desconto paciente (").append(Math.round(detalhamento.getPercentualDesconto() * 100))
+                    .append("%): -R$ ").append(moeda(detalhamento.getValorDesconto())).append('\n');
         }
 
-        detalhamento.append(String.format("VALOR FINAL: R$ %.2f\n", procedimento.getValorFinal()));
-        detalhamento.append("===============================");
+        if (detalhamento.isDivergente()) {
+            texto.append("Total recalculado hoje: R$ ").append(moeda(detalhamento.getValorRecalculado()))
+                    .append(" (preços ou desconto mudaram desde o cadastro)\n");
+        }
+        texto.append("VALOR FINAL: R$ ").append(moeda(detalhamento.getValorFinal())).append('\n');
+        texto.append("===============================");
+        return texto.toString();
+    }
 
-        return detalhamento.toString();
+    private static String moeda(BigDecimal valor) {
+        return valor.setScale(2, RoundingMode.HALF_UP).toPlainString();
     }
 }
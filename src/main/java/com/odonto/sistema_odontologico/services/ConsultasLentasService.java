@@ -0,0 +1,277 @@
+package com.odonto.sistema_odontologico.services;
+
+import com.odonto.sistema_odontologico.dto.ConsultaLentaDTO;
+import jakarta.annotation.PreDestroy;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Log de consultas lentas no lugar do show-sql. Toda instrução entra no ranking por formato
+ * (literais e listas de IN trocados por ?); as que passam de odonto.sql.lentas.limite-ms e uma
+ * amostra das rápidas (odonto.sql.lentas.amostragem) vão para o log com os parâmetros, o método
+ * do service que as executou e o plano do H2 (EXPLAIN).
+ * Na thread da requisição só é feita a contagem e a captura dos parâmetros e do chamador;
+ * o EXPLAIN e a escrita no log ficam numa thread separada, com fila limitada (excedentes são descartados).
+ * O ranking cobre a janela atual e a anterior, trocadas a cada odonto.sql.lentas.janela-ms.
+ */
+@Service
+@ConditionalOnProperty(name = "odonto.sql.lentas.habilitado", havingValue = "true")
+public class ConsultasLentasService implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ConsultasLentasService.class);
+
+    private static final String PACOTE_APLICACAO = "com.odonto.sistema_odontologico.";
+    // limite de formatos distintos por janela, para consultas montadas com literais não estourarem a memória
+    private static final int MAXIMO_FORMATOS = 2_000;
+    private static final int TAMANHO_FILA_LOG = 1_000;
+
+    private static final Pattern TEXTO = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERO = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern LISTA_IN = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+
+    @Value("${odonto.sql.lentas.limite-ms:100}")
+    private long limiteMs;
+
+    @Value("${odonto.sql.lentas.amostragem:0}")
+    private double amostragem;
+
+    @Autowired
+    private ObjectProvider<DataSource> dataSource;
+
+    private final ThreadPoolExecutor registrador = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(TAMANHO_FILA_LOG), tarefa -> {
+                Thread thread = new Thread(tarefa, "consultas-lentas");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    // texto original -> formato normalizado, para não aplicar as expressões regulares a cada execução
+    private final Map<String, String> formatos = new ConcurrentHashMap<>();
+
+    private volatile Map<String, Estatistica> janelaAtual = new ConcurrentHashMap<>();
+    private volatile Map<String, Estatistica> janelaAnterior = Map.of();
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (queryInfoList.isEmpty()) {
+            return;
+        }
+        // num lote todas as instruções têm o mesmo texto; conta como uma execução
+        QueryInfo queryInfo = queryInfoList.get(0);
+        String consulta = queryInfo.getQuery();
+        long tempoMs = execInfo.getElapsedTime();
+        Estatistica estatistica = registrar(consulta, tempoMs);
+
+        boolean lenta = tempoMs >= limiteMs;
+        if (!lenta && (amostragem <= 0 || ThreadLocalRandom.current().nextDouble() >= amostragem)) {
+            return;
+        }
+        String origem = metodoChamador();
+        List<Object> parametros = parametros(queryInfo);
+        boolean lote = execInfo.isBatch();
+        if (estatistica != null) {
+            estatistica.origem = origem;
+        }
+        registrador.execute(() -> escreverLog(lenta, consulta, tempoMs, parametros, origem, lote));
+    }
+
+    /**
+     * Ranking dos formatos de consulta por tempo total nas duas últimas janelas
+     */
+    public List<ConsultaLentaDTO> topConsultas(int limite) {
+        Map<String, ConsultaLentaDTO> somadas = new HashMap<>();
+        for (Map<String, Estatistica> janela : List.of(janelaAnterior, janelaAtual)) {
+            janela.forEach((formato, estatistica) -> {
+                ConsultaLentaDTO dto = somadas.computeIfAbsent(formato,
+                        f -> ConsultaLentaDTO.builder().consulta(f).build());
+                dto.setExecucoes(dto.getExecucoes() + estatistica.execucoes.sum());
+                dto.setTempoTotalMs(dto.getTempoTotalMs() + estatistica.tempoTotalMs.sum());
+                dto.setTempoMaximoMs(Math.max(dto.getTempoMaximoMs(), estatistica.tempoMaximoMs.get()));
+                if (estatistica.origem != null) {
+                    dto.setOrigem(estatistica.origem);
+                }
+            });
+        }
+        return somadas.values().stream()
+                .peek(dto -> dto.setTempoMedioMs(dto.getExecucoes() == 0 ? 0 : (double) dto.getTempoTotalMs() / dto.getExecucoes()))
+                .sorted(Comparator.comparingLong(ConsultaLentaDTO::getTempoTotalMs).reversed()
+                        .thenComparing(Comparator.comparingLong(ConsultaLentaDTO::getExecucoes).reversed()))
+                .limit(limite)
+                .toList();
+    }
+
+    public void zerar() {
+        janelaAnterior = Map.of();
+        janelaAtual = new ConcurrentHashMap<>();
+    }
+
+    @Scheduled(fixedDelayString = "${odonto.sql.lentas.janela-ms:900000}",
+            initialDelayString = "${odonto.sql.lentas.janela-ms:900000}")
+    public void trocarJanela() {
+        janelaAnterior = janelaAtual;
+        janelaAtual = new ConcurrentHashMap<>();
+        if (formatos.size() > MAXIMO_FORMATOS) {
+            formatos.clear();
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        registrador.shutdownNow();
+    }
+
+    /**
+     * Soma a execução ao formato da consulta; null se a janela já atingiu o limite de formatos
+     */
+    Estatistica registrar(String consulta, long tempoMs) {
+        String formato = formatos.get(consulta);
+        if (formato == null) {
+            formato = normalizar(consulta);
+            if (formatos.size() < MAXIMO_FORMATOS) {
+                formatos.put(consulta, formato);
+            }
+        }
+        Map<String, Estatistica> janela = janelaAtual;
+        Estatistica estatistica = janela.get(formato);
+        if (estatistica == null) {
+            if (janela.size() >= MAXIMO_FORMATOS) {
+                return null;
+            }
+            estatistica = janela.computeIfAbsent(formato, f -> new Estatistica());
+        }
+        estatistica.execucoes.increment();
+        estatistica.tempoTotalMs.add(tempoMs);
+        estatistica.tempoMaximoMs.accumulateAndGet(tempoMs, Math::max);
+        return estatistica;
+    }
+
+    /**
+     * Troca literais por ?, reduz listas de IN a (?...) e junta os espaços
+     */
+    static String normalizar(String consulta) {
+        String formato = TEXTO.matcher(consulta).replaceAll("?");
+        formato = NUMERO.matcher(formato).replaceAll("?");
+        formato = LISTA_IN.matcher(formato).replaceAll("(?...)");
+        return ESPACOS.matcher(formato).replaceAll(" ").trim();
+    }
+
+    /**
+     * Primeiro método da aplicação na pilha, pulando o que não é service (config, proxies)
+     */
+    private static String metodoChamador() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(PACOTE_APLICACAO)
+                        && !frame.getClassName().startsWith(PACOTE_APLICACAO + "config.")
+                        && !frame.getClassName().equals(ConsultasLentasService.class.getName())
+                        && !frame.getClassName().contains("$$"))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring(frame.getClassName().lastIndexOf('.') + 1)
+                        + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+                .orElse("desconhecida"));
+    }
+
+    /**
+     * Parâmetros da primeira execução (num lote, do primeiro item), na ordem dos ?
+     */
+    private static List<Object> parametros(QueryInfo queryInfo) {
+        List<List<ParameterSetOperation>> execucoes = queryInfo.getParametersList();
+        if (execucoes.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, Object> porIndice = new TreeMap<>();
+        for (ParameterSetOperation operacao : execucoes.get(0)) {
+            Object[] args = operacao.getArgs();
+            if (args.length > 1 && args[0] instanceof Integer indice) {
+                boolean nulo = "setNull".equals(operacao.getMethod().getName());
+                porIndice.put(indice, nulo ? null : args[1]);
+            }
+        }
+        return new ArrayList<>(porIndice.values());
+    }
+
+    private void escreverLog(boolean lenta, String consulta, long tempoMs, List<Object> parametros,
+                             String origem, boolean lote) {
+        String plano = lote ? "(lote)" : plano(consulta, parametros);
+        String mensagem = "{} ms em {}: {} | parâmetros {} | plano: {}";
+        if (lenta) {
+            log.warn("Consulta lenta: " + mensagem, tempoMs, origem, consulta, parametros, plano);
+        } else {
+            log.info("Consulta amostrada: " + mensagem, tempoMs, origem, consulta, parametros, plano);
+        }
+    }
+
+    /**
+     * EXPLAIN do H2 com os mesmos parâmetros, executado fora do proxy para não entrar no ranking
+     */
+    private String plano(String consulta, List<Object> parametros) {
+        if (!consulta.stripLeading().regionMatches(true, 0, "select", 0, 6)) {
+            return "(somente SELECT)";
+        }
+        DataSource alvo = dataSource.getIfAvailable();
+        if (alvo instanceof ProxyDataSource proxy) {
+            alvo = proxy.getDataSource();
+        }
+        if (alvo == null) {
+            return "(indisponível)";
+        }
+        try (Connection conexao = alvo.getConnection();
+             PreparedStatement explain = conexao.prepareStatement("EXPLAIN " + consulta)) {
+            for (int i = 0; i < parametros.size(); i++) {
+                explain.setObject(i + 1, parametros.get(i));
+            }
+            StringBuilder plano = new StringBuilder();
+            try (ResultSet linhas = explain.executeQuery()) {
+                while (linhas.next()) {
+                    plano.append(linhas.getString(1)).append(' ');
+                }
+            }
+            return ESPACOS.matcher(plano).replaceAll(" ").trim();
+        } catch (SQLException e) {
+            return "(EXPLAIN falhou: " + e.getMessage() + ")";
+        }
+    }
+
+    static final class Estatistica {
+
+        final LongAdder execucoes = new LongAdder();
+        final LongAdder tempoTotalMs = new LongAdder();
+        final AtomicLong tempoMaximoMs = new AtomicLong();
+        volatile String origem;
+    }
+}
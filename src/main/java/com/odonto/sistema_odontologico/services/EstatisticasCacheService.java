@@ -0,0 +1,70 @@
+package com.odonto.sistema_odontologico.services;
+
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Acertos e faltas do cache de segundo nível do Hibernate (entidades e consultas)
+ */
+@Service
+public class EstatisticasCacheService {
+
+    private static final List<Class<?>> ENTIDADES_EM_CACHE = List.of(Material.class, Paciente.class);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public Map<String, Object> estatisticas() {
+        Statistics estatisticas = estatisticasHibernate();
+
+        Map<String, Object> regioes = new LinkedHashMap<>();
+        for (Class<?> entidade : ENTIDADES_EM_CACHE) {
+            CacheRegionStatistics regiao = estatisticas.getDomainDataRegionStatistics(entidade.getName());
+            regioes.put(entidade.getSimpleName(), resumo(regiao.getHitCount(), regiao.getMissCount(),
+                    regiao.getPutCount(), regiao.getElementCountInMemory()));
+        }
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("entidades", resumo(estatisticas.getSecondLevelCacheHitCount(),
+                estatisticas.getSecondLevelCacheMissCount(), estatisticas.getSecondLevelCachePutCount(), null));
+        resultado.put("regioes", regioes);
+        resultado.put("consultas", resumo(estatisticas.getQueryCacheHitCount(),
+                estatisticas.getQueryCacheMissCount(), estatisticas.getQueryCachePutCount(), null));
+        resultado.put("desde", estatisticas.getStart());
+        return resultado;
+    }
+
+    /**
+     * Zera os contadores (não esvazia o cache)
+     */
+    public void zerar() {
+        estatisticasHibernate().clear();
+    }
+
+    private Statistics estatisticasHibernate() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private static Map<String, Object> resumo(long acertos, long faltas, long gravacoes, Long elementos) {
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        resumo.put("acertos", acertos);
+        resumo.put("faltas", faltas);
+        resumo.put("gravacoes", gravacoes);
+        long total = acertos + faltas;
+        resumo.put("taxaAcerto", total == 0 ? 0.0 : (double) acertos / total);
+        if (elementos != null) {
+            resumo.put("elementosEmMemoria", elementos);
+        }
+        return resumo;
+    }
+}
@@ -0,0 +1,91 @@
+package com.odonto.sistema_odontologico.services;
+
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Estoque controlado direto no banco: cada operação é um UPDATE condicional atômico,
+ * seguido da remoção só daquele material do cache de segundo nível
+ */
+@Service
+@ConditionalOnProperty(name = "odonto.estoque.engine", havingValue = "banco", matchIfMissing = true)
+public class EstoqueBancoEngine implements EstoqueEngine {
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private AlertaEstoqueService alertaEstoqueService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public boolean descontar(Long materialId, int quantidade) {
+        if (materialRepository.descontarEstoque(materialId, quantidade) == 0) {
+            return false;
+        }
+        CacheEntidades.remover(entityManager, Material.class, materialId);
+        verificarPontoReposicao(materialId, -quantidade);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public boolean adicionar(Long materialId, int quantidade) {
+        if (materialRepository.adicionarEstoque(materialId, quantidade) == 0) {
+            return false;
+        }
+        CacheEntidades.remover(entityManager, Material.class, materialId);
+        verificarPontoReposicao(materialId, quantidade);
+        return true;
+    }
+
+    @Override
+    public void definirQuantidade(Material material, Integer quantidade) {
+        if (material.getQuantidade() != null && quantidade != null) {
+            alertaEstoqueService.quantidadeAlterada(material.getId(), material.getQuantidade(), quantidade);
+        }
+        material.setQuantidade(quantidade);
+    }
+
+    @Override
+    public void registrar(Material material) {
+        // nada a fazer: o saldo já está na tabela
+    }
+
+    @Override
+    public void remover(Long materialId) {
+        // nada a fazer: o saldo sai junto com a linha da tabela
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Material refletirEstoque(Material material) {
+        if (entityManager.contains(material)) {
+            entityManager.refresh(material);
+        }
+        return material;
+    }
+
+    /**
+     * Lê o saldo após o UPDATE, ainda na mesma transação (a linha continua travada por ela),
+     * então o saldo anterior é exatamente o atual menos a variação
+     */
+    private void verificarPontoReposicao(Long materialId, int variacao) {
+        if (!alertaEstoqueService.monitorado(materialId)) {
+            return;
+        }
+        Integer depois = materialRepository.buscarQuantidade(materialId);
+        if (depois != null) {
+            alertaEstoqueService.quantidadeAlterada(materialId, depois - variacao, depois);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.odonto.sistema_odontologico.services;
+
+import com.odonto.sistema_odontologico.models.Material;
+
+/**
+ * Estratégia de controle do estoque de materiais usada pelos services.
+ * Implementações (escolhidas pela propriedade odonto.estoque.engine):
+ * - banco: cada operação é um UPDATE atômico na tabela materiais (padrão)
+ * - memoria: saldo mantido em memória e gravado no banco periodicamente (write-behind)
+ */
+public interface EstoqueEngine {
+
+    /**
+     * Desconta unidades do estoque
+     * @return false se o material não existe ou não há quantidade suficiente
+     */
+    boolean descontar(Long materialId, int quantidade);
+
+    /**
+     * Soma unidades ao estoque
+     * @return false se o material não existe
+     */
+    boolean adicionar(Long materialId, int quantidade);
+
+    /**
+     * Define a quantidade absoluta (atualização manual do cadastro do material)
+     */
+    void definirQuantidade(Material material, Integer quantidade);
+
+    /**
+     * Passa a controlar o estoque de um material recém-cadastrado
+     */
+    void registrar(Material material);
+
+    /**
+     * Deixa de controlar o estoque de um material removido
+     */
+    void remover(Long materialId);
+
+    /**
+     * Atualiza a quantidade do objeto para o saldo atual, para ser devolvido ao cliente
+     */
+    Material refletirEstoque(Material material);
+}
@@ -0,0 +1,266 @@
+package com.odonto.sistema_odontologico.services;
+
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Estoque controlado em memória (odonto.estoque.engine=memoria).
+ * O saldo de cada material fica em um mapa protegido por locks em listras (um lock por faixa de ids),
+ * então reservas de materiais diferentes não disputam o mesmo lock e nenhuma reserva toca a linha
+ * da tabela materiais. As variações acumuladas são gravadas no banco a cada intervalo e no desligamento.
+ * Reservas são confirmadas antes de chegarem ao banco: se a aplicação cair, as variações ainda não
+ * gravadas (até um intervalo) se perdem e, como o saldo é recarregado do banco na inicialização, material
+ * já consumido volta a ficar disponível e pode ser vendido de novo. Por isso o engine só sobe com
+ * odonto.estoque.memoria.aceitar-perda-na-queda=true (ligado no perfil dev); em produção use "banco".
+ */
+@Service
+@ConditionalOnProperty(name = "odonto.estoque.engine", havingValue = "memoria")
+public class EstoqueMemoriaEngine implements EstoqueEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(EstoqueMemoriaEngine.class);
+
+    private static final int LISTRAS = 64;
+
+    /**
+     * Saldo de um material. Os campos só são lidos/alterados com o lock da listra do material
+     */
+    private static final class Saldo {
+        private int disponivel;
+        private int pendente; // variação ainda não gravada no banco
+
+        private Saldo(int disponivel) {
+            this.disponivel = disponivel;
+        }
+    }
+
+    private final ReentrantLock[] travas = new ReentrantLock[LISTRAS];
+
+    private final Map<Long, Saldo> saldos = new ConcurrentHashMap<>();
+
+    // evita duas gravações simultâneas (agendada e desligamento)
+    private final ReentrantLock travaGravacao = new ReentrantLock();
+
+    @Value("${odonto.estoque.memoria.aceitar-perda-na-queda:false}")
+    private boolean aceitarPerdaNaQueda;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private AlertaEstoqueService alertaEstoqueService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public EstoqueMemoriaEngine() {
+        for (int i = 0; i < LISTRAS; i++) {
+            travas[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Recupera o saldo de todos os materiais a partir do banco
+     */
+    @PostConstruct
+    public void carregar() {
+        if (!aceitarPerdaNaQueda) {
+            throw new IllegalStateException("odonto.estoque.engine=memoria pode vender estoque já consumido após uma queda "
+                    + "(reservas não gravadas se perdem); use odonto.estoque.engine=banco ou, fora de produção, "
+                    + "odonto.estoque.memoria.aceitar-perda-na-queda=true");
+        }
+        log.warn("Estoque em memória: reservas ainda não gravadas se perdem se a aplicação cair");
+        for (Material material : materialRepository.findAll()) {
+            saldos.put(material.getId(), new Saldo(material.getQuantidade()));
+        }
+        log.info("Estoque em memória carregado com {} materiais", saldos.size());
+    }
+
+    @Override
+    public boolean descontar(Long materialId, int quantidade) {
+        Integer antes = alterar(materialId, -quantidade, true);
+        if (antes == null) {
+            return false;
+        }
+        alertaEstoqueService.quantidadeAlterada(materialId, antes, antes - quantidade);
+        // se a transação do chamador for desfeita, a reserva é devolvida
+        AcoesTransacao.aoDesfazer(() -> alterar(materialId, quantidade, false));
+        return true;
+    }
+
+    @Override
+    public boolean adicionar(Long materialId, int quantidade) {
+        Integer antes = alterar(materialId, quantidade, false);
+        if (antes == null) {
+            return false;
+        }
+        alertaEstoqueService.quantidadeAlterada(materialId, antes, antes + quantidade);
+        AcoesTransacao.aoDesfazer(() -> alterar(materialId, -quantidade, false));
+        return true;
+    }
+
+    @Override
+    public void definirQuantidade(Material material, Integer quantidade) {
+        Saldo saldo = saldos.get(material.getId());
+        if (saldo == null) {
+            material.setQuantidade(quantidade);
+            return;
+        }
+        int antes;
+        ReentrantLock trava = trava(material.getId());
+        trava.lock();
+        try {
+            antes = saldo.disponivel;
+            // grava como variação para não sobrescrever reservas ainda pendentes
+            saldo.pendente += quantidade - saldo.disponivel;
+            saldo.disponivel = quantidade;
+        } finally {
+            trava.unlock();
+        }
+        alertaEstoqueService.quantidadeAlterada(material.getId(), antes, quantidade);
+        // se a transação do chamador for desfeita, a variação é devolvida (reservas feitas nesse meio tempo são mantidas)
+        Long materialId = material.getId();
+        int variacao = quantidade - antes;
+        AcoesTransacao.aoDesfazer(() -> alterar(materialId, -variacao, false));
+    }
+
+    @Override
+    public void registrar(Material material) {
+        Long id = material.getId();
+        int quantidade = material.getQuantidade();
+        AcoesTransacao.aposConfirmar(() -> saldos.putIfAbsent(id, new Saldo(quantidade)));
+    }
+
+    @Override
+    public void remover(Long materialId) {
+        AcoesTransacao.aposConfirmar(() -> saldos.remove(materialId));
+    }
+
+    @Override
+    public Material refletirEstoque(Material material) {
+        Saldo saldo = saldos.get(material.getId());
+        if (saldo == null) {
+            return material;
+        }
+        // desanexa antes de alterar, senão o Hibernate gravaria a quantidade absoluta no flush
+        if (entityManager.contains(material)) {
+            entityManager.detach(material);
+        }
+        ReentrantLock trava = trava(material.getId());
+        trava.lock();
+        try {
+            material.setQuantidade(saldo.disponivel);
+        } finally {
+            trava.unlock();
+        }
+        return material;
+    }
+
+    /**
+     * Grava no banco as variações acumuladas desde a última gravação
+     */
+    @Scheduled(fixedDelayString = "${odonto.estoque.memoria.intervalo-gravacao-ms:500}")
+    public void gravarPendentes() {
+        travaGravacao.lock();
+        try {
+            Map<Long, Integer> variacoes = new HashMap<>();
+            saldos.forEach((id, saldo) -> {
+                ReentrantLock trava = trava(id);
+                trava.lock();
+                try {
+                    if (saldo.pendente != 0) {
+                        variacoes.put(id, saldo.pendente);
+                        saldo.pendente = 0;
+                    }
+                } finally {
+                    trava.unlock();
+                }
+            });
+            if (variacoes.isEmpty()) {
+                return;
+            }
+
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    variacoes.forEach(materialRepository::adicionarEstoque);
+                    CacheEntidades.remover(entityManager, Material.class, variacoes.keySet());
+                });
+                // as listagens leem a quantidade do banco: o ETag só muda depois da gravação
+                versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.MATERIAL);
+            } catch (RuntimeException e) {
+                // devolve as variações para a próxima tentativa
+                log.warn("Falha ao gravar estoque em memória no banco, nova tentativa no próximo ciclo", e);
+                variacoes.forEach((id, variacao) -> {
+                    Saldo saldo = saldos.get(id);
+                    if (saldo != null) {
+                        ReentrantLock trava = trava(id);
+                        trava.lock();
+                        try {
+                            saldo.pendente += variacao;
+                        } finally {
+                            trava.unlock();
+                        }
+                    }
+                });
+            }
+        } finally {
+            travaGravacao.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void desligar() {
+        gravarPendentes();
+    }
+
+    /**
+     * Aplica a variação no saldo
+     * @return saldo anterior, ou null se o material não existe ou não há quantidade suficiente
+     */
+    private Integer alterar(Long materialId, int variacao, boolean exigirSaldo) {
+        Saldo saldo = saldos.get(materialId);
+        if (saldo == null) {
+            return null;
+        }
+        ReentrantLock trava = trava(materialId);
+        trava.lock();
+        try {
+            if (exigirSaldo && saldo.disponivel + variacao < 0) {
+                return null;
+            }
+            int antes = saldo.disponivel;
+            saldo.disponivel += variacao;
+            saldo.pendente += variacao;
+            return antes;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    private ReentrantLock trava(Long materialId) {
+        return travas[(int) Math.floorMod(materialId, (long) LISTRAS)];
+    }
+}
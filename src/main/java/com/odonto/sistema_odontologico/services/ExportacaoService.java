@@ -0,0 +1,326 @@
+package com.odonto.sistema_odontologico.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.odonto.sistema_odontologico.config.MetricasConfig;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exportação de procedimentos com paciente e materiais (CSV ou NDJSON) direto do cursor JDBC para
+ * a saída: nenhuma entidade JPA é criada e só o procedimento atual fica em memória, então o consumo
+ * de memória é o mesmo para mil ou um milhão de linhas.
+ * O SELECT traz uma linha por material (LEFT JOIN), ordenada por data e id: as linhas consecutivas
+ * do mesmo procedimento são juntadas em um registro só.
+ */
+@Service
+@Timed(value = MetricasConfig.METRICA_SERVICOS, histogram = true)
+public class ExportacaoService {
+
+    public enum Formato { CSV, NDJSON }
+
+    private static final int TAMANHO_LOTE_CURSOR = 1_000;
+    // a cada N registros a saída é descarregada, para o cliente começar a receber antes do fim
+    private static final int DESCARREGAR_A_CADA = 5_000;
+
+    static final String CABECALHO_CSV = "id,data_criacao,procedimento,assistente,duracao,valor_mao_obra,valor_final,"
+            + "paciente_id,paciente,quantidade_materiais,materiais";
+
+    private static final String CONSULTA = "SELECT p.id, p.data_criacao, p.nome_procedimento, p.assistente, p.duracao, "
+            + "p.valor_mao_obra, p.valor_final, pa.id, pa.nome_paciente, m.id, m.nome_material, m.valor, m.reutilizavel "
+            + "FROM procedimentos p "
+            + "JOIN pacientes pa ON pa.id = p.paciente_id "
+            + "LEFT JOIN procedimento_materiais pm ON pm.procedimento_id = p.id "
+            + "LEFT JOIN materiais m ON m.id = pm.material_id "
+            + "WHERE p.data_criacao >= ? AND p.data_criacao < ? "
+            + "ORDER BY p.data_criacao, p.id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Escreve os procedimentos criados no período (datas inclusivas, abertas se nulas) e retorna quantos foram
+     */
+    @Transactional(readOnly = true)
+    public long exportarProcedimentos(Formato formato, LocalDate de, LocalDate ate, OutputStream saida) {
+        if (de != null && ate != null && de.isAfter(ate)) {
+            throw new IllegalArgumentException("Data inicial posterior à data final");
+        }
+        LocalDateTime inicio = de != null ? de.atStartOfDay() : LocalDateTime.of(1900, 1, 1, 0, 0);
+        LocalDateTime fim = ate != null ? ate.plusDays(1).atStartOfDay() : LocalDateTime.of(9999, 12, 31, 23, 59);
+
+        return jdbcTemplate.execute((ConnectionCallback<Long>) conexao -> {
+            // no H2 embarcado o resultado inteiro é montado antes da primeira linha, a não ser com
+            // execução lazy; a ordenação usa o índice de data_criacao, então a consulta é lida em stream
+            alterarExecucaoLazy(conexao, true);
+            try (PreparedStatement consulta = conexao.prepareStatement(CONSULTA,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                consulta.setFetchSize(TAMANHO_LOTE_CURSOR);
+                consulta.setTimestamp(1, Timestamp.valueOf(inicio));
+                consulta.setTimestamp(2, Timestamp.valueOf(fim));
+                try (ResultSet linhas = consulta.executeQuery()) {
+                    return escrever(linhas, formato == Formato.NDJSON ? new EscritorNdjson(saida) : new EscritorCsv(saida));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                alterarExecucaoLazy(conexao, false);
+            }
+        });
+    }
+
+    private static void alterarExecucaoLazy(Connection conexao, boolean lazy) throws SQLException {
+        try (Statement comando = conexao.createStatement()) {
+            comando.execute("SET LAZY_QUERY_EXECUTION " + (lazy ? "TRUE" : "FALSE"));
+        }
+    }
+
+    private static long escrever(ResultSet linhas, Escritor escritor) throws SQLException, IOException {
+        Registro registro = new Registro();
+        long exportados = 0;
+        escritor.iniciar();
+        while (linhas.next()) {
+            long id = linhas.getLong(1);
+            if (registro.id != id) {
+                if (registro.id != 0) {
+                    escritor.escrever(registro);
+                    if (++exportados % DESCARREGAR_A_CADA == 0) {
+                        escritor.descarregar();
+                    }
+                }
+                registro.preencher(id, linhas);
+            }
+            long materialId = linhas.getLong(10);
+            if (!linhas.wasNull()) {
+                registro.materiais.add(new MaterialExportado(materialId, linhas.getString(11),
+                        linhas.getBigDecimal(12), linhas.getBoolean(13)));
+            }
+        }
+        if (registro.id != 0) {
+            escritor.escrever(registro);
+            exportados++;
+        }
+        escritor.concluir();
+        return exportados;
+    }
+
+    /**
+     * Procedimento atual do cursor; reaproveitado de um procedimento para o outro
+     */
+    private static final class Registro {
+
+        long id;
+        LocalDateTime dataCriacao;
+        String nomeProcedimento;
+        boolean assistente;
+        float duracao;
+        BigDecimal valorMaoObra;
+        BigDecimal valorFinal;
+        long pacienteId;
+        String nomePaciente;
+        final List<MaterialExportado> materiais = new ArrayList<>();
+
+        void preencher(long id, ResultSet linha) throws SQLException {
+            this.id = id;
+            Timestamp data = linha.getTimestamp(2);
+            dataCriacao = data != null ? data.toLocalDateTime() : null;
+            nomeProcedimento = linha.getString(3);
+            assistente = linha.getBoolean(4);
+            duracao = linha.getFloat(5);
+            valorMaoObra = linha.getBigDecimal(6);
+            valorFinal = linha.getBigDecimal(7);
+            pacienteId = linha.getLong(8);
+            nomePaciente = linha.getString(9);
+            materiais.clear();
+        }
+    }
+
+    private record MaterialExportado(long id, String nome, BigDecimal valor, boolean reutilizavel) {
+    }
+
+    private interface Escritor {
+
+        void iniciar() throws IOException;
+
+        void escrever(Registro registro) throws IOException;
+
+        void descarregar() throws IOException;
+
+        void concluir() throws IOException;
+    }
+
+    /**
+     * CSV (RFC 4180, UTF-8): uma linha por procedimento, materiais separados por "|"
+     */
+    private static final class EscritorCsv implements Escritor {
+
+        private final Writer saida;
+
+        EscritorCsv(OutputStream saida) {
+            this.saida = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        public void iniciar() throws IOException {
+            saida.write(CABECALHO_CSV);
+            saida.write("\r\n");
+        }
+
+        @Override
+        public void escrever(Registro registro) throws IOException {
+            saida.write(Long.toString(registro.id));
+            saida.write(',');
+            if (registro.dataCriacao != null) {
+                saida.write(registro.dataCriacao.toString());
+            }
+            saida.write(',');
+            campo(registro.nomeProcedimento);
+            saida.write(',');
+            saida.write(registro.assistente ? "true" : "false");
+            saida.write(',');
+            saida.write(Float.toString(registro.duracao));
+            saida.write(',');
+            valor(registro.valorMaoObra);
+            saida.write(',');
+            valor(registro.valorFinal);
+            saida.write(',');
+            saida.write(Long.toString(registro.pacienteId));
+            saida.write(',');
+            campo(registro.nomePaciente);
+            saida.write(',');
+            saida.write(Integer.toString(registro.materiais.size()));
+            saida.write(',');
+            StringBuilder materiais = new StringBuilder();
+            for (MaterialExportado material : registro.materiais) {
+                if (!materiais.isEmpty()) {
+                    materiais.append('|');
+                }
+                materiais.append(material.nome());
+            }
+            campo(materiais.toString());
+            saida.write("\r\n");
+        }
+
+        private void valor(BigDecimal valor) throws IOException {
+            if (valor != null) {
+                saida.write(valor.toPlainString());
+            }
+        }
+
+        /**
+         * Entre aspas só quando necessário (vírgula, aspas ou quebra de linha), com aspas duplicadas
+         */
+        private void campo(String texto) throws IOException {
+            if (texto == null) {
+                return;
+            }
+            boolean aspas = false;
+            for (int i = 0; i < texto.length() && !aspas; i++) {
+                char c = texto.charAt(i);
+                aspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!aspas) {
+                saida.write(texto);
+                return;
+            }
+            saida.write('"');
+            saida.write(texto.replace("\"", "\"\""));
+            saida.write('"');
+        }
+
+        @Override
+        public void descarregar() throws IOException {
+            saida.flush();
+        }
+
+        @Override
+        public void concluir() throws IOException {
+            saida.flush();
+        }
+    }
+
+    /**
+     * NDJSON: um objeto por linha, escrito campo a campo pelo gerador do Jackson
+     */
+    private final class EscritorNdjson implements Escritor {
+
+        private final JsonGenerator json;
+
+        EscritorNdjson(OutputStream saida) throws IOException {
+            this.json = objectMapper.getFactory().createGenerator(saida);
+            // sem o espaço padrão entre valores da raiz: o separador é a quebra de linha
+            json.setRootValueSeparator(null);
+            // o fluxo de saída é da resposta: quem fecha é o container
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void iniciar() {
+        }
+
+        @Override
+        public void escrever(Registro registro) throws IOException {
+            json.writeStartObject();
+            json.writeNumberField("id", registro.id);
+            json.writeStringField("dataCriacao", registro.dataCriacao != null ? registro.dataCriacao.toString() : null);
+            json.writeStringField("nomeProcedimento", registro.nomeProcedimento);
+            json.writeBooleanField("assistente", registro.assistente);
+            json.writeNumberField("duracao", registro.duracao);
+            json.writeNumberField("valorMaoObra", registro.valorMaoObra);
+            json.writeNumberField("valorFinal", registro.valorFinal);
+            json.writeObjectFieldStart("paciente");
+            json.writeNumberField("id", registro.pacienteId);
+            json.writeStringField("nomePaciente", registro.nomePaciente);
+            json.writeEndObject();
+            json.writeArrayFieldStart("materiais");
+            for (MaterialExportado material : registro.materiais) {
+                json.writeStartObject();
+                json.writeNumberField("id", material.id());
+                json.writeStringField("nomeMaterial", material.nome());
+                json.writeNumberField("valor", material.valor());
+                json.writeBooleanField("reutilizavel", material.reutilizavel());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void descarregar() throws IOException {
+            json.flush();
+        }
+
+        @Override
+        public void concluir() throws IOException {
+            json.flush();
+        }
+    }
+}
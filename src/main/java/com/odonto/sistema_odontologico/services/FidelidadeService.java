@@ -0,0 +1,191 @@
+package com.odonto.sistema_odontologico.services;
+
+import com.odonto.sistema_odontologico.config.MetricasConfig;
+import com.odonto.sistema_odontologico.dto.SaldoLancamentos;
+import com.odonto.sistema_odontologico.models.LancamentoFidelidade;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import com.odonto.sistema_odontologico.repositories.LancamentoFidelidadeRepository;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pontos de fidelidade: cada crédito ou débito vira um lançamento no extrato e um UPDATE atômico
+ * do saldo (fidelidade = fidelidade + pontos), na mesma transação. Nada lê o saldo para gravá-lo
+ * de volta, então atualizações concorrentes do mesmo paciente não perdem pontos. A faixa de desconto
+ * é recalculada no banco logo depois, os pacientes alterados saem do cache de segundo nível e instâncias
+ * já carregadas na transação são relidas para não ficarem com saldo e faixa anteriores ao UPDATE.
+ */
+@Service
+@Timed(value = MetricasConfig.METRICA_SERVICOS, histogram = true)
+public class FidelidadeService {
+
+    private static final Logger log = LoggerFactory.getLogger(FidelidadeService.class);
+
+    public static final int PONTOS_POR_PROCEDIMENTO = 10;
+
+    // pacientes compactados por consulta de agrupamento
+    private static final int LOTE_COMPACTACAO = 500;
+
+    @Value("${odonto.fidelidade.compactacao.retencao-dias:90}")
+    private int retencaoDias;
+
+    @Autowired
+    private LancamentoFidelidadeRepository lancamentoRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Credita (ou debita, com pontos negativos) o saldo do paciente
+     */
+    @Transactional
+    public void lancar(Long pacienteId, int pontos, LancamentoFidelidade.Origem origem, Long referenciaId) {
+        if (pacienteRepository.adicionarFidelidade(pacienteId, pontos) == 0) {
+            if (!pacienteRepository.existsById(pacienteId)) {
+                throw new RuntimeException("Paciente não encontrado com ID: " + pacienteId);
+            }
+            throw new IllegalArgumentException("Saldo de fidelidade insuficiente para debitar " + (-pontos) + " pontos");
+        }
+        atualizarFaixasDesconto(List.of(pacienteId));
+        lancamentoRepository.save(novoLancamento(pacienteId, pontos, origem, referenciaId));
+        versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.PACIENTE);
+    }
+
+    /**
+     * Credita os pontos dos procedimentos cadastrados: um lançamento por procedimento e
+     * um UPDATE por paciente, em ordem de id para transações concorrentes travarem na mesma ordem
+     */
+    @Transactional
+    public void creditarProcedimentos(List<Procedimento> procedimentos) {
+        if (procedimentos.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> pontosPorPaciente = new TreeMap<>();
+        List<LancamentoFidelidade> lancamentos = new ArrayList<>(procedimentos.size());
+        for (Procedimento procedimento : procedimentos) {
+            Long pacienteId = procedimento.getPaciente().getId();
+            pontosPorPaciente.merge(pacienteId, PONTOS_POR_PROCEDIMENTO, Integer::sum);
+            lancamentos.add(novoLancamento(pacienteId, PONTOS_POR_PROCEDIMENTO,
+                    LancamentoFidelidade.Origem.PROCEDIMENTO, procedimento.getId()));
+        }
+        pontosPorPaciente.forEach(pacienteRepository::adicionarFidelidade);
+        atualizarFaixasDesconto(pontosPorPaciente.keySet());
+        lancamentoRepository.saveAll(lancamentos);
+        versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.PACIENTE);
+    }
+
+    /**
+     * Recalcula a faixa de desconto a partir da idade e do saldo gravados na linha (depois de um crédito
+     * ou de uma edição de idade) e relê os pacientes que esta transação já tinha carregado
+     */
+    @Transactional
+    public void atualizarFaixasDesconto(Collection<Long> pacienteIds) {
+        pacienteRepository.recalcularFaixasDesconto(pacienteIds);
+        // os UPDATEs em SQL não atualizam o cache de segundo nível: sai só quem mudou
+        CacheEntidades.remover(entityManager, Paciente.class, pacienteIds);
+        for (Long pacienteId : pacienteIds) {
+            // devolve a instância gerenciada, se houver; senão um proxy que não consulta o banco
+            Paciente carregado = entityManager.getReference(Paciente.class, pacienteId);
+            if (Hibernate.isInitialized(carregado)) {
+                entityManager.refresh(carregado);
+            }
+        }
+    }
+
+    /**
+     * Registra no extrato o saldo com que pacientes recém-cadastrados já chegam (o saldo já está na linha)
+     */
+    @Transactional
+    public void registrarSaldosIniciais(List<Paciente> pacientes) {
+        List<LancamentoFidelidade> lancamentos = pacientes.stream()
+                .filter(paciente -> paciente.getFidelidade() != null && paciente.getFidelidade() != 0)
+                .map(paciente -> novoLancamento(paciente.getId(), paciente.getFidelidade(),
+                        LancamentoFidelidade.Origem.SALDO_INICIAL, null))
+                .toList();
+        lancamentoRepository.saveAll(lancamentos);
+    }
+
+    public List<LancamentoFidelidade> extrato(Long pacienteId, int limite) {
+        return lancamentoRepository.findByPacienteIdOrderByCriadoEmDescIdDesc(pacienteId, PageRequest.ofSize(limite));
+    }
+
+    @Transactional
+    public void removerDoPaciente(Long pacienteId) {
+        lancamentoRepository.removerDoPaciente(pacienteId);
+    }
+
+    @Scheduled(cron = "${odonto.fidelidade.compactacao.cron:0 30 3 * * *}")
+    public void compactarAntigos() {
+        int compactados = compactar(LocalDateTime.now().minusDays(retencaoDias));
+        if (compactados > 0) {
+            log.info("Extrato de fidelidade compactado para {} pacientes", compactados);
+        }
+    }
+
+    /**
+     * Substitui os lançamentos de cada paciente anteriores ao limite por um único lançamento com a soma,
+     * um paciente por transação; o saldo não muda. Retorna quantos pacientes foram compactados.
+     */
+    public int compactar(LocalDateTime limite) {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        int total = 0;
+        List<SaldoLancamentos> compactaveis;
+        do {
+            compactaveis = lancamentoRepository.listarCompactaveis(limite, PageRequest.ofSize(LOTE_COMPACTACAO));
+            // lançamentos anteriores ao limite não mudam mais (só a compactação os remove),
+            // então a soma lida fora da transação continua valendo dentro dela
+            for (SaldoLancamentos saldo : compactaveis) {
+                transacao.executeWithoutResult(status -> {
+                    lancamentoRepository.removerAnteriores(saldo.getPacienteId(), limite);
+                    LancamentoFidelidade resumo = novoLancamento(saldo.getPacienteId(), Math.toIntExact(saldo.getPontos()),
+                            LancamentoFidelidade.Origem.COMPACTACAO, null);
+                    resumo.setCriadoEm(saldo.getUltimo());
+                    lancamentoRepository.save(resumo);
+                });
+                total++;
+            }
+        } while (compactaveis.size() == LOTE_COMPACTACAO);
+        return total;
+    }
+
+    private static LancamentoFidelidade novoLancamento(Long pacienteId, int pontos,
+                                                       LancamentoFidelidade.Origem origem, Long referenciaId) {
+        return LancamentoFidelidade.builder()
+                .pacienteId(pacienteId)
+                .pontos(pontos)
+                .origem(origem)
+                .referenciaId(referenciaId)
+                .criadoEm(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,363 @@
+package com.odonto.sistema_odontologico.services;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.odonto.sistema_odontologico.config.MetricasConfig;
+import com.odonto.sistema_odontologico.dto.ErroImportacaoDTO;
+import com.odonto.sistema_odontologico.dto.NomeIndexado;
+import com.odonto.sistema_odontologico.dto.ResultadoImportacaoDTO;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Importação em massa de pacientes e materiais a partir de CSV ou JSON.
+ * O arquivo é lido registro a registro (nunca inteiro em memória), cada registro passa pelas mesmas
+ * validações do cadastro individual e os válidos são gravados em blocos com JDBC batch.
+ * Nomes repetidos (ignorando acentos e maiúsculas), no banco ou no próprio arquivo, são descartados.
+ */
+@Service
+@Timed(value = MetricasConfig.METRICA_SERVICOS, histogram = true)
+public class ImportacaoService {
+
+    public enum Formato {
+        CSV, JSON;
+
+        /**
+         * text/csv é lido como CSV; application/json e application/x-ndjson como JSON
+         */
+        public static Formato doTipo(String contentType) {
+            return contentType != null && contentType.toLowerCase(Locale.ROOT).contains("csv") ? CSV : JSON;
+        }
+    }
+
+    // registros gravados por flush; múltiplo de hibernate.jdbc.batch_size
+    static final int TAMANHO_BLOCO = 500;
+
+    // o resultado lista só os primeiros erros para não crescer com arquivos muito ruins
+    static final int MAXIMO_ERROS_LISTADOS = 1000;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private BuscaNomeService buscaNomeService;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    @Autowired
+    private FidelidadeService fidelidadeService;
+
+    @Autowired
+    private EstoqueEngine estoqueEngine;
+
+    @Autowired
+    private AlertaEstoqueService alertaEstoqueService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Transactional
+    public ResultadoImportacaoDTO importarPacientes(InputStream entrada, Formato formato) throws IOException {
+        Set<String> existentes = nomesNormalizados(pacienteRepository.listarNomes());
+        return importar(entrada, formato, Paciente.class, existentes,
+                paciente -> {
+                    paciente.setId(null);
+                    if (paciente.getFidelidade() == null) {
+                        paciente.setFidelidade(0);
+                    }
+                },
+                Paciente::getNomePaciente,
+                bloco -> {
+                    pacienteRepository.saveAll(bloco);
+                    fidelidadeService.registrarSaldosIniciais(bloco);
+                    bloco.forEach(p -> buscaNomeService.indexar(BuscaNomeService.Tipo.PACIENTE, p.getId(), p.getNomePaciente()));
+                    versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.PACIENTE);
+                });
+    }
+
+    @Transactional
+    public ResultadoImportacaoDTO importarMateriais(InputStream entrada, Formato formato) throws IOException {
+        Set<String> existentes = nomesNormalizados(materialRepository.listarNomes());
+        return importar(entrada, formato, Material.class, existentes,
+                material -> {
+                    material.setId(null);
+                    if (material.getQuantidade() == null) {
+                        material.setQuantidade(0);
+                    }
+                },
+                Material::getNomeMaterial,
+                bloco -> {
+                    materialRepository.saveAll(bloco);
+                    for (Material material : bloco) {
+                        estoqueEngine.registrar(material);
+                        alertaEstoqueService.definirLimite(material);
+                        buscaNomeService.indexar(BuscaNomeService.Tipo.MATERIAL, material.getId(), material.getNomeMaterial());
+                    }
+                    versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.MATERIAL);
+                });
+    }
+
+    private <T> ResultadoImportacaoDTO importar(InputStream entrada, Formato formato, Class<T> tipo, Set<String> existentes,
+                                                Consumer<T> preparar, Function<T, String> nomeDe,
+                                                Consumer<List<T>> gravar) throws IOException {
+        long inicio = System.nanoTime();
+        Contagem contagem = new Contagem();
+        List<T> bloco = new ArrayList<>(TAMANHO_BLOCO);
+
+        Consumer<Registro<T>> processar = registro -> {
+            contagem.total++;
+            if (registro.erro() != null) {
+                contagem.falha(registro.linha(), registro.erro());
+                return;
+            }
+            T valor = registro.valor();
+            preparar.accept(valor);
+            Set<ConstraintViolation<T>> violacoes = validator.validate(valor);
+            if (!violacoes.isEmpty()) {
+                contagem.falha(registro.linha(), violacoes.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            String nome = nomeDe.apply(valor);
+            if (!existentes.add(IndiceTrigramas.normalizar(nome))) {
+                contagem.duplicado(registro.linha(), nome);
+                return;
+            }
+            bloco.add(valor);
+            if (bloco.size() == TAMANHO_BLOCO) {
+                contagem.importados += gravarBloco(bloco, gravar);
+            }
+        };
+
+        if (formato == Formato.CSV) {
+            lerCsv(entrada, tipo, processar);
+        } else {
+            lerJson(entrada, tipo, processar);
+        }
+        contagem.importados += gravarBloco(bloco, gravar);
+
+        long nanos = System.nanoTime() - inicio;
+        return ResultadoImportacaoDTO.builder()
+                .total(contagem.total)
+                .importados(contagem.importados)
+                .duplicados(contagem.duplicados)
+                .falhas(contagem.falhas)
+                .duracaoMs(nanos / 1_000_000)
+                .linhasPorSegundo(nanos == 0 ? 0 : contagem.total * 1_000_000_000.0 / nanos)
+                .erros(contagem.erros)
+                .build();
+    }
+
+    /**
+     * Grava o bloco e limpa o contexto de persistência para a memória não crescer com o arquivo
+     */
+    private <T> int gravarBloco(List<T> bloco, Consumer<List<T>> gravar) {
+        if (bloco.isEmpty()) {
+            return 0;
+        }
+        gravar.accept(bloco);
+        entityManager.flush();
+        entityManager.clear();
+        int gravados = bloco.size();
+        bloco.clear();
+        return gravados;
+    }
+
+    /**
+     * Lê um array JSON ou uma sequência de objetos (NDJSON); um item com tipo errado é recusado
+     * e a leitura continua no item seguinte, já JSON malformado encerra a leitura
+     */
+    private <T> void lerJson(InputStream entrada, Class<T> tipo, Consumer<Registro<T>> processar) throws IOException {
+        try (MappingIterator<T> itens = objectMapper.readerFor(tipo).readValues(entrada)) {
+            long posicao = 0;
+            while (true) {
+                try {
+                    if (!itens.hasNextValue()) {
+                        return;
+                    }
+                    posicao++;
+                    processar.accept(new Registro<>(posicao, itens.nextValue(), null));
+                } catch (JsonParseException e) {
+                    processar.accept(new Registro<>(Math.max(posicao, 1), null, "JSON inválido: " + e.getOriginalMessage()));
+                    return;
+                } catch (JsonProcessingException e) {
+                    processar.accept(new Registro<>(posicao, null, "Registro inválido: " + e.getOriginalMessage()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Lê CSV com cabeçalho (nomes das colunas iguais aos campos da entidade), separado por vírgula
+     * ou ponto e vírgula, com aspas no formato RFC 4180
+     */
+    private <T> void lerCsv(InputStream entrada, Class<T> tipo, Consumer<Registro<T>> processar) throws IOException {
+        BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        String cabecalho = leitor.readLine();
+        if (cabecalho == null) {
+            return;
+        }
+        // BOM gravado pelo Excel ao salvar CSV UTF-8
+        if (cabecalho.startsWith("\uFEFF")) {
+            cabecalho = cabecalho.substring(1);
+        }
+        char separador = cabecalho.indexOf(';') >= 0 && cabecalho.indexOf(',') < 0 ? ';' : ',';
+        List<String> colunas = separarCampos(cabecalho, separador).stream().map(String::trim).toList();
+
+        long numeroLinha = 1;
+        String linha;
+        while ((linha = leitor.readLine()) != null) {
+            numeroLinha++;
+            long linhaInicial = numeroLinha;
+            // campo entre aspas pode conter quebra de linha: junta as linhas até fechar as aspas
+            while (aspasAbertas(linha)) {
+                String continuacao = leitor.readLine();
+                if (continuacao == null) {
+                    break;
+                }
+                numeroLinha++;
+                linha = linha + "\n" + continuacao;
+            }
+            if (linha.isBlank()) {
+                continue;
+            }
+            List<String> campos = separarCampos(linha, separador);
+            if (campos.size() != colunas.size()) {
+                processar.accept(new Registro<>(linhaInicial, null,
+                        "Esperadas " + colunas.size() + " colunas, encontradas " + campos.size()));
+                continue;
+            }
+            Map<String, String> valores = new HashMap<>();
+            for (int i = 0; i < colunas.size(); i++) {
+                String campo = campos.get(i).trim();
+                valores.put(colunas.get(i), campo.isEmpty() ? null : campo);
+            }
+            try {
+                processar.accept(new Registro<>(linhaInicial, objectMapper.convertValue(valores, tipo), null));
+            } catch (IllegalArgumentException e) {
+                processar.accept(new Registro<>(linhaInicial, null, "Registro inválido: " + causaRaiz(e)));
+            }
+        }
+    }
+
+    static List<String> separarCampos(String linha, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreAspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == separador) {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+
+    private static boolean aspasAbertas(String linha) {
+        int aspas = 0;
+        for (int i = 0; i < linha.length(); i++) {
+            if (linha.charAt(i) == '"') {
+                aspas++;
+            }
+        }
+        return aspas % 2 != 0;
+    }
+
+    private static String causaRaiz(Throwable e) {
+        Throwable causa = e;
+        while (causa.getCause() != null) {
+            causa = causa.getCause();
+        }
+        return causa instanceof JsonProcessingException json ? json.getOriginalMessage() : causa.getMessage();
+    }
+
+    private static Set<String> nomesNormalizados(List<NomeIndexado> nomes) {
+        Set<String> normalizados = new HashSet<>(nomes.size() * 2);
+        for (NomeIndexado nome : nomes) {
+            normalizados.add(IndiceTrigramas.normalizar(nome.getNome()));
+        }
+        return normalizados;
+    }
+
+    private record Registro<T>(long linha, T valor, String erro) {
+    }
+
+    private static class Contagem {
+        long total;
+        long importados;
+        long duplicados;
+        long falhas;
+        final List<ErroImportacaoDTO> erros = new ArrayList<>();
+
+        void falha(long linha, String erro) {
+            falhas++;
+            listar(linha, erro);
+        }
+
+        void duplicado(long linha, String nome) {
+            duplicados++;
+            listar(linha, "Nome já cadastrado: " + nome);
+        }
+
+        private void listar(long linha, String erro) {
+            if (erros.size() < MAXIMO_ERROS_LISTADOS) {
+                erros.add(new ErroImportacaoDTO(linha, erro));
+            }
+        }
+    }
+}
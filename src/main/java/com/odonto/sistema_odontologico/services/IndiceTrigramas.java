@@ -0,0 +1,214 @@
+package com.odonto.sistema_odontologico.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice de trigramas em memória para busca de nomes por trecho ("contém"), sem acento e sem
+ * diferenciar maiúsculas. Cada nome normalizado é quebrado em trigramas ("joão" -> "joa", "oao");
+ * a busca intersecta as listas de ids dos trigramas do termo e confirma o trecho só nesses candidatos.
+ * Resultados ordenados por relevância: nome que começa com o termo, palavra que começa com o termo,
+ * demais; empate pelo nome mais curto.
+ */
+class IndiceTrigramas {
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+
+    private final Map<Long, String> nomes = new HashMap<>();
+    private final Map<String, Set<Long>> trigramas = new HashMap<>();
+
+    // ids removidos enquanto a carga inicial ainda não terminou
+    private final Set<Long> removidosDuranteCarga = new HashSet<>();
+    private boolean pronto;
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+
+    /**
+     * Remove acentos, passa para minúsculas e junta espaços repetidos
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String semAcento = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACOS.matcher(semAcento.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Inclui ou atualiza o nome de um registro
+     */
+    void indexar(Long id, String nome) {
+        trava.writeLock().lock();
+        try {
+            removerInterno(id);
+            String normalizado = normalizar(nome);
+            nomes.put(id, normalizado);
+            for (String trigrama : trigramasDe(normalizado)) {
+                trigramas.computeIfAbsent(trigrama, t -> new HashSet<>()).add(id);
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Inclui um registro lido na carga inicial, sem sobrescrever alterações feitas durante a carga
+     */
+    void carregar(Long id, String nome) {
+        trava.writeLock().lock();
+        try {
+            if (!nomes.containsKey(id) && !removidosDuranteCarga.contains(id)) {
+                indexar(id, nome);
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    void remover(Long id) {
+        trava.writeLock().lock();
+        try {
+            removerInterno(id);
+            if (!pronto) {
+                removidosDuranteCarga.add(id);
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    void marcarPronto() {
+        trava.writeLock().lock();
+        try {
+            pronto = true;
+            removidosDuranteCarga.clear();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    boolean isPronto() {
+        trava.readLock().lock();
+        try {
+            return pronto;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    int tamanho() {
+        trava.readLock().lock();
+        try {
+            return nomes.size();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids dos registros cujo nome contém o termo, do mais relevante para o menos relevante
+     */
+    List<Long> buscar(String termo, int limite) {
+        String normalizado = normalizar(termo);
+        if (normalizado.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        trava.readLock().lock();
+        try {
+            Collection<Long> candidatos = candidatos(normalizado);
+            String inicioDePalavra = " " + normalizado;
+
+            // mantém só os "limite" melhores: o topo da fila é o pior entre eles
+            Comparator<Long> relevancia = Comparator
+                    .comparingInt((Long id) -> categoria(nomes.get(id), normalizado, inicioDePalavra))
+                    .thenComparingInt(id -> nomes.get(id).length())
+                    .thenComparing(id -> id);
+            PriorityQueue<Long> melhores = new PriorityQueue<>(relevancia.reversed());
+            for (Long id : candidatos) {
+                if (!nomes.get(id).contains(normalizado)) {
+                    continue;
+                }
+                melhores.add(id);
+                if (melhores.size() > limite) {
+                    melhores.poll();
+                }
+            }
+
+            List<Long> resultado = new ArrayList<>(melhores);
+            resultado.sort(relevancia);
+            return resultado;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    private Collection<Long> candidatos(String normalizado) {
+        // termos com menos de 3 letras não têm trigrama: verifica todos os nomes
+        if (normalizado.length() < 3) {
+            return nomes.keySet();
+        }
+        Set<String> trigramasTermo = trigramasDe(normalizado);
+        List<Set<Long>> listas = new ArrayList<>(trigramasTermo.size());
+        for (String trigrama : trigramasTermo) {
+            Set<Long> ids = trigramas.get(trigrama);
+            if (ids == null) {
+                return List.of();
+            }
+            listas.add(ids);
+        }
+        // intersecção começando pela menor lista
+        listas.sort(Comparator.comparingInt(Set::size));
+        Set<Long> resultado = new HashSet<>(listas.get(0));
+        for (int i = 1; i < listas.size() && !resultado.isEmpty(); i++) {
+            resultado.retainAll(listas.get(i));
+        }
+        return resultado;
+    }
+
+    private static int categoria(String nome, String termo, String inicioDePalavra) {
+        if (nome.startsWith(termo)) {
+            return 0;
+        }
+        if (nome.contains(inicioDePalavra)) {
+            return 1;
+        }
+        return 2;
+    }
+
+    private void removerInterno(Long id) {
+        String anterior = nomes.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        for (String trigrama : trigramasDe(anterior)) {
+            Set<Long> ids = trigramas.get(trigrama);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    trigramas.remove(trigrama);
+                }
+            }
+        }
+    }
+
+    private static Set<String> trigramasDe(String normalizado) {
+        Set<String> resultado = new HashSet<>();
+        for (int i = 0; i + 3 <= normalizado.length(); i++) {
+            resultado.add(normalizado.substring(i, i + 3));
+        }
+        return resultado;
+    }
+}
@@ -1,42 +1,125 @@
 package com.odonto.sistema_odontologico.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.odonto.sistema_odontologico.config.MetricasConfig;
+import com.odonto.sistema_odontologico.dto.PaginaCursor;
 import com.odonto.sistema_odontologico.models.Material;
 import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Service responsável APENAS pela lógica de negócio de Material (SRP - Single Responsibility Principle)
  */
 @Service
+@Timed(value = MetricasConfig.METRICA_SERVICOS, histogram = true)
 public class MaterialService {
 
     @Autowired
     private MaterialRepository materialRepository;
 
+    @Autowired
+    private BuscaNomeService buscaNomeService;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    @Autowired
+    private EstoqueEngine estoqueEngine;
+
+    @Autowired
+    private AlertaEstoqueService alertaEstoqueService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // pedidos recusados por falta de estoque (tag operacao: remover_estoque, procedimento, lote)
+    static final String METRICA_REJEICOES_ESTOQUE = "odonto.estoque.rejeicoes";
+
+    // a cada N linhas do stream o contexto de persistência é limpo para manter a memória constante
+    private static final int LIMPAR_CONTEXTO_A_CADA = 500;
+
     @Transactional
     public Material cadastrarMaterial(Material material) {
         // Validação de negócio
         if (material.getQuantidade() == null) {
             material.setQuantidade(0);
         }
-        return materialRepository.save(material);
+        Material materialSalvo = materialRepository.save(material);
+        estoqueEngine.registrar(materialSalvo);
+        alertaEstoqueService.definirLimite(materialSalvo);
+        buscaNomeService.indexar(BuscaNomeService.Tipo.MATERIAL, materialSalvo.getId(), materialSalvo.getNomeMaterial());
+        versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.MATERIAL);
+        return materialSalvo;
     }
 
     public List<Material> listarTodos() {
         return materialRepository.findAll();
     }
 
+    /**
+     * Paginação por cursor (keyset) ordenada por id
+     */
+    public PaginaCursor<Material> listarPagina(String cursor, Integer tamanho) {
+        int limite = PaginaCursor.limitarTamanho(tamanho);
+        Long ultimoId = cursor == null || cursor.isBlank() ? 0L : Long.valueOf(cursor);
+        // busca um item a mais para saber se existe próxima página
+        List<Material> materiais = materialRepository.findByIdGreaterThanOrderByIdAsc(ultimoId, PageRequest.ofSize(limite + 1));
+        return PaginaCursor.de(materiais, limite, item -> String.valueOf(item.getId()));
+    }
+
+    /**
+     * Escreve todos os materiais em NDJSON (um JSON por linha) lendo do banco em stream
+     */
+    @Transactional(readOnly = true)
+    public void escreverNdjson(OutputStream saida) throws IOException {
+        try (Stream<Material> materiais = materialRepository.streamTodos()) {
+            Iterator<Material> iterator = materiais.iterator();
+            int contador = 0;
+            while (iterator.hasNext()) {
+                saida.write(objectMapper.writeValueAsBytes(iterator.next()));
+                saida.write('\n');
+                if (++contador % LIMPAR_CONTEXTO_A_CADA == 0) {
+                    entityManager.clear();
+                    saida.flush();
+                }
+            }
+        }
+    }
+
     public Optional<Material> buscarPorId(Long id) {
         return materialRepository.findById(id);
     }
 
-    public List<Material> buscarPorNome(String nome) {
-        return materialRepository.findByNomeMaterialContainingIgnoreCase(nome);
+    /**
+     * Busca por trecho do nome (sem acento), ordenada por relevância, usando o índice em memória;
+     * consulta o banco apenas enquanto o índice ainda está sendo carregado
+     */
+    public List<Material> buscarPorNome(String nome, int limite) {
+        return buscaNomeService.buscar(BuscaNomeService.Tipo.MATERIAL, nome, limite)
+                .map(ids -> BuscaNomeService.ordenarPorIds(materialRepository.findAllById(ids), ids, Material::getId))
+                .orElseGet(() -> materialRepository.findByNomeMaterialContainingIgnoreCase(nome).stream()
+                        .limit(limite)
+                        .toList());
     }
 
     public List<Material> buscarPorReutilizavel(Boolean reutilizavel) {
@@ -54,11 +137,16 @@ public class MaterialService {
 
         // Atualiza os campos
         materialExistente.setNomeMaterial(materialAtualizado.getNomeMaterial());
-        materialExistente.setQuantidade(materialAtualizado.getQuantidade());
         materialExistente.setValor(materialAtualizado.getValor());
         materialExistente.setReutilizavel(materialAtualizado.getReutilizavel());
-
-        return materialRepository.save(materialExistente);
+        estoqueEngine.definirQuantidade(materialExistente, materialAtualizado.getQuantidade());
+        materialExistente.setPontoReposicao(materialAtualizado.getPontoReposicao());
+        alertaEstoqueService.definirLimite(materialExistente);
+
+        Material materialSalvo = materialRepository.saveAndFlush(materialExistente);
+        buscaNomeService.indexar(BuscaNomeService.Tipo.MATERIAL, id, materialSalvo.getNomeMaterial());
+        versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.MATERIAL);
+        return estoqueEngine.refletirEstoque(materialSalvo);
     }
 
     @Transactional
@@ -68,39 +156,54 @@ public class MaterialService {
         }
         // TODO: Verificar se há procedimentos associados antes de deletar
         materialRepository.deleteById(id);
+        estoqueEngine.remover(id);
+        alertaEstoqueService.removerLimite(id);
+        buscaNomeService.remover(BuscaNomeService.Tipo.MATERIAL, id);
+        versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.MATERIAL);
     }
 
+    /**
+     * Soma quantidade ao estoque de forma atômica (não perde atualizações concorrentes)
+     */
     @Transactional
     public Material adicionarEstoque(Long id, Integer quantidade) {
-        Material material = materialRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Material não encontrado com ID: " + id));
-
         if (quantidade <= 0) {
             throw new IllegalArgumentException("Quantidade deve ser positiva");
         }
 
-        material.setQuantidade(material.getQuantidade() + quantidade);
-        return materialRepository.save(material);
+        if (!estoqueEngine.adicionar(id, quantidade)) {
+            throw new RuntimeException("Material não encontrado com ID: " + id);
+        }
+        versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.MATERIAL);
+
+        Material material = materialRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Material não encontrado com ID: " + id));
+        return estoqueEngine.refletirEstoque(material);
     }
 
     /**
      * Remove quantidade do estoque de um material, quando material NÃO é reutilizável e é usado em procedimento
+     * O desconto só é aplicado se houver estoque suficiente, então duas requisições simultâneas
+     * nunca consomem a mesma unidade
      */
     @Transactional
     public Material removerEstoque(Long id, Integer quantidade) {
-        Material material = materialRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Material não encontrado com ID: " + id));
-
         if (quantidade <= 0) {
             throw new IllegalArgumentException("Quantidade deve ser positiva");
         }
 
-        if (material.getQuantidade() < quantidade) {
+        boolean descontado = estoqueEngine.descontar(id, quantidade);
+
+        Material material = materialRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Material não encontrado com ID: " + id));
+        estoqueEngine.refletirEstoque(material);
+
+        if (!descontado) {
+            meterRegistry.counter(METRICA_REJEICOES_ESTOQUE, "operacao", "remover_estoque").increment();
             throw new RuntimeException("Estoque insuficiente. Disponível: " + material.getQuantidade());
         }
-
-        material.setQuantidade(material.getQuantidade() - quantidade);
-        return materialRepository.save(material);
+        versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.MATERIAL);
+        return material;
     }
 
     public boolean verificarEstoque(Long id, Integer quantidadeNecessaria) {
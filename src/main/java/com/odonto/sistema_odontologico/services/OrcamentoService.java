@@ -0,0 +1,171 @@
+package com.odonto.sistema_odontologico.services;
+
+import com.odonto.sistema_odontologico.config.MetricasConfig;
+import com.odonto.sistema_odontologico.dto.DetalhamentoPrecoDTO;
+import com.odonto.sistema_odontologico.dto.ItemOrcamentoDTO;
+import com.odonto.sistema_odontologico.dto.ProcedimentoDTO;
+import com.odonto.sistema_odontologico.dto.ResultadoOrcamentoDTO;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Orçamento de planos de tratamento: calcula o preço de vários procedimentos sem gravar nada
+ * (sem descontar estoque nem somar fidelidade). Pacientes e materiais são buscados em uma consulta
+ * cada; o cálculo dos itens roda em paralelo em um ForkJoinPool próprio, para não disputar
+ * o pool comum com o resto da aplicação.
+ */
+@Service
+@Timed(value = MetricasConfig.METRICA_SERVICOS, histogram = true)
+public class OrcamentoService {
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private CalculadoraPrecoService calculadoraPrecoService;
+
+    @Autowired
+    private Validator validator;
+
+    // 0 = um worker por núcleo disponível
+    @Value("${odonto.orcamento.paralelismo:0}")
+    private int paralelismo;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void iniciar() {
+        pool = new ForkJoinPool(paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        pool.shutdown();
+    }
+
+    @Transactional(readOnly = true)
+    public ResultadoOrcamentoDTO orcar(List<ProcedimentoDTO> dtos) {
+        Set<Long> pacienteIds = new HashSet<>();
+        Set<Long> materialIds = new HashSet<>();
+        for (ProcedimentoDTO dto : dtos) {
+            if (dto.getPacienteId() != null) {
+                pacienteIds.add(dto.getPacienteId());
+            }
+            if (dto.getMateriaisIds() != null) {
+                dto.getMateriaisIds().stream().filter(Objects::nonNull).forEach(materialIds::add);
+            }
+        }
+
+        Map<Long, Paciente> pacientes = new HashMap<>();
+        pacienteRepository.findAllById(pacienteIds).forEach(p -> pacientes.put(p.getId(), p));
+        Map<Long, Material> materiais = new HashMap<>();
+        materialRepository.findAllById(materialIds).forEach(m -> materiais.put(m.getId(), m));
+
+        // validação e montagem são baratas: o que vai para o pool é só o cálculo
+        ItemOrcamentoDTO[] itens = new ItemOrcamentoDTO[dtos.size()];
+        List<Integer> indices = new ArrayList<>();
+        List<Procedimento> procedimentos = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            ProcedimentoDTO dto = dtos.get(i);
+
+            Set<ConstraintViolation<ProcedimentoDTO>> violacoes = validator.validate(dto);
+            if (!violacoes.isEmpty()) {
+                itens[i] = ItemOrcamentoDTO.falha(i, violacoes.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .collect(Collectors.joining("; ")));
+                continue;
+            }
+
+            Paciente paciente = pacientes.get(dto.getPacienteId());
+            if (paciente == null) {
+                itens[i] = ItemOrcamentoDTO.falha(i, "Paciente não encontrado com ID: " + dto.getPacienteId());
+                continue;
+            }
+
+            List<Material> materiaisItem = new ArrayList<>();
+            for (Long materialId : new LinkedHashSet<>(dto.getMateriaisIds())) {
+                Material material = materiais.get(materialId);
+                if (material != null) {
+                    materiaisItem.add(material);
+                }
+            }
+            if (materiaisItem.size() != dto.getMateriaisIds().size()) {
+                itens[i] = ItemOrcamentoDTO.falha(i, "Alguns materiais não foram encontrados");
+                continue;
+            }
+
+            indices.add(i);
+            procedimentos.add(ProcedimentoService.novoProcedimento(dto, paciente, materiaisItem));
+        }
+
+        List<ItemOrcamentoDTO> precificados = precificar(pool, calculadoraPrecoService, procedimentos);
+        BigDecimal valorTotal = BigDecimal.ZERO;
+        for (int j = 0; j < precificados.size(); j++) {
+            ItemOrcamentoDTO item = precificados.get(j);
+            item.setIndice(indices.get(j));
+            itens[item.getIndice()] = item;
+            valorTotal = valorTotal.add(item.getValorFinal());
+        }
+
+        return ResultadoOrcamentoDTO.builder()
+                .total(dtos.size())
+                .precificados(precificados.size())
+                .falhas(dtos.size() - precificados.size())
+                .valorTotal(valorTotal)
+                .itens(List.of(itens))
+                .build();
+    }
+
+    /**
+     * Calcula valor final e composição do preço de cada procedimento em paralelo no pool informado,
+     * mantendo a ordem da lista. Os procedimentos não podem depender de carregamento lazy.
+     */
+    static List<ItemOrcamentoDTO> precificar(ForkJoinPool pool, CalculadoraPrecoService calculadora,
+                                             List<Procedimento> procedimentos) {
+        // um stream paralelo iniciado dentro do pool usa os workers desse pool
+        return pool.submit(() -> IntStream.range(0, procedimentos.size())
+                .parallel()
+                .mapToObj(i -> {
+                    Procedimento procedimento = procedimentos.get(i);
+                    // valor final e composição saem do mesmo cálculo
+                    DetalhamentoPrecoDTO detalhamento = calculadora.calcularDetalhamento(procedimento);
+                    return ItemOrcamentoDTO.builder()
+                            .indice(i)
+                            .sucesso(true)
+                            .nomeProcedimento(procedimento.getNomeProcedimento())
+                            .pacienteId(procedimento.getPaciente().getId())
+                            .valorFinal(detalhamento.getValorFinal())
+                            .detalhamento(detalhamento)
+                            .build();
+                })
+                .toList()).join();
+    }
+}
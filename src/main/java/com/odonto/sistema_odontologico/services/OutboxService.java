@@ -0,0 +1,246 @@
+package com.odonto.sistema_odontologico.services;
+
+import com.odonto.sistema_odontologico.config.MetricasConfig;
+import com.odonto.sistema_odontologico.models.EventoOutbox;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import com.odonto.sistema_odontologico.repositories.EventoOutboxRepository;
+import com.odonto.sistema_odontologico.repositories.ProcedimentoRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbox transacional dos efeitos derivados do cadastro de procedimento (pontos de fidelidade,
+ * resumos de relatório e versões dos ETags). O cadastro só grava o evento na
+ * própria transação; depois do commit uma thread local aplica o efeito, e uma varredura periódica
+ * retoma o que ficou pendente (falha ou reinício da aplicação): entrega ao menos uma vez.
+ * Cada evento é aplicado em uma transação que começa apagando a linha do outbox: se outro
+ * processador já o aplicou o DELETE não encontra nada e o efeito não se repete.
+ * Com odonto.outbox.habilitado=false os efeitos são aplicados na transação do cadastro.
+ */
+@Service
+@Timed(value = MetricasConfig.METRICA_SERVICOS, histogram = true)
+public class OutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxService.class);
+
+    private static final int TAMANHO_ERRO = 500;
+
+    private enum Resultado { APLICADO, JA_APLICADO, FALHOU }
+
+    // uma execução em andamento e no máximo uma na fila: avisos extras seriam atendidos pela que já está na fila
+    private final ThreadPoolExecutor despacho = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1), tarefa -> {
+                Thread thread = new Thread(tarefa, "outbox");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+    @Value("${odonto.outbox.habilitado:true}")
+    private boolean habilitado;
+
+    @Value("${odonto.outbox.tamanho-lote:100}")
+    private int tamanhoLote;
+
+    @Value("${odonto.outbox.maximo-tentativas:10}")
+    private int maximoTentativas;
+
+    @Autowired
+    private EventoOutboxRepository eventoOutboxRepository;
+
+    @Autowired
+    private ProcedimentoRepository procedimentoRepository;
+
+    @Autowired
+    private FidelidadeService fidelidadeService;
+
+    @Autowired
+    private RelatorioService relatorioService;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter processados;
+    private Counter falhas;
+    private Timer atraso;
+
+    @PostConstruct
+    public void registrarMetricas() {
+        processados = meterRegistry.counter("odonto.outbox.eventos", "resultado", "processado");
+        falhas = meterRegistry.counter("odonto.outbox.eventos", "resultado", "falha");
+        // tempo entre o commit da escrita e a aplicação dos efeitos
+        atraso = meterRegistry.timer("odonto.outbox.atraso");
+    }
+
+    /**
+     * Registra o evento na transação atual e agenda o despacho para depois do commit;
+     * com o outbox desabilitado aplica o efeito imediatamente, na mesma transação
+     */
+    public void publicar(EventoOutbox.Tipo tipo, Long agregadoId) {
+        if (!habilitado) {
+            aplicar(tipo, agregadoId);
+            return;
+        }
+        eventoOutboxRepository.save(EventoOutbox.builder()
+                .tipo(tipo)
+                .agregadoId(agregadoId)
+                .criadoEm(LocalDateTime.now())
+                .tentativas(0)
+                .build());
+        AcoesTransacao.aposConfirmar(this::acordar);
+    }
+
+    /**
+     * Um evento por agregado, gravados em lote, com um único despacho agendado para depois do commit
+     */
+    public void publicar(EventoOutbox.Tipo tipo, Collection<Long> agregadoIds) {
+        if (!habilitado) {
+            agregadoIds.forEach(agregadoId -> aplicar(tipo, agregadoId));
+            return;
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        eventoOutboxRepository.saveAll(agregadoIds.stream()
+                .map(agregadoId -> EventoOutbox.builder()
+                        .tipo(tipo)
+                        .agregadoId(agregadoId)
+                        .criadoEm(agora)
+                        .tentativas(0)
+                        .build())
+                .toList());
+        AcoesTransacao.aposConfirmar(this::acordar);
+    }
+
+    /**
+     * Descarta eventos ainda não aplicados do registro (chamado na transação que o exclui).
+     * Retorna true se havia evento pendente, ou seja, se os efeitos nunca chegaram a ser aplicados.
+     * Se o evento estiver sendo aplicado neste momento, o DELETE espera o fim daquela transação.
+     */
+    public boolean descartar(EventoOutbox.Tipo tipo, Long agregadoId) {
+        return eventoOutboxRepository.descartar(tipo, agregadoId) > 0;
+    }
+
+    public void acordar() {
+        despacho.execute(this::processarPendentes);
+    }
+
+    /**
+     * Varredura de segurança: eventos de transações confirmadas antes de um reinício, que falharam
+     * ou que ficaram na tabela quando o outbox foi desabilitado
+     */
+    @Scheduled(fixedDelayString = "${odonto.outbox.intervalo-varredura-ms:5000}")
+    public void varrer() {
+        acordar();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        despacho.shutdownNow();
+    }
+
+    /**
+     * Aplica os eventos pendentes em ordem de gravação, um por transação; retorna quantos foram aplicados
+     */
+    public int processarPendentes() {
+        int aplicados = 0;
+        boolean continuar;
+        do {
+            List<EventoOutbox> pendentes = eventoOutboxRepository.listarPendentes(maximoTentativas, PageRequest.of(0, tamanhoLote));
+            int falhasLote = 0;
+            for (EventoOutbox evento : pendentes) {
+                switch (processar(evento)) {
+                    case APLICADO -> aplicados++;
+                    case FALHOU -> falhasLote++;
+                    case JA_APLICADO -> { }
+                }
+            }
+            // lote cheio: pode haver mais; se tudo falhou, o próximo lote seria o mesmo
+            continuar = pendentes.size() == tamanhoLote && falhasLote < pendentes.size();
+        } while (continuar && !Thread.currentThread().isInterrupted());
+        return aplicados;
+    }
+
+    public long totalPendentes() {
+        return eventoOutboxRepository.count();
+    }
+
+    private Resultado processar(EventoOutbox evento) {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        try {
+            Boolean aplicado = transacao.execute(status -> {
+                if (eventoOutboxRepository.reivindicar(evento.getId()) == 0) {
+                    return false;
+                }
+                aplicar(evento.getTipo(), evento.getAgregadoId());
+                return true;
+            });
+            if (!Boolean.TRUE.equals(aplicado)) {
+                return Resultado.JA_APLICADO;
+            }
+            processados.increment();
+            atraso.record(Duration.between(evento.getCriadoEm(), LocalDateTime.now()).toMillis(), TimeUnit.MILLISECONDS);
+            return Resultado.APLICADO;
+        } catch (RuntimeException e) {
+            falhas.increment();
+            int tentativa = evento.getTentativas() + 1;
+            if (tentativa >= maximoTentativas) {
+                log.error("Evento {} {} do registro {} falhou {} vezes e não será mais tentado",
+                        evento.getId(), evento.getTipo(), evento.getAgregadoId(), tentativa, e);
+            } else {
+                log.warn("Falha ao aplicar evento {} {} do registro {}, nova tentativa na próxima varredura",
+                        evento.getId(), evento.getTipo(), evento.getAgregadoId(), e);
+            }
+            String erro = String.valueOf(e.getMessage());
+            transacao.executeWithoutResult(status -> eventoOutboxRepository.registrarFalha(evento.getId(),
+                    erro.length() > TAMANHO_ERRO ? erro.substring(0, TAMANHO_ERRO) : erro));
+            return Resultado.FALHOU;
+        }
+    }
+
+    private void aplicar(EventoOutbox.Tipo tipo, Long agregadoId) {
+        switch (tipo) {
+            case PROCEDIMENTO_CADASTRADO -> procedimentoCadastrado(agregadoId);
+        }
+    }
+
+    /**
+     * Efeitos do cadastro de um procedimento. Os do banco vão na transação que apaga o evento;
+     * a versão é em memória, aplicada após o commit e idempotente (incrementar de novo só invalida
+     * o ETag mais uma vez). O nome já foi indexado pelo próprio cadastro
+     */
+    private void procedimentoCadastrado(Long procedimentoId) {
+        Procedimento procedimento = procedimentoRepository.findById(procedimentoId).orElse(null);
+        if (procedimento == null) {
+            // excluído antes da aplicação: a exclusão descarta o evento, não há o que aplicar
+            return;
+        }
+        fidelidadeService.creditarProcedimentos(List.of(procedimento));
+        relatorioService.registrarProcedimentos(List.of(procedimento));
+        versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.PACIENTE, VersaoDadosService.Tipo.PROCEDIMENTO);
+    }
+}
@@ -1,44 +1,135 @@
 package com.odonto.sistema_odontologico.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.odonto.sistema_odontologico.config.MetricasConfig;
+import com.odonto.sistema_odontologico.dto.PaginaCursor;
+import com.odonto.sistema_odontologico.models.LancamentoFidelidade;
 import com.odonto.sistema_odontologico.models.Paciente;
 import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service responsável APENAS pela lógica de negócio de Paciente (SRP - Single Responsibility Principle)
  */
 @Service
+@Timed(value = MetricasConfig.METRICA_SERVICOS, histogram = true)
 public class PacienteService {
 
     @Autowired
     private PacienteRepository pacienteRepository;
 
+    @Autowired
+    private BuscaNomeService buscaNomeService;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
+    @Autowired
+    private FidelidadeService fidelidadeService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // a cada N linhas do stream o contexto de persistência é limpo para manter a memória constante
+    private static final int LIMPAR_CONTEXTO_A_CADA = 500;
+
     @Transactional
     public Paciente cadastrarPaciente(Paciente paciente) {
         // Validação de negócio: fidelidade inicial não pode ser negativa
         if (paciente.getFidelidade() == null) {
             paciente.setFidelidade(0);
         }
-        return pacienteRepository.save(paciente);
+        Paciente pacienteSalvo = pacienteRepository.save(paciente);
+        fidelidadeService.registrarSaldosIniciais(List.of(pacienteSalvo));
+        buscaNomeService.indexar(BuscaNomeService.Tipo.PACIENTE, pacienteSalvo.getId(), pacienteSalvo.getNomePaciente());
+        versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.PACIENTE);
+        return pacienteSalvo;
     }
 
     public List<Paciente> listarTodos() {
         return pacienteRepository.findAll();
     }
 
+    /**
+     * Pacientes de uma faixa de desconto (percentual), pela coluna indexada faixa_desconto
+     */
+    public List<Paciente> listarPorFaixaDesconto(Integer faixa) {
+        if (!Paciente.FAIXAS_DESCONTO.contains(faixa)) {
+            throw new IllegalArgumentException("Faixa de desconto inválida: " + faixa + " (use " +
+                    Paciente.FAIXAS_DESCONTO.stream().map(String::valueOf).collect(Collectors.joining(", ")) + ")");
+        }
+        return pacienteRepository.findByFaixaDescontoOrderByIdAsc(faixa);
+    }
+
+    /**
+     * Paginação por cursor (keyset) ordenada por id
+     */
+    public PaginaCursor<Paciente> listarPagina(String cursor, Integer tamanho) {
+        int limite = PaginaCursor.limitarTamanho(tamanho);
+        Long ultimoId = cursor == null || cursor.isBlank() ? 0L : Long.valueOf(cursor);
+        // busca um item a mais para saber se existe próxima página
+        List<Paciente> pacientes = pacienteRepository.findByIdGreaterThanOrderByIdAsc(ultimoId, PageRequest.ofSize(limite + 1));
+        return PaginaCursor.de(pacientes, limite, item -> String.valueOf(item.getId()));
+    }
+
+    /**
+     * Escreve todos os pacientes em NDJSON (um JSON por linha) lendo do banco em stream
+     */
+    @Transactional(readOnly = true)
+    public void escreverNdjson(OutputStream saida) throws IOException {
+        try (Stream<Paciente> pacientes = pacienteRepository.streamTodos()) {
+            Iterator<Paciente> iterator = pacientes.iterator();
+            int contador = 0;
+            while (iterator.hasNext()) {
+                saida.write(objectMapper.writeValueAsBytes(iterator.next()));
+                saida.write('\n');
+                if (++contador % LIMPAR_CONTEXTO_A_CADA == 0) {
+                    entityManager.clear();
+                    saida.flush();
+                }
+            }
+        }
+    }
+
     public Optional<Paciente> buscarPorId(Long id) {
         return pacienteRepository.findById(id);
     }
 
-    public List<Paciente> buscarPorNome(String nome) {
-        return pacienteRepository.findByNomePacienteContainingIgnoreCase(nome);
+    /**
+     * Busca por trecho do nome (sem acento), ordenada por relevância, usando o índice em memória;
+     * consulta o banco apenas enquanto o índice ainda está sendo carregado
+     */
+    public List<Paciente> buscarPorNome(String nome, int limite) {
+        return buscaNomeService.buscar(BuscaNomeService.Tipo.PACIENTE, nome, limite)
+                .map(ids -> BuscaNomeService.ordenarPorIds(pacienteRepository.findAllById(ids), ids, Paciente::getId))
+                .orElseGet(() -> pacienteRepository.findByNomePacienteContainingIgnoreCase(nome).stream()
+                        .limit(limite)
+                        .toList());
     }
 
+    /**
+     * Com @DynamicUpdate o UPDATE só grava as colunas alteradas; uma fidelidade diferente da atual
+     * vira um lançamento de ajuste com a diferença, para não sobrescrever pontos creditados em paralelo.
+     * A faixa de desconto é recalculada no banco sobre a linha já travada, nunca a partir do saldo lido
+     * no findById (um crédito confirmado entre a leitura e o UPDATE deixaria a faixa atrasada).
+     */
     @Transactional
     public Paciente atualizarPaciente(Long id, Paciente pacienteAtualizado) {
         Paciente pacienteExistente = pacienteRepository.findById(id)
@@ -46,9 +137,19 @@ public class PacienteService {
 
         pacienteExistente.setNomePaciente(pacienteAtualizado.getNomePaciente());
         pacienteExistente.setIdade(pacienteAtualizado.getIdade());
-        pacienteExistente.setFidelidade(pacienteAtualizado.getFidelidade());
+        Paciente pacienteSalvo = pacienteRepository.save(pacienteExistente);
 
-        return pacienteRepository.save(pacienteExistente);
+        Integer fidelidade = pacienteAtualizado.getFidelidade();
+        if (fidelidade != null && !fidelidade.equals(pacienteSalvo.getFidelidade())) {
+            // o lançamento também recalcula a faixa e relê pacienteSalvo
+            fidelidadeService.lancar(id, fidelidade - pacienteSalvo.getFidelidade(), LancamentoFidelidade.Origem.AJUSTE, null);
+        } else {
+            fidelidadeService.atualizarFaixasDesconto(List.of(id));
+        }
+
+        buscaNomeService.indexar(BuscaNomeService.Tipo.PACIENTE, id, pacienteSalvo.getNomePaciente());
+        versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.PACIENTE);
+        return pacienteSalvo;
     }
 
     @Transactional
@@ -58,14 +159,18 @@ public class PacienteService {
         }
         // TODO: Verificar se há procedimentos associados antes de deletar
         pacienteRepository.deleteById(id);
+        fidelidadeService.removerDoPaciente(id);
+        buscaNomeService.remover(BuscaNomeService.Tipo.PACIENTE, id);
+        versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.PACIENTE);
     }
 
+    /**
+     * Lançamento manual no extrato (pontos negativos debitam); o saldo é atualizado sem ler-modificar-gravar
+     */
     @Transactional
     public Paciente adicionarPontosFidelidade(Long id, Integer pontos) {
-        Paciente paciente = pacienteRepository.findById(id)
+        fidelidadeService.lancar(id, pontos, LancamentoFidelidade.Origem.AJUSTE, null);
+        return pacienteRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Paciente não encontrado com ID: " + id));
-
-        paciente.setFidelidade(paciente.getFidelidade() + pontos);
-        return pacienteRepository.save(paciente);
     }
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+package com.odonto.sistema_odontologico.services;
+
+import com.odonto.sistema_odontologico.dto.DetalhamentoPrecoDTO;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cálculo em ponto fixo com long, sem BigDecimal intermediário, double nem streams.
+ * Regras de arredondamento:
+ * - valores monetários com mais de 2 casas decimais são recusados (IllegalArgumentException);
+ *   os do banco têm sempre 2
+ * - os valores são somados em milionésimos de real, então os 10% dos materiais reutilizáveis
+ *   são exatos
+ * - mão de obra = valor por hora * duração (em centésimos de minuto) / 6000, arredondada HALF_UP
+ *   para milionésimos
+ * - o desconto é o percentual inteiro da faixa do paciente, e o valor final é arredondado HALF_UP
+ *   para centavos uma única vez
+ * O PrecoDecimalEngine (cálculo original) multiplica por duração / 60.0 e pelo desconto em double;
+ * quando esse ruído cai na fronteira do arredondamento os dois diferem em 1 centavo.
+ */
+@Service
+@ConditionalOnProperty(name = "odonto.preco.engine", havingValue = "centavos")
+public class PrecoCentavosEngine implements PrecoEngine {
+
+    private static final long ADICIONAL_ASSISTENTE_MILIONESIMOS = 50_000_000;
+    private static final long MILIONESIMOS_POR_CENTAVO = 10_000;
+    private static final long CENTESIMOS_DE_MINUTO_POR_HORA = 6_000;
+
+    // abaixo disso reais * 100 em double volta exatamente aos centavos (erro bem menor que meio centavo)
+    private static final double LIMITE_CONVERSAO_DIRETA = 1e12;
+
+    @Override
+    public BigDecimal calcularValorFinal(Procedimento procedimento) {
+        return BigDecimal.valueOf(calcularValorFinalCentavos(procedimento), 2);
+    }
+
+    public long calcularValorFinalCentavos(Procedimento procedimento) {
+        long total = custoMateriaisMilionesimos(procedimento.getMateriais())
+                + custoMaoObraMilionesimos(procedimento);
+        if (procedimento.getAssistente()) {
+            total += ADICIONAL_ASSISTENTE_MILIONESIMOS;
+        }
+        return aplicarDesconto(total, procedimento.getPaciente().percentualDesconto());
+    }
+
+    /**
+     * Mesmas contas em long; só as parcelas do detalhamento são convertidas para BigDecimal
+     */
+    @Override
+    public DetalhamentoPrecoDTO detalhar(Procedimento procedimento) {
+        List<Material> materiais = procedimento.getMateriais();
+        List<DetalhamentoPrecoDTO.Item> itens = new ArrayList<>(materiais.size());
+        long custoMateriais = 0;
+        for (Material material : materiais) {
+            long valorCobrado = custoMaterialMilionesimos(material);
+            custoMateriais += valorCobrado;
+            itens.add(DetalhamentoPrecoDTO.Item.builder()
+                    .materialId(material.getId())
+                    .nomeMaterial(material.getNomeMaterial())
+                    .valor(material.getValor())
+                    .reutilizavel(material.getReutilizavel())
+                    .valorCobrado(reais(valorCobrado))
+                    .build());
+        }
+
+        long custoMaoObra = custoMaoObraMilionesimos(procedimento);
+        long adicional = procedimento.getAssistente() ? ADICIONAL_ASSISTENTE_MILIONESIMOS : 0;
+        long subtotal = custoMateriais + custoMaoObra + adicional;
+        int percentualDesconto = procedimento.getPaciente().percentualDesconto();
+        long valorFinalCentavos = aplicarDesconto(subtotal, percentualDesconto);
+
+        return DetalhamentoPrecoDTO.builder()
+                .procedimentoId(procedimento.getId())
+                .materiais(itens)
+                .custoMateriais(reais(custoMateriais))
+                .valorHora(procedimento.getValorMaoObra())
+                .duracao(procedimento.getDuracao())
+                .custoMaoObra(reais(custoMaoObra))
+                .adicionalAssistente(reais(adicional))
+                .subtotal(reais(subtotal))
+                .percentualDesconto(percentualDesconto / 100.0)
+                .valorDesconto(reais(subtotal).subtract(BigDecimal.valueOf(valorFinalCentavos, 2)))
+                .valorFinal(BigDecimal.valueOf(valorFinalCentavos, 2))
+                .build();
+    }
+
+    /**
+     * Aplica o desconto percentual e arredonda para centavos
+     */
+    private static long aplicarDesconto(long totalMilionesimos, int percentualDesconto) {
+        // milionésimos * percentual -> centavos, somando metade do divisor (HALF_UP)
+        long divisor = MILIONESIMOS_POR_CENTAVO * 100;
+        return (totalMilionesimos * (100 - percentualDesconto) + divisor / 2) / divisor;
+    }
+
+    /**
+     * Milionésimos de real para reais com 2 casas (HALF_UP)
+     */
+    private static BigDecimal reais(long milionesimos) {
+        return BigDecimal.valueOf(milionesimos, 6).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    static long custoMateriaisMilionesimos(List<Material> materiais) {
+        long total = 0;
+        for (int i = 0; i < materiais.size(); i++) {
+            total += custoMaterialMilionesimos(materiais.get(i));
+        }
+        return total;
+    }
+
+    static long custoMaterialMilionesimos(Material material) {
+        long valor = centavos(material.getValor()) * MILIONESIMOS_POR_CENTAVO;
+        // reutilizável cobra apenas 10% do valor
+        return material.getReutilizavel() ? valor / 10 : valor;
+    }
+
+    static long custoMaoObraMilionesimos(Procedimento procedimento) {
+        long valorHora = centavos(procedimento.getValorMaoObra()) * MILIONESIMOS_POR_CENTAVO;
+        long divisor = CENTESIMOS_DE_MINUTO_POR_HORA;
+        return (valorHora * centesimosDeMinuto(procedimento.getDuracao()) + divisor / 2) / divisor;
+    }
+
+    /**
+     * Duração em centésimos de minuto (o float do cadastro arredondado, sem o ruído de duracao / 60.0)
+     */
+    static long centesimosDeMinuto(float duracao) {
+        return Math.round(duracao * 100.0);
+    }
+
+    /**
+     * Converte um valor monetário em centavos, sem arredondar: valores com mais de 2 casas decimais
+     * significativas são recusados. Com até 2 casas o doubleValue de um BigDecimal compacto não aloca
+     * (unscaledValue cria um BigInteger a cada chamada) e reais * 100 arredondado é o valor exato.
+     */
+    static long centavos(BigDecimal valor) {
+        if (valor.scale() <= 2) {
+            double reais = valor.doubleValue();
+            if (Math.abs(reais) < LIMITE_CONVERSAO_DIRETA) {
+                return Math.round(reais * 100);
+            }
+        }
+        BigDecimal emCentavos;
+        try {
+            emCentavos = valor.setScale(2, RoundingMode.UNNECESSARY);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Valor com mais de 2 casas decimais: " + valor.toPlainString());
+        }
+        return emCentavos.unscaledValue().longValueExact();
+    }
+}
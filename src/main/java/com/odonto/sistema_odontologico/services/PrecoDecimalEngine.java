@@ -0,0 +1,110 @@
+package com.odonto.sistema_odontologico.services;
+
+import com.odonto.sistema_odontologico.dto.DetalhamentoPrecoDTO;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cálculo em BigDecimal: valores intermediários exatos, arredondamento HALF_UP para centavos no final
+ */
+@Service
+@ConditionalOnProperty(name = "odonto.preco.engine", havingValue = "decimal", matchIfMissing = true)
+public class PrecoDecimalEngine implements PrecoEngine {
+
+    static final BigDecimal ADICIONAL_ASSISTENTE = new BigDecimal("50.00");
+
+    @Override
+    public BigDecimal calcularValorFinal(Procedimento procedimento) {
+        BigDecimal valorTotal = BigDecimal.ZERO;
+
+        // 1. Custo dos materiais
+        BigDecimal custoMateriais = calcularCustoMateriais(procedimento);
+        valorTotal = valorTotal.add(custoMateriais);
+
+        // 2. Mão de obra (valor por hora * duração)
+        BigDecimal custoMaoObra = calcularCustoMaoObra(procedimento);
+        valorTotal = valorTotal.add(custoMaoObra);
+
+        // 3. Adicional de assistente
+        if (procedimento.getAssistente()) {
+            valorTotal = valorTotal.add(ADICIONAL_ASSISTENTE);
+        }
+
+        // 4. Aplicar desconto do paciente
+        double percentualDesconto = procedimento.getPaciente().calcularDesconto();
+        BigDecimal desconto = valorTotal.multiply(BigDecimal.valueOf(percentualDesconto));
+        valorTotal = valorTotal.subtract(desconto);
+
+        return valorTotal.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @Override
+    public DetalhamentoPrecoDTO detalhar(Procedimento procedimento) {
+        List<DetalhamentoPrecoDTO.Item> itens = new ArrayList<>(procedimento.getMateriais().size());
+        BigDecimal custoMateriais = BigDecimal.ZERO;
+        for (Material material : procedimento.getMateriais()) {
+            BigDecimal valorCobrado = material.calcularValorProcedimento();
+            custoMateriais = custoMateriais.add(valorCobrado);
+            itens.add(DetalhamentoPrecoDTO.Item.builder()
+                    .materialId(material.getId())
+                    .nomeMaterial(material.getNomeMaterial())
+                    .valor(material.getValor())
+                    .reutilizavel(material.getReutilizavel())
+                    .valorCobrado(moeda(valorCobrado))
+                    .build());
+        }
+
+        BigDecimal custoMaoObra = calcularCustoMaoObra(procedimento);
+        BigDecimal adicional = procedimento.getAssistente() ? ADICIONAL_ASSISTENTE : BigDecimal.ZERO;
+        BigDecimal subtotal = custoMateriais.add(custoMaoObra).add(adicional);
+
+        double percentualDesconto = procedimento.getPaciente().calcularDesconto();
+        BigDecimal desconto = subtotal.multiply(BigDecimal.valueOf(percentualDesconto));
+
+        return DetalhamentoPrecoDTO.builder()
+                .procedimentoId(procedimento.getId())
+                .materiais(itens)
+                .custoMateriais(moeda(custoMateriais))
+                .valorHora(procedimento.getValorMaoObra())
+                .duracao(procedimento.getDuracao())
+                .custoMaoObra(moeda(custoMaoObra))
+                .adicionalAssistente(moeda(adicional))
+                .subtotal(moeda(subtotal))
+                .percentualDesconto(percentualDesconto)
+                .valorDesconto(moeda(desconto))
+                .valorFinal(moeda(subtotal.subtract(desconto)))
+                .build();
+    }
+
+    private static BigDecimal moeda(BigDecimal valor) {
+        return valor.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Calcula o custo total dos materiais
+     * Materiais reutilizáveis: cobram apenas 10% do valor
+     * Materiais descartáveis: cobram valor integral
+     */
+    private static BigDecimal calcularCustoMateriais(Procedimento procedimento) {
+        return procedimento.getMateriais().stream()
+                .map(Material::calcularValorProcedimento)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    /**
+     * Calcula o custo da mão de obra
+     * Valor base por hora * duração em horas
+     */
+    private static BigDecimal calcularCustoMaoObra(Procedimento procedimento) {
+        BigDecimal valorPorHora = procedimento.getValorMaoObra();
+        BigDecimal duracaoDecimal = BigDecimal.valueOf(procedimento.getDuracao()/60.0);
+        return valorPorHora.multiply(duracaoDecimal);
+    }
+}
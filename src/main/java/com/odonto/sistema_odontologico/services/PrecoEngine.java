@@ -0,0 +1,25 @@
+package com.odonto.sistema_odontologico.services;
+
+import com.odonto.sistema_odontologico.dto.DetalhamentoPrecoDTO;
+import com.odonto.sistema_odontologico.models.Procedimento;
+
+import java.math.BigDecimal;
+
+/**
+ * Estratégia de cálculo do valor final de um procedimento usada pelo CalculadoraPrecoService.
+ * Implementações (escolhidas pela propriedade odonto.preco.engine):
+ * - decimal: aritmética em BigDecimal com arredondamento só no final (padrão)
+ * - centavos: aritmética inteira em long, sem alocar objetos intermediários
+ */
+public interface PrecoEngine {
+
+    /**
+     * Valor final (materiais + mão de obra + assistente - desconto do paciente), com 2 casas decimais
+     */
+    BigDecimal calcularValorFinal(Procedimento procedimento);
+
+    /**
+     * Composição do preço calculada em uma única passada, com o mesmo valor final de calcularValorFinal
+     */
+    DetalhamentoPrecoDTO detalhar(Procedimento procedimento);
+}
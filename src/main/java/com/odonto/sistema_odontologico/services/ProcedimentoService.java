@@ -1,29 +1,123 @@
 package com.odonto.sistema_odontologico.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.odonto.sistema_odontologico.config.MetricasConfig;
+import com.odonto.sistema_odontologico.dto.DetalhamentoPrecoDTO;
+import com.odonto.sistema_odontologico.dto.ItemLoteDTO;
+import com.odonto.sistema_odontologico.dto.PaginaCursor;
 import com.odonto.sistema_odontologico.dto.ProcedimentoDTO;
+import com.odonto.sistema_odontologico.dto.ProcedimentoDetalheDTO;
+import com.odonto.sistema_odontologico.dto.ProcedimentoResumo;
+import com.odonto.sistema_odontologico.dto.ProcedimentoResumoDTO;
+import com.odonto.sistema_odontologico.dto.ResultadoLoteDTO;
+import com.odonto.sistema_odontologico.models.EventoOutbox;
 import com.odonto.sistema_odontologico.models.Material;
 import com.odonto.sistema_odontologico.models.Paciente;
 import com.odonto.sistema_odontologico.models.Procedimento;
 import com.odonto.sistema_odontologico.repositories.MaterialRepository;
 import com.odonto.sistema_odontologico.repositories.PacienteRepository;
 import com.odonto.sistema_odontologico.repositories.ProcedimentoRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * SRP lógica de negócio de Procedimento
  */
 @Service
+@Timed(value = MetricasConfig.METRICA_SERVICOS, histogram = true)
 public class ProcedimentoService {
 
+    /**
+     * Visões reduzidas de Procedimento para a API (?view=); sem visão a API devolve a entidade completa
+     */
+    public enum Visao {
+        RESUMO(ProcedimentoResumoDTO.class), DETALHE(ProcedimentoDetalheDTO.class);
+
+        private final Set<String> campos;
+
+        Visao(Class<?> tipo) {
+            campos = Arrays.stream(tipo.getDeclaredFields())
+                    .filter(campo -> !Modifier.isStatic(campo.getModifiers()))
+                    .map(Field::getName)
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+
+        /**
+         * Visão pelo nome (resumo/summary ou detalhe/detail); sem nome, a menor visão que tem todos os campos pedidos
+         */
+        public static Visao escolher(String nome, Set<String> camposPedidos) {
+            if (nome == null || nome.isBlank()) {
+                for (Visao visao : values()) {
+                    if (visao.campos.containsAll(camposPedidos)) {
+                        return visao;
+                    }
+                }
+                return DETALHE.validarCampos(camposPedidos);
+            }
+            Visao visao = switch (nome.trim().toLowerCase(Locale.ROOT)) {
+                case "resumo", "summary" -> RESUMO;
+                case "detalhe", "detail" -> DETALHE;
+                default -> throw new IllegalArgumentException("Visão inválida: " + nome + " (use resumo ou detalhe)");
+            };
+            return visao.validarCampos(camposPedidos);
+        }
+
+        private Visao validarCampos(Set<String> camposPedidos) {
+            List<String> invalidos = camposPedidos.stream().filter(campo -> !campos.contains(campo)).sorted().toList();
+            if (!invalidos.isEmpty()) {
+                throw new IllegalArgumentException("Campos inexistentes na visão " + name().toLowerCase(Locale.ROOT)
+                        + ": " + String.join(", ", invalidos));
+            }
+            return this;
+        }
+    }
+
     @Autowired
     private ProcedimentoRepository procedimentoRepository;
 
+    @Autowired
+    private BuscaNomeService buscaNomeService;
+
+    @Autowired
+    private VersaoDadosService versaoDadosService;
+
     @Autowired
     private PacienteRepository pacienteRepository;
 
@@ -33,6 +127,42 @@ public class ProcedimentoService {
     @Autowired
     private CalculadoraPrecoService calculadoraPrecoService;
 
+    @Autowired
+    private EstoqueEngine estoqueEngine;
+
+    @Autowired
+    private RelatorioService relatorioService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private FidelidadeService fidelidadeService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter rejeicoesEstoque;
+    private Counter rejeicoesEstoqueLote;
+
+    // procedimentos por página da listagem em NDJSON; o contexto de persistência é limpo a cada página
+    private static final int PAGINA_NDJSON = 500;
+
+    @PostConstruct
+    public void registrarMetricas() {
+        rejeicoesEstoque = meterRegistry.counter(MaterialService.METRICA_REJEICOES_ESTOQUE, "operacao", "procedimento");
+        rejeicoesEstoqueLote = meterRegistry.counter(MaterialService.METRICA_REJEICOES_ESTOQUE, "operacao", "lote");
+    }
+
     @Transactional
     public Procedimento cadastrarProcedimento(ProcedimentoDTO dto) {
         // Buscar paciente
@@ -48,11 +178,184 @@ public class ProcedimentoService {
         // Verificar estoque de materiais descartáveis
         for (Material material : materiais) {
             if (!material.getReutilizavel() && !material.temEstoqueSuficiente(1)) {
+                rejeicoesEstoque.increment();
                 throw new RuntimeException("Material sem estoque suficiente: " + material.getNomeMaterial());
             }
         }
 
-        // Criar procedimento
+        // Criar procedimento e calcular valor final
+        Procedimento procedimento = montarProcedimento(dto, paciente, materiais);
+
+        // Descontar estoque dos materiais descartáveis de forma atômica: se outra requisição
+        // consumiu a última unidade o desconto falha e o cadastro inteiro é desfeito
+        for (Material material : materiais) {
+            if (!material.getReutilizavel()) {
+                if (!estoqueEngine.descontar(material.getId(), 1)) {
+                    rejeicoesEstoque.increment();
+                    throw new RuntimeException("Material sem estoque suficiente: " + material.getNomeMaterial());
+                }
+                estoqueEngine.refletirEstoque(material);
+            }
+        }
+
+        // Salvar procedimento
+        Procedimento procedimentoSalvo = procedimentoRepository.save(procedimento);
+
+        // o nome entra no índice de busca logo após o commit, como no cadastro de pacientes e materiais
+        buscaNomeService.indexar(BuscaNomeService.Tipo.PROCEDIMENTO, procedimentoSalvo.getId(),
+                procedimentoSalvo.getNomeProcedimento());
+        // Pontos de fidelidade (10 por procedimento) e resumos são aplicados após o commit pelo
+        // outbox, fora desta transação e das travas de estoque
+        outboxService.publicar(EventoOutbox.Tipo.PROCEDIMENTO_CADASTRADO, procedimentoSalvo.getId());
+        // estoque também mudou; paciente muda quando o outbox aplicar a fidelidade
+        versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.PROCEDIMENTO, VersaoDadosService.Tipo.MATERIAL);
+
+        return procedimentoSalvo;
+    }
+
+    /**
+     * Cadastra vários procedimentos em uma transação: pacientes e materiais são buscados uma única vez,
+     * o estoque é acumulado em memória (um UPDATE por material) e os INSERTs são enviados em lote.
+     * Como no cadastro individual, os nomes são indexados após o commit e fidelidade e resumos seguem pelo outbox.
+     * Itens inválidos são reportados e não impedem os demais.
+     */
+    @Transactional
+    public ResultadoLoteDTO cadastrarLote(List<ProcedimentoDTO> dtos) {
+        Set<Long> pacienteIds = new HashSet<>();
+        Set<Long> materialIds = new HashSet<>();
+        for (ProcedimentoDTO dto : dtos) {
+            if (dto.getPacienteId() != null) {
+                pacienteIds.add(dto.getPacienteId());
+            }
+            if (dto.getMateriaisIds() != null) {
+                dto.getMateriaisIds().stream().filter(Objects::nonNull).forEach(materialIds::add);
+            }
+        }
+
+        Map<Long, Paciente> pacientes = new HashMap<>();
+        pacienteRepository.findAllById(pacienteIds).forEach(p -> {
+            // desanexados: a fidelidade somada abaixo só vale para o preço dos itens seguintes do lote,
+            // o saldo no banco é creditado pelo outbox depois do commit
+            entityManager.detach(p);
+            pacientes.put(p.getId(), p);
+        });
+        Map<Long, Material> materiais = new HashMap<>();
+        materialRepository.findAllById(materialIds).forEach(m -> materiais.put(m.getId(), m));
+
+        List<ItemLoteDTO> itens = new ArrayList<>();
+        List<Procedimento> procedimentos = new ArrayList<>();
+        List<ItemLoteDTO> itensCadastrados = new ArrayList<>();
+        Map<Long, Integer> consumo = new HashMap<>();
+
+        for (int i = 0; i < dtos.size(); i++) {
+            ProcedimentoDTO dto = dtos.get(i);
+
+            Set<ConstraintViolation<ProcedimentoDTO>> violacoes = validator.validate(dto);
+            if (!violacoes.isEmpty()) {
+                itens.add(ItemLoteDTO.falha(i, violacoes.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .collect(Collectors.joining("; "))));
+                continue;
+            }
+
+            Paciente paciente = pacientes.get(dto.getPacienteId());
+            if (paciente == null) {
+                itens.add(ItemLoteDTO.falha(i, "Paciente não encontrado com ID: " + dto.getPacienteId()));
+                continue;
+            }
+
+            List<Material> materiaisItem = new ArrayList<>();
+            for (Long materialId : new LinkedHashSet<>(dto.getMateriaisIds())) {
+                Material material = materiais.get(materialId);
+                if (material != null) {
+                    materiaisItem.add(material);
+                }
+            }
+            if (materiaisItem.size() != dto.getMateriaisIds().size()) {
+                itens.add(ItemLoteDTO.falha(i, "Alguns materiais não foram encontrados"));
+                continue;
+            }
+
+            // considera o consumo dos itens anteriores do lote
+            Optional<Material> semEstoque = materiaisItem.stream()
+                    .filter(m -> !m.getReutilizavel()
+                            && !m.temEstoqueSuficiente(1 + consumo.getOrDefault(m.getId(), 0)))
+                    .findFirst();
+            if (semEstoque.isPresent()) {
+                rejeicoesEstoqueLote.increment();
+                itens.add(ItemLoteDTO.falha(i, "Material sem estoque suficiente: " + semEstoque.get().getNomeMaterial()));
+                continue;
+            }
+
+            Procedimento procedimento = montarProcedimento(dto, paciente, materiaisItem);
+            procedimentos.add(procedimento);
+
+            // consumo acumulado por material: um desconto atômico por material no final do lote
+            for (Material material : materiaisItem) {
+                if (!material.getReutilizavel()) {
+                    consumo.merge(material.getId(), 1, Integer::sum);
+                }
+            }
+            // os itens seguintes do mesmo paciente já são precificados com os pontos deste
+            paciente.setFidelidade(paciente.getFidelidade() + FidelidadeService.PONTOS_POR_PROCEDIMENTO);
+            paciente.atualizarFaixaDesconto();
+
+            ItemLoteDTO item = ItemLoteDTO.builder()
+                    .indice(i)
+                    .sucesso(true)
+                    .valorFinal(procedimento.getValorFinal())
+                    .build();
+            itens.add(item);
+            itensCadastrados.add(item);
+        }
+
+        // se outra requisição consumiu o estoque durante o lote, o lote inteiro é desfeito
+        consumo.forEach((materialId, quantidade) -> {
+            if (!estoqueEngine.descontar(materialId, quantidade)) {
+                rejeicoesEstoqueLote.increment();
+                throw new RuntimeException("Estoque do material " + materialId
+                        + " foi alterado durante o lote; nenhum procedimento foi cadastrado");
+            }
+        });
+
+        procedimentoRepository.saveAll(procedimentos);
+        List<Long> procedimentoIds = new ArrayList<>(procedimentos.size());
+        for (int i = 0; i < procedimentos.size(); i++) {
+            Procedimento procedimento = procedimentos.get(i);
+            itensCadastrados.get(i).setProcedimentoId(procedimento.getId());
+            procedimentoIds.add(procedimento.getId());
+            buscaNomeService.indexar(BuscaNomeService.Tipo.PROCEDIMENTO, procedimento.getId(),
+                    procedimento.getNomeProcedimento());
+        }
+
+        if (!procedimentos.isEmpty()) {
+            // um evento por procedimento, aplicados após o commit fora das travas de estoque
+            outboxService.publicar(EventoOutbox.Tipo.PROCEDIMENTO_CADASTRADO, procedimentoIds);
+            versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.PROCEDIMENTO, VersaoDadosService.Tipo.MATERIAL);
+        }
+
+        return ResultadoLoteDTO.builder()
+                .total(dtos.size())
+                .cadastrados(procedimentos.size())
+                .falhas(dtos.size() - procedimentos.size())
+                .itens(itens)
+                .build();
+    }
+
+    /**
+     * Cria o procedimento a partir do DTO e calcula o valor final
+     */
+    private Procedimento montarProcedimento(ProcedimentoDTO dto, Paciente paciente, List<Material> materiais) {
+        Procedimento procedimento = novoProcedimento(dto, paciente, materiais);
+        BigDecimal valorFinal = calculadoraPrecoService.calcularValorFinal(procedimento);
+        procedimento.setValorFinal(valorFinal);
+        return procedimento;
+    }
+
+    /**
+     * Cria o procedimento a partir do DTO, sem calcular o valor final (também usado no orçamento)
+     */
+    static Procedimento novoProcedimento(ProcedimentoDTO dto, Paciente paciente, List<Material> materiais) {
         Procedimento procedimento = new Procedimento();
         procedimento.setNomeProcedimento(dto.getNomeProcedimento());
         procedimento.setAssistente(dto.getAssistente());
@@ -66,64 +369,189 @@ public class ProcedimentoService {
         } else {
             procedimento.setValorMaoObra(new BigDecimal("100.00"));
         }
+        return procedimento;
+    }
 
-        // Calcular valor final
-        BigDecimal valorFinal = calculadoraPrecoService.calcularValorFinal(procedimento);
-        procedimento.setValorFinal(valorFinal);
+    @Transactional(readOnly = true)
+    public List<Procedimento> listarTodos() {
+        return procedimentoRepository.findAll();
+    }
 
-        // Salvar procedimento
-        Procedimento procedimentoSalvo = procedimentoRepository.save(procedimento);
+    /**
+     * Paginação por cursor (keyset), ordenada por "id" (padrão) ou "dataCriacao"
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursor<Procedimento> listarPagina(String cursor, Integer tamanho, String ordenarPor) {
+        int limite = PaginaCursor.limitarTamanho(tamanho);
+        // busca um item a mais para saber se existe próxima página
+        Pageable pageable = PageRequest.ofSize(limite + 1);
+        boolean primeiraPagina = cursor == null || cursor.isBlank();
 
-        // Descontar estoque dos materiais descartáveis
-        for (Material material : materiais) {
-            if (!material.getReutilizavel()) {
-                material.descontarEstoque(1);
-                materialRepository.save(material);
+        if ("dataCriacao".equals(ordenarPor)) {
+            List<Procedimento> procedimentos;
+            if (primeiraPagina) {
+                procedimentos = procedimentoRepository.findByDataCriacaoIsNotNullOrderByDataCriacaoAscIdAsc(pageable);
+            } else {
+                String[] partes = decodificarCursor(cursor).split("\\|", 2);
+                try {
+                    procedimentos = procedimentoRepository.buscarAposDataCriacao(
+                            LocalDateTime.parse(partes[0]), Long.valueOf(partes[1]), pageable);
+                } catch (DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                    throw new IllegalArgumentException("Cursor inválido: " + cursor);
+                }
             }
+            return PaginaCursor.de(procedimentos, limite,
+                    p -> codificarCursor(p.getDataCriacao() + "|" + p.getId()));
+        }
+
+        if (ordenarPor != null && !"id".equals(ordenarPor)) {
+            throw new IllegalArgumentException("Ordenação inválida: " + ordenarPor);
         }
+        Long ultimoId = primeiraPagina ? 0L : Long.valueOf(cursor);
+        List<Procedimento> procedimentos = procedimentoRepository.findByIdGreaterThanOrderByIdAsc(ultimoId, pageable);
+        return PaginaCursor.de(procedimentos, limite, p -> String.valueOf(p.getId()));
+    }
 
-        // Adicionar pontos de fidelidade ao paciente (10 pontos por procedimento)
-        paciente.setFidelidade(paciente.getFidelidade() + 10);
-        pacienteRepository.save(paciente);
+    /**
+     * Escreve todos os procedimentos em NDJSON (um JSON por linha) em páginas por cursor (keyset):
+     * cada página traz paciente e materiais no mesmo SELECT, como as demais listagens, e o contexto de
+     * persistência é limpo entre páginas para manter a memória constante
+     */
+    @Transactional(readOnly = true)
+    public void escreverNdjson(OutputStream saida) throws IOException {
+        Pageable pagina = PageRequest.ofSize(PAGINA_NDJSON);
+        Long ultimoId = 0L;
+        List<Long> ids;
+        do {
+            ids = procedimentoRepository.listarIdsApos(ultimoId, pagina);
+            if (ids.isEmpty()) {
+                break;
+            }
+            List<Procedimento> procedimentos = BuscaNomeService.ordenarPorIds(
+                    new ArrayList<>(procedimentoRepository.findByIdIn(ids)), ids, Procedimento::getId);
+            for (Procedimento procedimento : procedimentos) {
+                saida.write(objectMapper.writeValueAsBytes(procedimento));
+                saida.write('\n');
+            }
+            saida.flush();
+            entityManager.clear();
+            ultimoId = ids.get(ids.size() - 1);
+        } while (ids.size() == PAGINA_NDJSON);
+    }
 
-        return procedimentoSalvo;
+    private String codificarCursor(String valor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
     }
 
-    public List<Procedimento> listarTodos() {
-        return procedimentoRepository.findAll();
+    private String decodificarCursor(String cursor) {
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Procedimento> buscarPorId(Long id) {
         return procedimentoRepository.findById(id);
     }
 
-    public List<Procedimento> buscarPorNome(String nome) {
-        return procedimentoRepository.findByNomeProcedimentoContainingIgnoreCase(nome);
+    /**
+     * Listagem na visão pedida: o resumo sai de uma consulta por construtor, sem montar entidades
+     */
+    @Transactional(readOnly = true)
+    public List<?> listarVisao(Visao visao) {
+        if (visao == Visao.RESUMO) {
+            return procedimentoRepository.listarResumos();
+        }
+        return procedimentoRepository.findAll().stream().map(ProcedimentoDetalheDTO::de).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<?> buscarVisao(Long id, Visao visao) {
+        return procedimentoRepository.findById(id)
+                .map(procedimento -> visao == Visao.RESUMO
+                        ? ProcedimentoResumoDTO.de(procedimento)
+                        : ProcedimentoDetalheDTO.de(procedimento));
+    }
+
+    /**
+     * Busca por trecho do nome (sem acento), ordenada por relevância, usando o índice em memória;
+     * consulta o banco apenas enquanto o índice ainda está sendo carregado
+     */
+    @Transactional(readOnly = true)
+    public List<Procedimento> buscarPorNome(String nome, int limite) {
+        return buscaNomeService.buscar(BuscaNomeService.Tipo.PROCEDIMENTO, nome, limite)
+                .map(ids -> BuscaNomeService.ordenarPorIds(procedimentoRepository.findAllById(ids), ids, Procedimento::getId))
+                .orElseGet(() -> procedimentoRepository.findByNomeProcedimentoContainingIgnoreCase(nome).stream()
+                        .limit(limite)
+                        .toList());
     }
 
+    @Transactional(readOnly = true)
     public List<Procedimento> buscarPorPaciente(Long pacienteId) {
         return procedimentoRepository.findByPacienteId(pacienteId);
     }
 
+    /**
+     * Histórico do paciente, do mais recente para o mais antigo, filtrado por período (datas inclusivas)
+     */
+    @Transactional(readOnly = true)
+    public Page<ProcedimentoResumo> buscarHistoricoPaciente(Long pacienteId, LocalDate de, LocalDate ate,
+                                                            int pagina, int tamanho) {
+        if (!pacienteRepository.existsById(pacienteId)) {
+            throw new RuntimeException("Paciente não encontrado com ID: " + pacienteId);
+        }
+        if (de != null && ate != null && de.isAfter(ate)) {
+            throw new IllegalArgumentException("Data inicial posterior à data final");
+        }
+
+        LocalDateTime inicio = de != null ? de.atStartOfDay() : LocalDateTime.of(1900, 1, 1, 0, 0);
+        LocalDateTime fim = ate != null ? ate.atTime(LocalTime.MAX) : LocalDateTime.of(9999, 12, 31, 23, 59);
+        Pageable pageable = PageRequest.of(Math.max(pagina, 0), PaginaCursor.limitarTamanho(tamanho),
+                Sort.by(Sort.Direction.DESC, "dataCriacao", "id"));
+
+        return procedimentoRepository.findByPacienteIdAndDataCriacaoBetween(pacienteId, inicio, fim, pageable);
+    }
+
+    @Transactional(readOnly = true)
     public List<Procedimento> buscarPorAssistente(Boolean assistente) {
         return procedimentoRepository.findByAssistente(assistente);
     }
 
     /**
-     * Não devolve materiais ao estoque
+     * Não devolve materiais ao estoque; o faturamento e o consumo do procedimento saem dos relatórios
      */
     @Transactional
     public void deletarProcedimento(Long id) {
-        if (!procedimentoRepository.existsById(id)) {
-            throw new RuntimeException("Procedimento não encontrado com ID: " + id);
+        Procedimento procedimento = procedimentoRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Procedimento não encontrado com ID: " + id));
+        if (outboxService.descartar(EventoOutbox.Tipo.PROCEDIMENTO_CADASTRADO, id)) {
+            // evento do cadastro ainda pendente: os resumos nunca receberam o procedimento, e a
+            // fidelidade (que a exclusão não retira) é concedida aqui
+            fidelidadeService.creditarProcedimentos(List.of(procedimento));
+        } else {
+            relatorioService.estornarProcedimento(procedimento);
         }
-        procedimentoRepository.deleteById(id);
+        procedimentoRepository.delete(procedimento);
+        buscaNomeService.remover(BuscaNomeService.Tipo.PROCEDIMENTO, id);
+        versaoDadosService.registrarAlteracao(VersaoDadosService.Tipo.PROCEDIMENTO);
     }
 
-    public String gerarDetalhamentoCalculo(Long id) {
+    @Transactional(readOnly = true)
+    public DetalhamentoPrecoDTO calcularDetalhamento(Long id) {
         Procedimento procedimento = procedimentoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Procedimento não encontrado com ID: " + id));
 
-        return calculadoraPrecoService.gerarDetalhamentoCalculo(procedimento);
+        return calculadoraPrecoService.calcularDetalhamento(procedimento);
+    }
+
+    /**
+     * Detalhamento de vários procedimentos com uma consulta só, na ordem dos ids informados
+     * (ids inexistentes são ignorados)
+     */
+    @Transactional(readOnly = true)
+    public List<DetalhamentoPrecoDTO> calcularDetalhamentos(List<Long> ids) {
+        List<Procedimento> procedimentos = BuscaNomeService.ordenarPorIds(
+                procedimentoRepository.findByIdIn(ids), ids, Procedimento::getId);
+        return procedimentos.stream()
+                .map(calculadoraPrecoService::calcularDetalhamento)
+                .toList();
     }
 }
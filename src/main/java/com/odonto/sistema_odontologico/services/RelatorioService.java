@@ -0,0 +1,236 @@
+package com.odonto.sistema_odontologico.services;
+
+import com.odonto.sistema_odontologico.config.MetricasConfig;
+import com.odonto.sistema_odontologico.dto.ConsumoDia;
+import com.odonto.sistema_odontologico.dto.ConsumoMaterial;
+import com.odonto.sistema_odontologico.dto.ReceitaDia;
+import com.odonto.sistema_odontologico.dto.ReceitaPaciente;
+import com.odonto.sistema_odontologico.dto.ReceitaPeriodoDTO;
+import com.odonto.sistema_odontologico.models.ConsumoMaterialDiario;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import com.odonto.sistema_odontologico.models.ReceitaDiaria;
+import com.odonto.sistema_odontologico.repositories.ConsumoMaterialDiarioRepository;
+import com.odonto.sistema_odontologico.repositories.ReceitaDiariaRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Relatórios de faturamento e consumo lidos apenas das tabelas de resumo (resumo_receita_diaria e
+ * resumo_consumo_material_diario), que têm no máximo uma linha por dia e paciente/material:
+ * o custo não cresce com a tabela de procedimentos.
+ * Os resumos são atualizados na transação da exclusão, do cadastro em lote ou da aplicação do evento
+ * de cadastro pelo OutboxService, com UPDATE somando ao valor existente (sem ler-modificar-gravar)
+ * e INSERT na primeira ocorrência do dia.
+ */
+@Service
+@Timed(value = MetricasConfig.METRICA_SERVICOS, histogram = true)
+public class RelatorioService {
+
+    // período padrão quando "de" não é informado
+    private static final int DIAS_PADRAO = 30;
+    private static final int LIMITE_MAXIMO_PACIENTES = 500;
+
+    private static final Comparator<ReceitaDiaria.Chave> ORDEM_RECEITA =
+            Comparator.comparing(ReceitaDiaria.Chave::getDia).thenComparing(ReceitaDiaria.Chave::getPacienteId);
+    private static final Comparator<ConsumoMaterialDiario.Chave> ORDEM_CONSUMO =
+            Comparator.comparing(ConsumoMaterialDiario.Chave::getDia).thenComparing(ConsumoMaterialDiario.Chave::getMaterialId);
+
+    @Autowired
+    private ReceitaDiariaRepository receitaDiariaRepository;
+
+    @Autowired
+    private ConsumoMaterialDiarioRepository consumoMaterialDiarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Soma os procedimentos recém-gravados aos resumos (chamado dentro da transação do lote ou do evento do outbox)
+     */
+    public void registrarProcedimentos(List<Procedimento> procedimentos) {
+        aplicar(procedimentos, 1);
+    }
+
+    /**
+     * Desconta dos resumos um procedimento que será excluído (chamado dentro da transação da exclusão)
+     */
+    public void estornarProcedimento(Procedimento procedimento) {
+        aplicar(List.of(procedimento), -1);
+    }
+
+    /**
+     * Agrupa por chave antes de gravar (um lote vira um UPDATE por dia/paciente e dia/material)
+     * e grava em ordem de chave, para transações concorrentes travarem as linhas na mesma ordem
+     */
+    private void aplicar(List<Procedimento> procedimentos, int sinal) {
+        Map<ReceitaDiaria.Chave, ReceitaDiaria> receitas = new TreeMap<>(ORDEM_RECEITA);
+        Map<ConsumoMaterialDiario.Chave, Long> consumos = new TreeMap<>(ORDEM_CONSUMO);
+
+        for (Procedimento procedimento : procedimentos) {
+            if (procedimento.getDataCriacao() == null) {
+                continue;
+            }
+            LocalDate dia = procedimento.getDataCriacao().toLocalDate();
+            BigDecimal valor = procedimento.getValorFinal() != null ? procedimento.getValorFinal() : BigDecimal.ZERO;
+
+            ReceitaDiaria receita = receitas.computeIfAbsent(
+                    new ReceitaDiaria.Chave(dia, procedimento.getPaciente().getId()),
+                    chave -> new ReceitaDiaria(chave.getDia(), chave.getPacienteId(), 0L, BigDecimal.ZERO));
+            receita.setQuantidadeProcedimentos(receita.getQuantidadeProcedimentos() + sinal);
+            receita.setReceita(sinal > 0 ? receita.getReceita().add(valor) : receita.getReceita().subtract(valor));
+
+            for (Material material : procedimento.getMateriais()) {
+                if (!material.getReutilizavel()) {
+                    consumos.merge(new ConsumoMaterialDiario.Chave(dia, material.getId()), (long) sinal, Long::sum);
+                }
+            }
+        }
+
+        receitas.values().forEach(receita -> somarReceita(receita, sinal > 0));
+        consumos.forEach((chave, unidades) -> somarConsumo(chave, unidades, sinal > 0));
+    }
+
+    private void somarReceita(ReceitaDiaria receita, boolean podeCriar) {
+        Object[] atualizacao = {receita.getQuantidadeProcedimentos(), receita.getReceita(),
+                receita.getDia(), receita.getPacienteId()};
+        String update = "UPDATE resumo_receita_diaria SET quantidade_procedimentos = quantidade_procedimentos + ?, " +
+                "receita = receita + ? WHERE dia = ? AND paciente_id = ?";
+        String insert = "INSERT INTO resumo_receita_diaria (quantidade_procedimentos, receita, dia, paciente_id) " +
+                "VALUES (?, ?, ?, ?)";
+        if (somar(update, insert, atualizacao, podeCriar) && !podeCriar) {
+            jdbcTemplate.update("DELETE FROM resumo_receita_diaria WHERE dia = ? AND paciente_id = ? " +
+                    "AND quantidade_procedimentos <= 0", receita.getDia(), receita.getPacienteId());
+        }
+    }
+
+    private void somarConsumo(ConsumoMaterialDiario.Chave chave, long unidades, boolean podeCriar) {
+        Object[] atualizacao = {unidades, chave.getDia(), chave.getMaterialId()};
+        String update = "UPDATE resumo_consumo_material_diario SET unidades = unidades + ? " +
+                "WHERE dia = ? AND material_id = ?";
+        String insert = "INSERT INTO resumo_consumo_material_diario (unidades, dia, material_id) VALUES (?, ?, ?)";
+        if (somar(update, insert, atualizacao, podeCriar) && !podeCriar) {
+            jdbcTemplate.update("DELETE FROM resumo_consumo_material_diario WHERE dia = ? AND material_id = ? " +
+                    "AND unidades <= 0", chave.getDia(), chave.getMaterialId());
+        }
+    }
+
+    /**
+     * UPDATE somando; se a linha não existe, INSERT. Se outra transação inseriu a mesma linha
+     * entre os dois comandos, o INSERT falha por chave duplicada e o UPDATE é repetido.
+     * Retorna false se a linha não existe e não podia ser criada (estorno sem resumo).
+     */
+    private boolean somar(String update, String insert, Object[] parametros, boolean podeCriar) {
+        if (jdbcTemplate.update(update, parametros) > 0) {
+            return true;
+        }
+        if (!podeCriar) {
+            return false;
+        }
+        try {
+            jdbcTemplate.update(insert, parametros);
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.update(update, parametros);
+        }
+        return true;
+    }
+
+    /**
+     * Recalcula os resumos a partir dos procedimentos existentes (carga inicial em bancos antigos)
+     */
+    @Transactional
+    public void reconstruir() {
+        jdbcTemplate.update("DELETE FROM resumo_receita_diaria");
+        jdbcTemplate.update("DELETE FROM resumo_consumo_material_diario");
+        jdbcTemplate.update("INSERT INTO resumo_receita_diaria (dia, paciente_id, quantidade_procedimentos, receita) " +
+                "SELECT CAST(data_criacao AS DATE), paciente_id, COUNT(*), COALESCE(SUM(valor_final), 0) " +
+                "FROM procedimentos WHERE data_criacao IS NOT NULL " +
+                "GROUP BY CAST(data_criacao AS DATE), paciente_id");
+        jdbcTemplate.update("INSERT INTO resumo_consumo_material_diario (dia, material_id, unidades) " +
+                "SELECT CAST(p.data_criacao AS DATE), pm.material_id, COUNT(*) " +
+                "FROM procedimentos p " +
+                "JOIN procedimento_materiais pm ON pm.procedimento_id = p.id " +
+                "JOIN materiais m ON m.id = pm.material_id " +
+                "WHERE p.data_criacao IS NOT NULL AND m.reutilizavel = FALSE " +
+                "GROUP BY CAST(p.data_criacao AS DATE), pm.material_id");
+    }
+
+    /**
+     * Faturamento por "dia" ou "mes" (cada mês identificado pelo dia 1), só períodos com movimento
+     */
+    @Transactional(readOnly = true)
+    public List<ReceitaPeriodoDTO> receita(LocalDate de, LocalDate ate, String agrupamento) {
+        LocalDate fim = fim(ate);
+        LocalDate inicio = inicio(de, fim);
+        boolean porMes = "mes".equals(agrupamento);
+        if (!porMes && agrupamento != null && !"dia".equals(agrupamento)) {
+            throw new IllegalArgumentException("Agrupamento inválido: " + agrupamento);
+        }
+
+        List<ReceitaPeriodoDTO> periodos = new ArrayList<>();
+        ReceitaPeriodoDTO atual = null;
+        for (ReceitaDia dia : receitaDiariaRepository.somarPorDia(inicio, fim)) {
+            LocalDate periodo = porMes ? dia.getDia().withDayOfMonth(1) : dia.getDia();
+            if (atual == null || !atual.getInicio().equals(periodo)) {
+                atual = new ReceitaPeriodoDTO(periodo, 0, BigDecimal.ZERO);
+                periodos.add(atual);
+            }
+            atual.setProcedimentos(atual.getProcedimentos() + dia.getProcedimentos());
+            atual.setReceita(atual.getReceita().add(dia.getReceita()));
+        }
+        return periodos;
+    }
+
+    /**
+     * Pacientes que mais faturaram no período
+     */
+    @Transactional(readOnly = true)
+    public List<ReceitaPaciente> receitaPorPaciente(LocalDate de, LocalDate ate, int limite) {
+        LocalDate fim = fim(ate);
+        return receitaDiariaRepository.somarPorPaciente(inicio(de, fim), fim,
+                PageRequest.ofSize(Math.max(1, Math.min(limite, LIMITE_MAXIMO_PACIENTES))));
+    }
+
+    /**
+     * Unidades de material descartável consumidas no período, por material
+     */
+    @Transactional(readOnly = true)
+    public List<ConsumoMaterial> consumoMateriais(LocalDate de, LocalDate ate) {
+        LocalDate fim = fim(ate);
+        return consumoMaterialDiarioRepository.somarPorMaterial(inicio(de, fim), fim);
+    }
+
+    /**
+     * Consumo diário de um material no período (dias sem consumo não aparecem)
+     */
+    @Transactional(readOnly = true)
+    public List<ConsumoDia> consumoMaterialPorDia(Long materialId, LocalDate de, LocalDate ate) {
+        LocalDate fim = fim(ate);
+        return consumoMaterialDiarioRepository.listarPorDia(materialId, inicio(de, fim), fim);
+    }
+
+    private static LocalDate fim(LocalDate ate) {
+        return ate != null ? ate : LocalDate.now();
+    }
+
+    private static LocalDate inicio(LocalDate de, LocalDate fim) {
+        LocalDate inicio = de != null ? de : fim.minusDays(DIAS_PADRAO - 1);
+        if (inicio.isAfter(fim)) {
+            throw new IllegalArgumentException("Data inicial posterior à data final");
+        }
+        return inicio;
+    }
+}
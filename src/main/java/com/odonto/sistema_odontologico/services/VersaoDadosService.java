@@ -0,0 +1,63 @@
+package com.odonto.sistema_odontologico.services;
+
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versão de cada tipo de entidade, usada para montar os ETags das listagens e detalhes.
+ * Os services avisam toda escrita e a versão do tipo é incrementada após o commit, então o ETag
+ * é calculado antes de consultar o banco e uma requisição com If-None-Match igual recebe 304
+ * sem consulta nem serialização do corpo.
+ */
+@Service
+public class VersaoDadosService {
+
+    public enum Tipo { PACIENTE, MATERIAL, PROCEDIMENTO }
+
+    // muda a cada inicialização: ETags emitidos antes de reiniciar a aplicação deixam de valer
+    private final String epoca = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private final Map<Tipo, AtomicLong> versoes = new EnumMap<>(Tipo.class);
+
+    public VersaoDadosService() {
+        for (Tipo tipo : Tipo.values()) {
+            versoes.put(tipo, new AtomicLong());
+        }
+    }
+
+    /**
+     * Registra uma escrita nos tipos informados; a versão só muda se a transação atual for confirmada
+     */
+    public void registrarAlteracao(Tipo... tipos) {
+        AcoesTransacao.aposConfirmar(() -> {
+            for (Tipo tipo : tipos) {
+                versoes.get(tipo).incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * ETag forte de uma listagem cujo corpo depende dos tipos informados
+     */
+    public String etag(Tipo... tipos) {
+        return "\"" + versao(tipos) + "\"";
+    }
+
+    /**
+     * ETag forte do detalhe de um registro; muda junto com qualquer escrita nos tipos informados
+     */
+    public String etag(Long id, Tipo... tipos) {
+        return "\"" + versao(tipos) + "-" + id + "\"";
+    }
+
+    private String versao(Tipo... tipos) {
+        StringBuilder versao = new StringBuilder(epoca);
+        for (Tipo tipo : tipos) {
+            versao.append('-').append(tipo.name().charAt(0)).append(versoes.get(tipo).get());
+        }
+        return versao.toString();
+    }
+}
@@ -11,20 +11,53 @@ class API {
     return new Promise(resolve => setTimeout(resolve, ms));
   }
 
+  /**
+   * GET condicional: guarda o corpo e o ETag no sessionStorage e reenvia o ETag em If-None-Match.
+   * Com 304 o corpo guardado é reaproveitado sem baixar a lista de novo a cada navegação.
+   * vazio é o valor devolvido quando o backend responde 204 (lista vazia)
+   */
+  async getComEtag(url, mensagemErro, vazio = null) {
+    const chave = `etag:${url}`;
+    let guardado = null;
+    try {
+      guardado = JSON.parse(sessionStorage.getItem(chave));
+    } catch (e) {
+      guardado = null;
+    }
+
+    const response = await fetch(url, {
+      headers: guardado ? { 'If-None-Match': guardado.etag } : {},
+      cache: 'no-store'
+    });
+
+    if (response.status === 304 && guardado) {
+      return guardado.dados;
+    }
+    if (!response.ok) {
+      throw new Error(mensagemErro);
+    }
+
+    const dados = response.status === 204 ? vazio : await response.json();
+    const etag = response.headers.get('ETag');
+    try {
+      if (etag) {
+        sessionStorage.setItem(chave, JSON.stringify({ etag, dados }));
+      } else {
+        sessionStorage.removeItem(chave);
+      }
+    } catch (e) {
+      // sessionStorage cheio: segue sem guardar
+    }
+    return dados;
+  }
+
   // Pacientes
     async getPacientes() {
     if (USE_MOCK) {
       await this.delay();
       return JSON.parse(localStorage.getItem('pacientes') || '[]');
     } else {
-      const response = await fetch(`${API_BASE_URL}/pacientes`);
-
-      if (!response.ok) {
-        throw new Error("Erro ao buscar pacientes no backend");
-      }
-
-      const dados = await response.json();
-      return dados;
+      return this.getComEtag(`${API_BASE_URL}/pacientes`, "Erro ao buscar pacientes no backend", []);
     }
   }
 
@@ -34,13 +67,7 @@ class API {
       const pacientes = JSON.parse(localStorage.getItem('pacientes') || '[]');
       return pacientes.find(p => p.id === id);
     } else {
-      const response = await fetch(`${API_BASE_URL}/pacientes/${id}`);
-
-      if (!response.ok) {
-        throw new Error("Erro ao buscar paciente");
-      }
-
-      return response.json();
+      return this.getComEtag(`${API_BASE_URL}/pacientes/${id}`, "Erro ao buscar paciente");
     }
   }
 
@@ -137,11 +164,7 @@ class API {
       await this.delay();
       return JSON.parse(localStorage.getItem('materiais') || '[]');
     } else {
-      const response = await fetch(`${API_BASE_URL}/materiais`);
-      if (!response.ok) {
-        throw new Error('Erro ao buscar materiais no backend');
-      }
-      return response.json();
+      return this.getComEtag(`${API_BASE_URL}/materiais`, 'Erro ao buscar materiais no backend', []);
     }
   }
 
@@ -151,11 +174,7 @@ class API {
       const materiais = JSON.parse(localStorage.getItem('materiais') || '[]');
       return materiais.find(m => m.id === id);
     } else {
-      const response = await fetch(`${API_BASE_URL}/materiais/${id}`);
-      if (!response.ok) {
-        throw new Error('Erro ao buscar material');
-      }
-      return response.json();
+      return this.getComEtag(`${API_BASE_URL}/materiais/${id}`, 'Erro ao buscar material');
     }
   }
 
@@ -174,6 +193,8 @@ class API {
       const payload = {
         nomeMaterial: data.nomeMaterial ?? data.nome_material ?? data.nome,
         quantidade: Number(data.quantidade),
+        // vazio = material sem alerta de reposição
+        pontoReposicao: data.pontoReposicao === '' || data.pontoReposicao == null ? null : Number(data.pontoReposicao),
         valor: Number(data.valor),
         reutilizavel: data.reutilizavel === true || data.reutilizavel === 'S'
       };
@@ -206,6 +227,8 @@ class API {
       const payload = {
         nomeMaterial: data.nomeMaterial ?? data.nome_material ?? data.nome,
         quantidade: Number(data.quantidade),
+        // vazio = material sem alerta de reposição
+        pontoReposicao: data.pontoReposicao === '' || data.pontoReposicao == null ? null : Number(data.pontoReposicao),
         valor: Number(data.valor),
         reutilizavel: data.reutilizavel === true || data.reutilizavel === 'S'
       };
@@ -243,7 +266,22 @@ class API {
     }
   }
 
+  /**
+   * Assina os alertas de ponto de reposição (Server-Sent Events).
+   * aoReceber(tipo, alerta) recebe 'estoque-baixo' ou 'estoque-reposto'; o EventSource reconecta sozinho
+   */
+  assinarAlertasEstoque(aoReceber) {
+    if (USE_MOCK || typeof EventSource === 'undefined') {
+      return null;
+    }
+    const fonte = new EventSource(`${API_BASE_URL}/materiais/alertas`);
+    ['estoque-baixo', 'estoque-reposto'].forEach(tipo =>
+      fonte.addEventListener(tipo, evento => aoReceber(tipo, JSON.parse(evento.data))));
+    return fonte;
+  }
+
   // Procedimentos
+  // a listagem usa a visão resumo do backend: paciente só com id e nome, sem materiais
   async getProcedimentos() {
     if (USE_MOCK) {
       await this.delay();
@@ -257,16 +295,12 @@ class API {
         }))
       }));
     } else {
-      const response = await fetch(`${API_BASE_URL}/procedimentos`);
-      if (!response.ok) {
-        throw new Error('Erro ao buscar procedimentos no backend');
-      }
-      // aqui assumo que o backend já devolve o procedimento com seus materiais (ou pelo menos o básico)
-      return response.json();
+      return this.getComEtag(`${API_BASE_URL}/procedimentos?view=resumo`, 'Erro ao buscar procedimentos no backend', []);
     }
   }
 
-  async getProcedimento(id) {
+  // view: 'resumo' ou 'detalhe'; sem view o backend devolve a entidade completa (usada no formulário)
+  async getProcedimento(id, view) {
     if (USE_MOCK) {
       await this.delay();
       const procedimentos = JSON.parse(localStorage.getItem('procedimentos') || '[]');
@@ -281,11 +315,8 @@ class API {
         }))
       };
     } else {
-      const response = await fetch(`${API_BASE_URL}/procedimentos/${id}`);
-      if (!response.ok) {
-        throw new Error('Erro ao buscar procedimento');
-      }
-      return response.json();
+      const params = view ? `?view=${view}` : '';
+      return this.getComEtag(`${API_BASE_URL}/procedimentos/${id}${params}`, 'Erro ao buscar procedimento');
     }
   }
 
@@ -392,18 +423,27 @@ class API {
     }
   }
 
-  async getProcedimentosByPaciente(pacienteId) {
+  /**
+   * Histórico paginado do paciente, filtrado no servidor.
+   * filtros: { from, to } no formato yyyy-MM-dd, pagina (a partir de 0) e tamanho.
+   * Retorna { content: [...], page: { number, size, totalElements, totalPages } }
+   */
+  async getProcedimentosByPaciente(pacienteId, { from, to, pagina = 0, tamanho = 20 } = {}) {
     if (USE_MOCK) {
       await this.delay();
       const procedimentos = await this.getProcedimentos();
-      return procedimentos.filter(p => p.pacienteId === pacienteId);
+      const content = procedimentos.filter(p => p.pacienteId === pacienteId);
+      return { content, page: { number: 0, size: content.length, totalElements: content.length, totalPages: 1 } };
     } else {
-      // se você tiver esse endpoint no backend, use:
-      // const response = await fetch(`${API_BASE_URL}/procedimentos/paciente/${pacienteId}`);
-      // ...
-      // se não tiver, por enquanto busca todos e filtra no front:
-      const procedimentos = await this.getProcedimentos();
-      return procedimentos.filter(p => p.pacienteId === pacienteId);
+      const params = new URLSearchParams({ pagina, tamanho });
+      if (from) params.append('from', from);
+      if (to) params.append('to', to);
+
+      const response = await fetch(`${API_BASE_URL}/pacientes/${pacienteId}/procedimentos?${params}`);
+      if (!response.ok) {
+        throw new Error('Erro ao buscar procedimentos do paciente');
+      }
+      return response.json();
     }
   }
 
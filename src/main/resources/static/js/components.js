@@ -77,3 +77,16 @@ function createActionButtons(id, onView, onEdit, onDelete) {
     </div>
   `;
 }
+
+// Alertas de estoque em tempo real, exibidos em qualquer página que carregue este arquivo
+function iniciarAlertasEstoque() {
+  api.assinarAlertasEstoque((tipo, alerta) => {
+    if (tipo === 'estoque-baixo') {
+      toast.error(`Estoque baixo: ${alerta.nomeMaterial} (${alerta.quantidade} / ponto de reposição ${alerta.pontoReposicao})`);
+    } else {
+      toast.success(`Estoque reposto: ${alerta.nomeMaterial} (${alerta.quantidade})`);
+    }
+  });
+}
+
+document.addEventListener('DOMContentLoaded', iniciarAlertasEstoque);
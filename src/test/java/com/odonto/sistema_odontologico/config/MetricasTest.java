@@ -0,0 +1,61 @@
+package com.odonto.sistema_odontologico.config;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.services.MaterialService;
+
+/**
+ * O endpoint Prometheus expõe os tempos dos services, os contadores de negócio,
+ * as estatísticas do Hibernate e do pool de conexões
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:metricas;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricasTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MaterialService materialService;
+
+    @Test
+    void prometheusExpoeMetricasDaAplicacao() throws Exception {
+        Material material = materialService.cadastrarMaterial(Material.builder()
+                .nomeMaterial("Sugador")
+                .quantidade(1)
+                .valor(new BigDecimal("0.80"))
+                .reutilizavel(false)
+                .build());
+        assertThrows(RuntimeException.class, () -> materialService.removerEstoque(material.getId(), 5));
+        mockMvc.perform(get("/api/materiais/" + material.getId())).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "odonto_servico_seconds_count{application=\"sistema-odontologico\",class=\"com.odonto.sistema_odontologico.services.MaterialService\"")))
+                .andExpect(content().string(containsString("odonto_estoque_rejeicoes_total")))
+                .andExpect(content().string(containsString("odonto_preco_calculos_total")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds")))
+                .andExpect(content().string(containsString("hibernate_")))
+                .andExpect(content().string(containsString("hikaricp_connections")));
+    }
+}
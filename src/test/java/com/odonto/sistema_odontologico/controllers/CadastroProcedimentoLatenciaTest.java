@@ -0,0 +1,181 @@
+package com.odonto.sistema_odontologico.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.odonto.sistema_odontologico.SistemaOdontologicoApplication;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+import com.odonto.sistema_odontologico.services.OutboxService;
+
+/**
+ * Latência do POST /api/procedimentos com os efeitos derivados na transação do cadastro
+ * (odonto.outbox.habilitado=false) e aplicados pelo outbox após o commit.
+ * Os clientes concorrentes cadastram para poucos pacientes, como numa clínica com agenda cheia:
+ * é onde a linha do paciente e os resumos do dia viram disputa de trava.
+ * Mostra p50/p99 de cada modo e o tempo até o outbox esvaziar; só falha se algum cadastro falhar.
+ * Executar com: ./mvnw test -Dtest=CadastroProcedimentoLatenciaTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CadastroProcedimentoLatenciaTest {
+
+    private static final int CLIENTES = 32;
+    private static final int CADASTROS_POR_CLIENTE = 50;
+    private static final int PACIENTES = 4;
+    private static final int MATERIAIS = 8;
+
+    @Test
+    void compararCadastroSincronoEComOutbox() throws Exception {
+        Resultado sincrono = medir(false);
+        Resultado outbox = medir(true);
+
+        System.out.printf("Síncrono - %.0f req/s | p50 %.1f ms | p99 %.1f ms | falhas %d%n",
+                sincrono.vazao, sincrono.p50Ms, sincrono.p99Ms, sincrono.falhas);
+        System.out.printf("Outbox   - %.0f req/s | p50 %.1f ms | p99 %.1f ms | falhas %d | outbox vazio após %d ms%n",
+                outbox.vazao, outbox.p50Ms, outbox.p99Ms, outbox.falhas, outbox.esvaziamentoMs);
+
+        assertEquals(0, sincrono.falhas);
+        assertEquals(0, outbox.falhas);
+    }
+
+    private Resultado medir(boolean outbox) throws Exception {
+        SpringApplicationBuilder aplicacao = new SpringApplicationBuilder(SistemaOdontologicoApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:cadastro-" + outbox + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.devtools.restart.enabled=false",
+                        "odonto.sql.lentas.amostragem=0",
+                        "odonto.outbox.habilitado=" + outbox);
+        try (ConfigurableApplicationContext contexto = aplicacao.run()) {
+            List<String> corpos = popularBase(contexto);
+            URI endereco = URI.create("http://localhost:"
+                    + contexto.getEnvironment().getProperty("local.server.port") + "/api/procedimentos");
+
+            // aquecimento (JIT, caches e pool de conexões)
+            disparar(endereco, corpos, 8, 20);
+            Resultado resultado = disparar(endereco, corpos, CLIENTES, CADASTROS_POR_CLIENTE);
+
+            long inicio = System.nanoTime();
+            OutboxService outboxService = contexto.getBean(OutboxService.class);
+            while (outboxService.totalPendentes() > 0) {
+                Thread.sleep(5);
+            }
+            resultado.esvaziamentoMs = (System.nanoTime() - inicio) / 1_000_000;
+            return resultado;
+        }
+    }
+
+    private Resultado disparar(URI endereco, List<String> corpos, int clientes, int cadastrosPorCliente) throws Exception {
+        long[] latencias = new long[clientes * cadastrosPorCliente];
+        AtomicInteger falhas = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(clientes)) {
+            HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+            List<Future<?>> futuros = new ArrayList<>();
+            for (int c = 0; c < clientes; c++) {
+                int cliente = c;
+                futuros.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < cadastrosPorCliente; i++) {
+                        HttpRequest requisicao = HttpRequest.newBuilder(endereco)
+                                .header("Content-Type", "application/json")
+                                .timeout(Duration.ofMinutes(1))
+                                .POST(HttpRequest.BodyPublishers.ofString(corpos.get((cliente + i) % corpos.size())))
+                                .build();
+                        long inicio = System.nanoTime();
+                        try {
+                            HttpResponse<Void> resposta = http.send(requisicao, HttpResponse.BodyHandlers.discarding());
+                            if (resposta.statusCode() != 201) {
+                                falhas.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            falhas.incrementAndGet();
+                        }
+                        latencias[cliente * cadastrosPorCliente + i] = System.nanoTime() - inicio;
+                    }
+                    return null;
+                }));
+            }
+            long inicio = System.nanoTime();
+            largada.countDown();
+            for (Future<?> futuro : futuros) {
+                futuro.get(10, TimeUnit.MINUTES);
+            }
+            long duracao = System.nanoTime() - inicio;
+
+            Arrays.sort(latencias);
+            return new Resultado(latencias.length / (duracao / 1e9),
+                    percentil(latencias, 0.50), percentil(latencias, 0.99), falhas.get());
+        }
+    }
+
+    private static double percentil(long[] ordenadas, double percentil) {
+        int indice = (int) Math.ceil(percentil * ordenadas.length) - 1;
+        return ordenadas[Math.max(indice, 0)] / 1e6;
+    }
+
+    /**
+     * Corpos de POST combinando os pacientes com materiais de estoque suficiente para a medição inteira
+     */
+    private List<String> popularBase(ConfigurableApplicationContext contexto) {
+        MaterialRepository materialRepository = contexto.getBean(MaterialRepository.class);
+        PacienteRepository pacienteRepository = contexto.getBean(PacienteRepository.class);
+
+        List<Long> materiais = new ArrayList<>();
+        for (int i = 0; i < MATERIAIS; i++) {
+            materiais.add(materialRepository.save(Material.builder()
+                    .nomeMaterial("Material " + i).quantidade(1_000_000).valor(new BigDecimal("7.50"))
+                    .reutilizavel(i % 2 == 0).build()).getId());
+        }
+        List<String> corpos = new ArrayList<>();
+        for (int p = 0; p < PACIENTES; p++) {
+            Long pacienteId = pacienteRepository.save(Paciente.builder()
+                    .nomePaciente("Paciente " + p).idade(30 + p).fidelidade(0).build()).getId();
+            for (int m = 0; m < MATERIAIS; m += 2) {
+                corpos.add("{\"nomeProcedimento\":\"Restauração\",\"assistente\":false,\"duracao\":1.0,"
+                        + "\"pacienteId\":" + pacienteId + ",\"materiaisIds\":[" + materiais.get(m) + ","
+                        + materiais.get(m + 1) + "]}");
+            }
+        }
+        return corpos;
+    }
+
+    private static final class Resultado {
+        final double vazao;
+        final double p50Ms;
+        final double p99Ms;
+        final int falhas;
+        long esvaziamentoMs;
+
+        Resultado(double vazao, double p50Ms, double p99Ms, int falhas) {
+            this.vazao = vazao;
+            this.p50Ms = p50Ms;
+            this.p99Ms = p99Ms;
+            this.falhas = falhas;
+        }
+    }
+}
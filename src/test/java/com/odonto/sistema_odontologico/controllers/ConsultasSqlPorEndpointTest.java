@@ -0,0 +1,177 @@
+package com.odonto.sistema_odontologico.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.odonto.sistema_odontologico.config.ContadorSqlFilter;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+import com.odonto.sistema_odontologico.repositories.ProcedimentoRepository;
+import com.odonto.sistema_odontologico.services.BuscaNomeService;
+
+/**
+ * Orçamento de instruções SQL por endpoint. Com 30 procedimentos na base, um N+1 passaria
+ * de 30 consultas; o limite de cada endpoint é o número esperado com uma pequena folga.
+ * Qualquer endpoint acima de odonto.sql.limite-consultas falha no próprio filtro.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:consultassql;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "odonto.sql.contador.habilitado=true",
+        "odonto.sql.lentas.habilitado=true",
+        "odonto.sql.limite-consultas=10",
+        "odonto.sql.falhar-acima-do-limite=true"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConsultasSqlPorEndpointTest {
+
+    private static final int QUANTIDADE = 30;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private ProcedimentoRepository procedimentoRepository;
+
+    @Autowired
+    private BuscaNomeService buscaNomeService;
+
+    private Paciente paciente;
+    private Material material;
+    private Procedimento procedimento;
+    private String idsProcedimentos;
+
+    @BeforeAll
+    void popularBase() {
+        paciente = pacienteRepository.save(Paciente.builder()
+                .nomePaciente("Paciente Consultas").idade(40).fidelidade(120).build());
+
+        List<Procedimento> procedimentos = new ArrayList<>();
+        for (int i = 0; i < QUANTIDADE; i++) {
+            Material luva = materialRepository.save(Material.builder()
+                    .nomeMaterial("Luva " + i).quantidade(10).valor(new BigDecimal("5.00")).reutilizavel(false).build());
+            Material espelho = materialRepository.save(Material.builder()
+                    .nomeMaterial("Espelho " + i).quantidade(10).valor(new BigDecimal("9.00")).reutilizavel(true).build());
+            procedimentos.add(Procedimento.builder()
+                    .nomeProcedimento("Limpeza " + i)
+                    .assistente(i % 2 == 0)
+                    .duracao(30f)
+                    .paciente(paciente)
+                    .materiais(List.of(luva, espelho))
+                    .valorMaoObra(new BigDecimal("100.00"))
+                    .valorFinal(new BigDecimal("80.00"))
+                    .build());
+            material = luva;
+        }
+        procedimentos = procedimentoRepository.saveAll(procedimentos);
+        procedimento = procedimentos.get(0);
+        idsProcedimentos = String.join(",", procedimentos.stream().map(p -> p.getId().toString()).toList());
+        // os índices de /buscar foram carregados na subida, com a base ainda vazia
+        buscaNomeService.carregarIndices();
+    }
+
+    @ParameterizedTest(name = "{0} <= {1} consultas")
+    @CsvSource({
+            "/api/materiais, 3",
+            "/api/materiais/pagina, 3",
+            "/api/materiais/{material}, 3",
+            "/api/materiais/buscar?nome=luva, 3",
+            "/api/materiais/reutilizaveis?valor=true, 3",
+            "/api/materiais/estoque-baixo?quantidade=50, 3",
+            "/api/materiais/{material}/verificar-estoque?quantidade=1, 3",
+            "/api/pacientes, 3",
+            "/api/pacientes/pagina, 3",
+            "/api/pacientes/{paciente}, 3",
+            "/api/pacientes/{paciente}/procedimentos, 3",
+            "/api/pacientes/buscar?nome=paciente, 3",
+            "/api/procedimentos, 4",
+            "/api/procedimentos/pagina, 4",
+            "/api/procedimentos/{procedimento}, 4",
+            "/api/procedimentos/buscar?nome=limpeza, 4",
+            "/api/procedimentos/paciente/{paciente}, 4",
+            "/api/procedimentos/com-assistente?valor=true, 4",
+            "/api/procedimentos/{procedimento}/detalhamento, 4",
+            "/api/procedimentos/detalhamentos?ids={procedimentos}, 4",
+            "/api/cache/estatisticas, 0",
+            "/api/sql/consultas-lentas, 0",
+            "/api/relatorios/receita?agrupar=mes, 1",
+            "/api/relatorios/receita/pacientes, 1",
+            "/api/relatorios/consumo-materiais, 1",
+            "/api/relatorios/consumo-materiais/{material}, 1"
+    })
+    void endpointFicaDentroDoOrcamentoDeConsultas(String endpoint, int limite) throws Exception {
+        MvcResult resultado = mockMvc.perform(get(resolver(endpoint)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertDentroDoLimite(resultado, limite);
+    }
+
+    @Test
+    void orcamentoFicaDentroDoOrcamentoDeConsultas() throws Exception {
+        StringBuilder corpo = new StringBuilder("[");
+        for (int i = 0; i < QUANTIDADE; i++) {
+            if (i > 0) {
+                corpo.append(',');
+            }
+            corpo.append("{\"nomeProcedimento\":\"Orçamento ").append(i)
+                    .append("\",\"assistente\":false,\"duracao\":30,\"pacienteId\":").append(paciente.getId())
+                    .append(",\"materiaisIds\":[").append(material.getId()).append("]}");
+        }
+        corpo.append(']');
+
+        MvcResult resultado = mockMvc.perform(post("/api/orcamentos")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(corpo.toString()))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertDentroDoLimite(resultado, 4);
+    }
+
+    private String resolver(String endpoint) {
+        return endpoint
+                .replace("{material}", material.getId().toString())
+                .replace("{paciente}", paciente.getId().toString())
+                .replace("{procedimento}", procedimento.getId().toString())
+                .replace("{procedimentos}", idsProcedimentos);
+    }
+
+    private void assertDentroDoLimite(MvcResult resultado, int limite) {
+        String consultas = resultado.getResponse().getHeader(ContadorSqlFilter.CABECALHO_CONSULTAS);
+        assertNotNull(consultas, "resposta sem o cabeçalho " + ContadorSqlFilter.CABECALHO_CONSULTAS);
+        assertNotNull(resultado.getResponse().getHeader(ContadorSqlFilter.CABECALHO_LINHAS));
+        assertNotNull(resultado.getResponse().getHeader(ContadorSqlFilter.CABECALHO_TEMPO));
+        assertTrue(Integer.parseInt(consultas) <= limite,
+                resultado.getRequest().getRequestURI() + " executou " + consultas + " consultas (limite " + limite + ")");
+    }
+}
@@ -0,0 +1,144 @@
+package com.odonto.sistema_odontologico.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.odonto.sistema_odontologico.dto.ProcedimentoDetalheDTO;
+import com.odonto.sistema_odontologico.dto.ProcedimentoResumoDTO;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import com.odonto.sistema_odontologico.services.ProcedimentoService;
+
+/**
+ * Tamanho do payload (puro e em gzip) e tempo da listagem de procedimentos em cada visão,
+ * com 20 mil procedimentos de 4 materiais cada:
+ * ./mvnw test -Dtest=ProcedimentoPayloadBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:payloadbenchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "odonto.sql.limite-consultas=1000",
+        "odonto.sql.lentas.amostragem=0"
+})
+@AutoConfigureMockMvc
+class ProcedimentoPayloadBenchmarkTest {
+
+    private static final int PROCEDIMENTOS = 20_000;
+    private static final int PACIENTES = 500;
+    private static final int MATERIAIS = 200;
+    private static final int MATERIAIS_POR_PROCEDIMENTO = 4;
+    private static final int REPETICOES = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProcedimentoService procedimentoService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void compararPayloadEntidadeComVisoes() throws Exception {
+        popularBase();
+
+        // só a serialização, com os dados já carregados
+        List<Procedimento> entidades = procedimentoService.listarTodos();
+        List<?> resumos = procedimentoService.listarVisao(ProcedimentoService.Visao.RESUMO);
+        List<?> detalhes = entidades.stream().map(ProcedimentoDetalheDTO::de).toList();
+        ObjectWriter comFiltro = objectMapper.writer(new SimpleFilterProvider()
+                .addFilter(ProcedimentoResumoDTO.FILTRO_CAMPOS, SimpleBeanPropertyFilter.serializeAll()));
+        System.out.println("serialização          |   bytes (MB) |   gzip (MB) |   tempo (ms)");
+        long bytesEntidade = medirSerializacao("entidade completa", comFiltro, entidades);
+        long bytesResumo = medirSerializacao("visão resumo", comFiltro, resumos);
+        medirSerializacao("visão detalhe", comFiltro, detalhes);
+
+        // requisição inteira: consulta, montagem das visões e serialização
+        Map<String, String> variantes = new LinkedHashMap<>();
+        variantes.put("entidade completa", "/api/procedimentos");
+        variantes.put("view=resumo", "/api/procedimentos?view=resumo");
+        variantes.put("view=detalhe", "/api/procedimentos?view=detalhe");
+        variantes.put("fields=id,valorFinal", "/api/procedimentos?fields=id,valorFinal");
+        System.out.println("requisição            |   bytes (MB) |   gzip (MB) |   tempo (ms)");
+        for (Map.Entry<String, String> variante : variantes.entrySet()) {
+            medirRequisicao(variante.getKey(), variante.getValue());
+        }
+
+        assertTrue(bytesResumo * 3 < bytesEntidade, "a visão resumo deveria ser bem menor que a entidade completa");
+    }
+
+    private long medirSerializacao(String nome, ObjectWriter escritor, List<?> dados) throws IOException {
+        byte[] json = escritor.writeValueAsBytes(dados);
+        for (int i = 0; i < REPETICOES; i++) {
+            escritor.writeValueAsBytes(dados); // aquecimento
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < REPETICOES; i++) {
+            escritor.writeValueAsBytes(dados);
+        }
+        imprimir(nome, json, (System.nanoTime() - inicio) / 1e6 / REPETICOES);
+        return json.length;
+    }
+
+    private void medirRequisicao(String nome, String url) throws Exception {
+        byte[] json = mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse().getContentAsByteArray();
+        for (int i = 0; i < REPETICOES; i++) {
+            mockMvc.perform(get(url)); // aquecimento
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < REPETICOES; i++) {
+            mockMvc.perform(get(url));
+        }
+        imprimir(nome, json, (System.nanoTime() - inicio) / 1e6 / REPETICOES);
+    }
+
+    private static void imprimir(String nome, byte[] json, double tempoMs) throws IOException {
+        System.out.printf("%-22s | %12.2f | %11.2f | %12.1f%n", nome, json.length / 1e6, gzip(json) / 1e6, tempoMs);
+    }
+
+    private static long gzip(byte[] dados) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(dados);
+        }
+        return saida.size();
+    }
+
+    private void popularBase() {
+        jdbcTemplate.update("INSERT INTO pacientes (id, nome_paciente, idade, fidelidade) " +
+                "SELECT X, 'Paciente ' || X, 30, 0 FROM SYSTEM_RANGE(1, ?)", PACIENTES);
+        jdbcTemplate.update("INSERT INTO materiais (id, nome_material, quantidade, valor, reutilizavel) " +
+                "SELECT X, 'Material ' || X, 1000, 5.00, MOD(X, 2) = 0 FROM SYSTEM_RANGE(1, ?)", MATERIAIS);
+        jdbcTemplate.update("INSERT INTO procedimentos (id, nome_procedimento, assistente, duracao, paciente_id, " +
+                "valor_mao_obra, valor_final, data_criacao) " +
+                "SELECT X, 'Procedimento ' || X, MOD(X, 3) = 0, 1.5, MOD(X, ?) + 1, 100.00, 157.50, " +
+                "DATEADD(SECOND, X, TIMESTAMP '2025-01-01 08:00:00') FROM SYSTEM_RANGE(1, ?)", PACIENTES, PROCEDIMENTOS);
+        for (int i = 0; i < MATERIAIS_POR_PROCEDIMENTO; i++) {
+            jdbcTemplate.update("INSERT INTO procedimento_materiais (procedimento_id, material_id) " +
+                    "SELECT X, MOD(X + ?, ?) + 1 FROM SYSTEM_RANGE(1, ?)", i, MATERIAIS, PROCEDIMENTOS);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.odonto.sistema_odontologico.controllers;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+import com.odonto.sistema_odontologico.repositories.ProcedimentoRepository;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:procedimentovisoes;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProcedimentoVisoesTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private ProcedimentoRepository procedimentoRepository;
+
+    private Procedimento procedimento;
+
+    @BeforeAll
+    void popularBase() {
+        Paciente paciente = pacienteRepository.save(Paciente.builder()
+                .nomePaciente("Paciente Visões").idade(45).fidelidade(0).build());
+        Material luva = materialRepository.save(Material.builder()
+                .nomeMaterial("Luva Visões").quantidade(10).valor(new BigDecimal("5.00")).reutilizavel(false).build());
+        procedimento = procedimentoRepository.save(Procedimento.builder()
+                .nomeProcedimento("Limpeza Visões")
+                .assistente(true)
+                .duracao(1.5f)
+                .paciente(paciente)
+                .materiais(List.of(luva))
+                .valorMaoObra(new BigDecimal("100.00"))
+                .valorFinal(new BigDecimal("155.00"))
+                .build());
+    }
+
+    @Test
+    void resumoTrazPacienteReduzidoESemMateriais() throws Exception {
+        mockMvc.perform(get("/api/procedimentos").param("view", "resumo"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].nomeProcedimento").value("Limpeza Visões"))
+                .andExpect(jsonPath("$[0].pacienteId").value(procedimento.getPaciente().getId()))
+                .andExpect(jsonPath("$[0].nomePaciente").value("Paciente Visões"))
+                .andExpect(jsonPath("$[0].paciente").doesNotExist())
+                .andExpect(jsonPath("$[0].materiais").doesNotExist());
+    }
+
+    @Test
+    void detalheTrazMateriaisSemEstoque() throws Exception {
+        mockMvc.perform(get("/api/procedimentos/" + procedimento.getId()).param("view", "detail"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valorMaoObra").value(100.00))
+                .andExpect(jsonPath("$.materiais[0].nomeMaterial").value("Luva Visões"))
+                .andExpect(jsonPath("$.materiais[0].quantidade").doesNotExist());
+    }
+
+    @Test
+    void fieldsDevolveSoOsCamposPedidosEEscolheAVisaoQueOsContem() throws Exception {
+        mockMvc.perform(get("/api/procedimentos").param("fields", "id,valorFinal"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(procedimento.getId()))
+                .andExpect(jsonPath("$[0].valorFinal").value(155.00))
+                .andExpect(jsonPath("$[0].nomeProcedimento").doesNotExist());
+
+        mockMvc.perform(get("/api/procedimentos/" + procedimento.getId()).param("fields", "nomeProcedimento,materiais"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.materiais[0].nomeMaterial").value("Luva Visões"))
+                .andExpect(jsonPath("$.id").doesNotExist());
+    }
+
+    @Test
+    void campoOuVisaoInexistenteResponde400() throws Exception {
+        mockMvc.perform(get("/api/procedimentos").param("view", "resumo").param("fields", "materiais"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/procedimentos").param("fields", "senha"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/procedimentos").param("view", "completa"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void semVisaoMantemAEntidadeCompleta() throws Exception {
+        mockMvc.perform(get("/api/procedimentos/" + procedimento.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.paciente.nomePaciente").value("Paciente Visões"))
+                .andExpect(jsonPath("$.materiais[0].quantidade").value(10));
+    }
+}
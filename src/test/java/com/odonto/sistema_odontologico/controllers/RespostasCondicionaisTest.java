@@ -0,0 +1,114 @@
+package com.odonto.sistema_odontologico.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.odonto.sistema_odontologico.config.ContadorSqlFilter;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+import com.odonto.sistema_odontologico.repositories.ProcedimentoRepository;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:respostascondicionais;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // o 304 é conferido pelo cabeçalho X-SQL-Consultas
+        "odonto.sql.contador.habilitado=true"
+})
+@AutoConfigureMockMvc
+class RespostasCondicionaisTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private ProcedimentoRepository procedimentoRepository;
+
+    @Test
+    void listaRespondeNaoModificadoSemConsultarOBancoAteAProximaEscrita() throws Exception {
+        materialRepository.save(Material.builder()
+                .nomeMaterial("Gaze").quantidade(5).valor(new BigDecimal("1.00")).reutilizavel(false).build());
+
+        String etag = obter("/api/materiais", null, 200).getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        MvcResult naoModificado = obter("/api/materiais", etag, 304);
+        assertEquals("", naoModificado.getResponse().getContentAsString());
+        assertEquals("0", naoModificado.getResponse().getHeader(ContadorSqlFilter.CABECALHO_CONSULTAS));
+
+        mockMvc.perform(post("/api/materiais")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nomeMaterial\":\"Algodão\",\"quantidade\":3,\"valor\":2.50,\"reutilizavel\":false}"))
+                .andExpect(status().isCreated());
+
+        String novoEtag = obter("/api/materiais", etag, 200).getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, novoEtag);
+        obter("/api/materiais", novoEtag, 304);
+    }
+
+    @Test
+    void detalheMudaComEscritaNoProprioTipoOuEmTipoRelacionado() throws Exception {
+        Paciente paciente = pacienteRepository.save(Paciente.builder()
+                .nomePaciente("Paciente Etag").idade(30).fidelidade(0).build());
+        Material espelho = materialRepository.save(Material.builder()
+                .nomeMaterial("Espelho Etag").quantidade(1).valor(new BigDecimal("9.00")).reutilizavel(true).build());
+        Procedimento procedimento = procedimentoRepository.save(Procedimento.builder()
+                .nomeProcedimento("Avaliação Etag")
+                .assistente(false)
+                .duracao(30f)
+                .valorMaoObra(new BigDecimal("100.00"))
+                .valorFinal(new BigDecimal("100.90"))
+                .paciente(paciente)
+                .materiais(List.of(espelho))
+                .build());
+
+        String urlPaciente = "/api/pacientes/" + paciente.getId();
+        String urlProcedimento = "/api/procedimentos/" + procedimento.getId();
+        String etagPaciente = obter(urlPaciente, null, 200).getResponse().getHeader(HttpHeaders.ETAG);
+        String etagProcedimento = obter(urlProcedimento, null, 200).getResponse().getHeader(HttpHeaders.ETAG);
+        obter(urlPaciente, etagPaciente, 304);
+        obter(urlProcedimento, etagProcedimento, 304);
+
+        // o procedimento traz o nome do paciente: editar o paciente invalida os dois
+        mockMvc.perform(put(urlPaciente)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nomePaciente\":\"Paciente Etag Editado\",\"idade\":31,\"fidelidade\":0}"))
+                .andExpect(status().isOk());
+
+        obter(urlPaciente, etagPaciente, 200);
+        obter(urlProcedimento, etagProcedimento, 200);
+    }
+
+    private MvcResult obter(String url, String etag, int statusEsperado) throws Exception {
+        var requisicao = get(url);
+        if (etag != null) {
+            requisicao.header(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        return mockMvc.perform(requisicao).andExpect(status().is(statusEsperado)).andReturn();
+    }
+}
@@ -0,0 +1,168 @@
+package com.odonto.sistema_odontologico.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.odonto.sistema_odontologico.SistemaOdontologicoApplication;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+import com.odonto.sistema_odontologico.repositories.ProcedimentoRepository;
+
+/**
+ * Teste de carga: a mesma rajada de requisições (bem mais clientes simultâneos que as 200 threads
+ * do Tomcat) contra a aplicação com threads de plataforma e com o perfil "virtual".
+ * Mostra vazão e latência p50/p99 de cada modo; só falha se alguma requisição não for atendida.
+ * Executar com: ./mvnw test -Dtest=ThreadsVirtuaisCargaTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ThreadsVirtuaisCargaTest {
+
+    private static final int CLIENTES = 1_000;
+    private static final int REQUISICOES_POR_CLIENTE = 20;
+    private static final int PROCEDIMENTOS = 500;
+
+    @Test
+    void compararThreadsDePlataformaEVirtuais() throws Exception {
+        Resultado plataforma = medir(false);
+        Resultado virtuais = medir(true);
+
+        System.out.printf("Plataforma - %.0f req/s | p50 %.1f ms | p99 %.1f ms | falhas %d%n",
+                plataforma.vazao, plataforma.p50Ms, plataforma.p99Ms, plataforma.falhas);
+        System.out.printf("Virtuais   - %.0f req/s | p50 %.1f ms | p99 %.1f ms | falhas %d%n",
+                virtuais.vazao, virtuais.p50Ms, virtuais.p99Ms, virtuais.falhas);
+
+        assertEquals(0, plataforma.falhas);
+        assertEquals(0, virtuais.falhas);
+    }
+
+    private Resultado medir(boolean threadsVirtuais) throws Exception {
+        SpringApplicationBuilder aplicacao = new SpringApplicationBuilder(SistemaOdontologicoApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:carga-" + threadsVirtuais + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.devtools.restart.enabled=false",
+                        // sem log de amostras: a medição é da aplicação, não do log
+                        "odonto.sql.lentas.amostragem=0",
+                        // o perfil virtual falha rápido; aqui as duas medições esperam a conexão do mesmo jeito
+                        "spring.datasource.hikari.connection-timeout=30000");
+        if (threadsVirtuais) {
+            aplicacao.profiles("virtual");
+        }
+        try (ConfigurableApplicationContext contexto = aplicacao.run()) {
+            Long pacienteId = popularBase(contexto);
+            String base = "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+            List<URI> enderecos = List.of(
+                    URI.create(base + "/api/procedimentos/pagina?tamanho=20"),
+                    URI.create(base + "/api/pacientes/" + pacienteId + "/procedimentos?tamanho=20"),
+                    URI.create(base + "/api/materiais/pagina?tamanho=20"));
+
+            // aquecimento (JIT, caches e pool de conexões)
+            disparar(enderecos, 50, 10);
+            return disparar(enderecos, CLIENTES, REQUISICOES_POR_CLIENTE);
+        }
+    }
+
+    private Resultado disparar(List<URI> enderecos, int clientes, int requisicoesPorCliente) throws Exception {
+        long[] latencias = new long[clientes * requisicoesPorCliente];
+        AtomicInteger falhas = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+
+        // os clientes são threads virtuais para não limitarem a concorrência do lado de cá
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient http = HttpClient.newBuilder()
+                    .executor(executor)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+            List<Future<?>> futuros = new ArrayList<>();
+            for (int c = 0; c < clientes; c++) {
+                int cliente = c;
+                futuros.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < requisicoesPorCliente; i++) {
+                        HttpRequest requisicao = HttpRequest.newBuilder(enderecos.get((cliente + i) % enderecos.size()))
+                                .timeout(Duration.ofMinutes(1))
+                                .build();
+                        long inicio = System.nanoTime();
+                        try {
+                            HttpResponse<Void> resposta = http.send(requisicao, HttpResponse.BodyHandlers.discarding());
+                            if (resposta.statusCode() != 200) {
+                                falhas.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            falhas.incrementAndGet();
+                        }
+                        latencias[cliente * requisicoesPorCliente + i] = System.nanoTime() - inicio;
+                    }
+                    return null;
+                }));
+            }
+            long inicio = System.nanoTime();
+            largada.countDown();
+            for (Future<?> futuro : futuros) {
+                futuro.get(10, TimeUnit.MINUTES);
+            }
+            long duracao = System.nanoTime() - inicio;
+
+            Arrays.sort(latencias);
+            return new Resultado(latencias.length / (duracao / 1e9),
+                    percentil(latencias, 0.50), percentil(latencias, 0.99), falhas.get());
+        }
+    }
+
+    private static double percentil(long[] ordenadas, double percentil) {
+        int indice = (int) Math.ceil(percentil * ordenadas.length) - 1;
+        return ordenadas[Math.max(indice, 0)] / 1e6;
+    }
+
+    private Long popularBase(ConfigurableApplicationContext contexto) {
+        MaterialRepository materialRepository = contexto.getBean(MaterialRepository.class);
+        PacienteRepository pacienteRepository = contexto.getBean(PacienteRepository.class);
+        ProcedimentoRepository procedimentoRepository = contexto.getBean(ProcedimentoRepository.class);
+
+        Paciente paciente = pacienteRepository.save(Paciente.builder()
+                .nomePaciente("Paciente Carga").idade(35).fidelidade(50).build());
+        List<Procedimento> procedimentos = new ArrayList<>();
+        for (int i = 0; i < PROCEDIMENTOS; i++) {
+            Material material = materialRepository.save(Material.builder()
+                    .nomeMaterial("Material " + i).quantidade(100).valor(new BigDecimal("7.50")).reutilizavel(i % 2 == 0).build());
+            procedimentos.add(Procedimento.builder()
+                    .nomeProcedimento("Procedimento " + i)
+                    .assistente(i % 3 == 0)
+                    .duracao(40f)
+                    .paciente(paciente)
+                    .materiais(List.of(material))
+                    .valorMaoObra(new BigDecimal("120.00"))
+                    .valorFinal(new BigDecimal("127.50"))
+                    .build());
+        }
+        procedimentoRepository.saveAll(procedimentos);
+        return paciente.getId();
+    }
+
+    private record Resultado(double vazao, double p50Ms, double p99Ms, int falhas) {
+    }
+}
@@ -0,0 +1,129 @@
+package com.odonto.sistema_odontologico.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.models.Procedimento;
+
+/**
+ * Garante que as consultas de procedimento não fazem N+1:
+ * o número de SELECTs não pode crescer com o tamanho do resultado
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class ProcedimentoRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProcedimentoRepository procedimentoRepository;
+
+    private Statistics statistics;
+
+    private Paciente paciente;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        paciente = entityManager.persist(Paciente.builder()
+                .nomePaciente("Paciente Teste")
+                .idade(30)
+                .fidelidade(0)
+                .build());
+    }
+
+    @Test
+    void findAllExecutaUmaConsultaIndependenteDoTamanho() {
+        assertConsultasFixas(() -> procedimentoRepository.findAll());
+    }
+
+    @Test
+    void findByPacienteIdExecutaUmaConsultaIndependenteDoTamanho() {
+        assertConsultasFixas(() -> procedimentoRepository.findByPacienteId(paciente.getId()));
+    }
+
+    @Test
+    void findByNomeExecutaUmaConsultaIndependenteDoTamanho() {
+        assertConsultasFixas(() -> procedimentoRepository.findByNomeProcedimentoContainingIgnoreCase("limpeza"));
+    }
+
+    @Test
+    void findByAssistenteExecutaUmaConsultaIndependenteDoTamanho() {
+        assertConsultasFixas(() -> procedimentoRepository.findByAssistente(true));
+    }
+
+    @Test
+    void findByIdInExecutaUmaConsulta() {
+        criarProcedimentos(30);
+        List<Long> ids = procedimentoRepository.findAll().stream().map(Procedimento::getId).toList();
+        entityManager.clear();
+
+        assertEquals(1, contarConsultas(() -> procedimentoRepository.findByIdIn(ids)));
+    }
+
+    private void assertConsultasFixas(Supplier<List<Procedimento>> consulta) {
+        criarProcedimentos(3);
+        long consultasPoucos = contarConsultas(consulta);
+
+        criarProcedimentos(30);
+        long consultasMuitos = contarConsultas(consulta);
+
+        assertEquals(1, consultasPoucos);
+        assertEquals(consultasPoucos, consultasMuitos);
+    }
+
+    private long contarConsultas(Supplier<List<Procedimento>> consulta) {
+        statistics.clear();
+        List<Procedimento> procedimentos = consulta.get();
+        // percorre o grafo como o Jackson faria na serialização
+        for (Procedimento procedimento : procedimentos) {
+            procedimento.getPaciente().getNomePaciente();
+            procedimento.getMateriais().forEach(Material::getNomeMaterial);
+        }
+        long consultas = statistics.getPrepareStatementCount();
+        entityManager.clear();
+        return consultas;
+    }
+
+    private void criarProcedimentos(int quantidade) {
+        for (int i = 0; i < quantidade; i++) {
+            Material luva = entityManager.persist(novoMaterial("Luva " + i, false));
+            Material espelho = entityManager.persist(novoMaterial("Espelho " + i, true));
+            entityManager.persist(Procedimento.builder()
+                    .nomeProcedimento("Limpeza " + i)
+                    .assistente(true)
+                    .duracao(30f)
+                    .paciente(paciente)
+                    .materiais(List.of(luva, espelho))
+                    .valorMaoObra(new BigDecimal("100.00"))
+                    .valorFinal(new BigDecimal("80.00"))
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        paciente = entityManager.find(Paciente.class, paciente.getId());
+    }
+
+    private Material novoMaterial(String nome, boolean reutilizavel) {
+        return Material.builder()
+                .nomeMaterial(nome)
+                .quantidade(10)
+                .valor(new BigDecimal("5.00"))
+                .reutilizavel(reutilizavel)
+                .build();
+    }
+}
@@ -0,0 +1,244 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.odonto.sistema_odontologico.dto.AlertaEstoqueDTO;
+import com.odonto.sistema_odontologico.models.Material;
+
+/**
+ * Assina o stream SSE de verdade (servidor em porta aleatória) e confere os alertas
+ * gerados pelas variações de estoque
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:alertas-estoque;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "odonto.estoque.alertas.threads-envio=2",
+        "odonto.estoque.alertas.prazo-escrita-ms=500",
+        "odonto.estoque.alertas.intervalo-verificacao-ms=100"
+})
+class AlertaEstoqueServiceTest {
+
+    @LocalServerPort
+    private int porta;
+
+    @Autowired
+    private MaterialService materialService;
+
+    @Autowired
+    private AlertaEstoqueService alertaEstoqueService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void alertaSoQuandoAQuantidadeCruzaOPontoDeReposicao() throws Exception {
+        BlockingQueue<String[]> eventos = assinar();
+
+        Material gaze = materialService.cadastrarMaterial(novoMaterial("Gaze Alerta", 5, 3));
+        Material luva = materialService.cadastrarMaterial(novoMaterial("Luva Sem Ponto", 5, null));
+
+        materialService.removerEstoque(gaze.getId(), 1); // 4: ainda acima do ponto
+        materialService.removerEstoque(luva.getId(), 5); // sem ponto de reposição: nunca alerta
+        materialService.removerEstoque(gaze.getId(), 1); // 3: chegou ao ponto
+
+        String[] baixo = eventos.poll(5, TimeUnit.SECONDS);
+        assertNotNull(baixo, "alerta de estoque baixo não chegou");
+        assertEquals("estoque-baixo", baixo[0]);
+        JsonNode alerta = objectMapper.readTree(baixo[1]);
+        assertEquals(gaze.getId(), alerta.get("materialId").asLong());
+        assertEquals("Gaze Alerta", alerta.get("nomeMaterial").asText());
+        assertEquals(3, alerta.get("quantidade").asInt());
+
+        materialService.removerEstoque(gaze.getId(), 2); // continua abaixo: sem novo alerta
+        materialService.adicionarEstoque(gaze.getId(), 10); // 11: reposto
+
+        String[] reposto = eventos.poll(5, TimeUnit.SECONDS);
+        assertNotNull(reposto, "alerta de estoque reposto não chegou");
+        assertEquals("estoque-reposto", reposto[0]);
+        assertEquals(11, objectMapper.readTree(reposto[1]).get("quantidade").asInt());
+        assertNull(eventos.poll(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void pontoDefinidoNaEdicaoPassaASerMonitorado() {
+        Material material = materialService.cadastrarMaterial(novoMaterial("Algodão Alerta", 10, null));
+        assertFalse(alertaEstoqueService.monitorado(material.getId()));
+
+        materialService.atualizarMaterial(material.getId(), novoMaterial("Algodão Alerta", 10, 4));
+        assertTrue(alertaEstoqueService.monitorado(material.getId()));
+    }
+
+    @Test
+    void assinanteLentoNaoAtrasaOsDemaisEEDesconectadoComAFilaCheia() throws Exception {
+        CountDownLatch escrevendo = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch encerrado = new CountDownLatch(1);
+        // cliente que não lê: a primeira escrita fica presa até o fim do teste
+        SseEmitter lento = new SseEmitter(60_000L) {
+            @Override
+            public void send(SseEventBuilder evento) throws IOException {
+                escrevendo.countDown();
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void complete() {
+                encerrado.countDown();
+                super.complete();
+            }
+        };
+        BlockingQueue<String[]> eventos = assinar();
+        alertaEstoqueService.assinar(lento);
+        assertTrue(escrevendo.await(5, TimeUnit.SECONDS));
+        int assinantes = alertaEstoqueService.totalAssinantes();
+
+        try {
+            // um alerta por vez, cada um entregue ao cliente rápido antes do próximo:
+            // só a fila do lento cresce, até passar do limite
+            for (int i = 0; i <= 100; i++) {
+                alertaEstoqueService.publicar(alerta(i));
+                String[] recebido = eventos.poll(5, TimeUnit.SECONDS);
+                assertNotNull(recebido, "alerta " + i + " não chegou ao assinante rápido");
+                assertEquals(i, objectMapper.readTree(recebido[1]).get("quantidade").asInt());
+            }
+            assertEquals(assinantes - 1, alertaEstoqueService.totalAssinantes());
+        } finally {
+            liberar.countDown();
+        }
+        // a escrita presa termina e a thread de envio encerra a conexão do lento
+        assertTrue(encerrado.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void assinantesPresosNaoMultiplicamAsThreadsDeEnvio() throws Exception {
+        int presos = 8;
+        CountDownLatch nuncaLibera = new CountDownLatch(1);
+        CountDownLatch encerrados = new CountDownLatch(presos);
+        Set<Thread> threadsUsadas = ConcurrentHashMap.newKeySet();
+        AtomicInteger escrevendo = new AtomicInteger();
+        AtomicInteger maximoEscrevendo = new AtomicInteger();
+        BlockingQueue<String[]> eventos = assinar();
+        for (int i = 0; i < presos; i++) {
+            alertaEstoqueService.assinar(new SseEmitter(60_000L) {
+                // cliente que não lê: a escrita só termina quando o prazo interrompe a thread
+                @Override
+                public void send(SseEventBuilder evento) throws IOException {
+                    threadsUsadas.add(Thread.currentThread());
+                    maximoEscrevendo.accumulateAndGet(escrevendo.incrementAndGet(), Math::max);
+                    try {
+                        nuncaLibera.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException("escrita interrompida", e);
+                    } finally {
+                        escrevendo.decrementAndGet();
+                    }
+                }
+
+                @Override
+                public void completeWithError(Throwable erro) {
+                    encerrados.countDown();
+                    super.completeWithError(erro);
+                }
+            });
+        }
+
+        alertaEstoqueService.publicar(alerta(7));
+
+        // as escritas presas são cortadas pelo prazo, duas por vez, e o alerta chega ao cliente que lê
+        String[] recebido = eventos.poll(15, TimeUnit.SECONDS);
+        assertNotNull(recebido, "alerta não chegou ao assinante que lê");
+        assertEquals(7, objectMapper.readTree(recebido[1]).get("quantidade").asInt());
+        assertTrue(encerrados.await(15, TimeUnit.SECONDS));
+        assertTrue(maximoEscrevendo.get() <= 2, () -> maximoEscrevendo.get() + " escritas presas ao mesmo tempo");
+        assertTrue(threadsUsadas.size() <= 2, () -> threadsUsadas.size() + " threads de envio");
+    }
+
+    /**
+     * Lê o stream em segundo plano; devolve pares {evento, dados} depois que a conexão foi confirmada
+     */
+    private BlockingQueue<String[]> assinar() throws Exception {
+        BlockingQueue<String[]> eventos = new LinkedBlockingQueue<>();
+        BlockingQueue<Boolean> conectado = new LinkedBlockingQueue<>();
+        HttpRequest requisicao = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/api/materiais/alertas"))
+                .header("Accept", "text/event-stream")
+                .build();
+        Thread leitor = new Thread(() -> {
+            try {
+                Stream<String> linhas = HttpClient.newHttpClient()
+                        .send(requisicao, HttpResponse.BodyHandlers.ofLines()).body();
+                String[] atual = new String[2];
+                for (String linha : (Iterable<String>) linhas::iterator) {
+                    if (linha.startsWith(":")) {
+                        conectado.offer(true);
+                    } else if (linha.startsWith("event:")) {
+                        atual[0] = linha.substring("event:".length());
+                    } else if (linha.startsWith("data:")) {
+                        atual[1] = linha.substring("data:".length());
+                    } else if (linha.isEmpty() && atual[0] != null) {
+                        eventos.offer(atual);
+                        atual = new String[2];
+                    }
+                }
+            } catch (Exception e) {
+                // conexão encerrada no fim do teste
+            }
+        });
+        leitor.setDaemon(true);
+        leitor.start();
+        assertNotNull(conectado.poll(5, TimeUnit.SECONDS), "stream SSE não conectou");
+        return eventos;
+    }
+
+    private static AlertaEstoqueDTO alerta(int quantidade) {
+        return AlertaEstoqueDTO.builder()
+                .tipo(AlertaEstoqueDTO.Tipo.ESTOQUE_BAIXO)
+                .materialId(1L)
+                .nomeMaterial("Material Lento")
+                .quantidade(quantidade)
+                .pontoReposicao(100)
+                .momento(LocalDateTime.now())
+                .build();
+    }
+
+    private static Material novoMaterial(String nome, int quantidade, Integer pontoReposicao) {
+        return Material.builder()
+                .nomeMaterial(nome)
+                .quantidade(quantidade)
+                .pontoReposicao(pontoReposicao)
+                .valor(new BigDecimal("2.00"))
+                .reutilizavel(false)
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.odonto.sistema_odontologico.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+
+/**
+ * Compara a busca por trecho do nome: LIKE '%termo%' no banco x índice de trigramas em memória,
+ * com mais de 100 mil pacientes. Executar com:
+ * ./mvnw test -Dtest=BuscaNomeBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:busca-benchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class BuscaNomeBenchmarkTest {
+
+    private static final int PACIENTES = 120_000;
+    private static final int REPETICOES = 20;
+
+    private static final String[] NOMES = {
+            "João", "Maria", "José", "Ana", "Antônio", "Francisca", "Carlos", "Luíza", "Paulo", "Márcia",
+            "Pedro", "Juliana", "Lucas", "Fernanda", "Rafael", "Patrícia", "Gabriel", "Letícia", "Mateus", "Cecília"
+    };
+    private static final String[] SOBRENOMES = {
+            "Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira", "Alves", "Pereira", "Lima", "Gomes",
+            "Araújo", "Conceição", "Ribeiro", "Carvalho", "Barbosa", "Assunção", "Magalhães", "Brandão", "Simões", "Galvão"
+    };
+    private static final String[] TERMOS = { "joao", "conceicao", "maria sil", "tonio", "galv", "ao", "leticia ribeiro" };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Test
+    void compararBancoEIndice() {
+        IndiceTrigramas indice = new IndiceTrigramas();
+        List<Object[]> linhas = gerarPacientes(indice);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO pacientes (id, nome_paciente, idade, fidelidade) VALUES (?, ?, ?, 0)", linhas);
+        indice.marcarPronto();
+
+        for (String termo : TERMOS) {
+            // o LIKE do banco diferencia acentos ("joao" não acha "João"); o índice não
+            int doBanco = pacienteRepository.findByNomePacienteContainingIgnoreCase(termo).size();
+            int doIndice = indice.buscar(termo, PACIENTES).size();
+
+            double msBanco = medir(() -> pacienteRepository.findByNomePacienteContainingIgnoreCase(termo).size());
+            double msIndice = medir(() -> indice.buscar(termo, BuscaNomeService.LIMITE_PADRAO).size());
+            System.out.printf("termo=%-16s banco=%6d itens %9.3f ms  indice=%6d itens %8.3f ms%n",
+                    termo, doBanco, msBanco, doIndice, msIndice);
+        }
+    }
+
+    private static List<Object[]> gerarPacientes(IndiceTrigramas indice) {
+        Random random = new Random(42);
+        List<Object[]> linhas = new ArrayList<>(PACIENTES);
+        for (long id = 1; id <= PACIENTES; id++) {
+            String nome = NOMES[random.nextInt(NOMES.length)] + " "
+                    + SOBRENOMES[random.nextInt(SOBRENOMES.length)] + " "
+                    + SOBRENOMES[random.nextInt(SOBRENOMES.length)];
+            linhas.add(new Object[] { id, nome, 18 + random.nextInt(70) });
+            indice.carregar(id, nome);
+        }
+        return linhas;
+    }
+
+    private static double medir(IntSupplier busca) {
+        for (int i = 0; i < 3; i++) {
+            busca.getAsInt();
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < REPETICOES; i++) {
+            busca.getAsInt();
+        }
+        return (System.nanoTime() - inicio) / 1_000_000.0 / REPETICOES;
+    }
+}
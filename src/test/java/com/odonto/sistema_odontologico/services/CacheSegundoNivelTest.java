@@ -0,0 +1,169 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.odonto.sistema_odontologico.dto.ProcedimentoDTO;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Leituras repetidas de Material e Paciente vêm do cache de segundo nível,
+ * e toda alteração (inclusive os UPDATEs atômicos de estoque) invalida o que ficou guardado;
+ * os UPDATEs atômicos removem só o registro alterado, sem esvaziar o catálogo
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cache-segundo-nivel;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // sem varredura periódica do outbox consultando o banco no meio das medições
+        "odonto.outbox.intervalo-varredura-ms=3600000"
+})
+class CacheSegundoNivelTest {
+
+    @Autowired
+    private MaterialService materialService;
+
+    @Autowired
+    private PacienteService pacienteService;
+
+    @Autowired
+    private ProcedimentoService procedimentoService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estatisticas;
+
+    @BeforeEach
+    void setUp() {
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+    }
+
+    @Test
+    void buscarPorIdRepetidoNaoVaiAoBanco() {
+        Material material = materialService.cadastrarMaterial(novoMaterial(10));
+        materialService.buscarPorId(material.getId());
+        estatisticas.clear();
+
+        materialService.buscarPorId(material.getId());
+
+        assertEquals(1, estatisticas.getSecondLevelCacheHitCount());
+        assertEquals(0, estatisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void alteracoesDeEstoqueInvalidamOCache() {
+        Material material = materialService.cadastrarMaterial(novoMaterial(10));
+        materialService.buscarPorId(material.getId());
+
+        materialService.removerEstoque(material.getId(), 3);
+        assertEquals(7, materialService.buscarPorId(material.getId()).orElseThrow().getQuantidade());
+
+        materialService.adicionarEstoque(material.getId(), 5);
+        assertEquals(12, materialService.buscarPorId(material.getId()).orElseThrow().getQuantidade());
+
+        material.setValor(new BigDecimal("9.90"));
+        materialService.atualizarMaterial(material.getId(), material);
+        assertEquals(new BigDecimal("9.90"), materialService.buscarPorId(material.getId()).orElseThrow().getValor());
+    }
+
+    @Test
+    void pontosDeFidelidadeAtualizamOCache() {
+        Paciente paciente = pacienteService.cadastrarPaciente(Paciente.builder()
+                .nomePaciente("Paciente em Cache")
+                .idade(30)
+                .fidelidade(0)
+                .build());
+        pacienteService.buscarPorId(paciente.getId());
+
+        pacienteService.adicionarPontosFidelidade(paciente.getId(), 15);
+
+        assertEquals(15, pacienteService.buscarPorId(paciente.getId()).orElseThrow().getFidelidade());
+    }
+
+    @Test
+    void catalogoDeMateriaisUsaCacheDeConsultasAteMudarATabela() {
+        materialService.cadastrarMaterial(novoMaterial(1));
+        int antes = materialService.listarTodos().size();
+
+        materialService.listarTodos();
+        assertTrue(estatisticas.getQueryCacheHitCount() >= 1);
+
+        materialService.cadastrarMaterial(novoMaterial(2));
+        assertEquals(antes + 1, materialService.listarTodos().size());
+    }
+
+    @Test
+    void catalogoEOutrosRegistrosContinuamEmCacheAposCadastrarProcedimento() throws Exception {
+        Material usado = materialService.cadastrarMaterial(novoMaterial(10));
+        Material outroMaterial = materialService.cadastrarMaterial(novoMaterial(10));
+        Paciente paciente = pacienteService.cadastrarPaciente(novoPaciente());
+        Paciente outroPaciente = pacienteService.cadastrarPaciente(novoPaciente());
+        materialService.listarTodos();
+        materialService.buscarPorId(outroMaterial.getId());
+        pacienteService.buscarPorId(outroPaciente.getId());
+
+        procedimentoService.cadastrarProcedimento(ProcedimentoDTO.builder()
+                .nomeProcedimento("Restauração")
+                .assistente(false)
+                .duracao(30f)
+                .pacienteId(paciente.getId())
+                .materiaisIds(List.of(usado.getId()))
+                .build());
+        // espera o outbox aplicar o crédito de fidelidade (UPDATE em SQL): o evento sai da tabela no mesmo commit
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (outboxService.totalPendentes() > 0 && System.nanoTime() < limite) {
+            Thread.sleep(20);
+        }
+        estatisticas.clear();
+
+        // os UPDATEs de estoque e fidelidade não invalidam o catálogo nem a região inteira
+        materialService.listarTodos();
+        assertEquals(1, estatisticas.getQueryCacheHitCount());
+        assertEquals(0, estatisticas.getQueryCacheMissCount());
+        estatisticas.clear();
+        materialService.buscarPorId(outroMaterial.getId());
+        pacienteService.buscarPorId(outroPaciente.getId());
+        assertEquals(2, estatisticas.getSecondLevelCacheHitCount());
+        assertEquals(0, estatisticas.getPrepareStatementCount());
+
+        // e os registros alterados saem do cache
+        assertEquals(9, materialService.buscarPorId(usado.getId()).orElseThrow().getQuantidade());
+        assertEquals(FidelidadeService.PONTOS_POR_PROCEDIMENTO,
+                pacienteService.buscarPorId(paciente.getId()).orElseThrow().getFidelidade());
+    }
+
+    private Paciente novoPaciente() {
+        return Paciente.builder()
+                .nomePaciente("Paciente em Cache")
+                .idade(30)
+                .fidelidade(0)
+                .build();
+    }
+
+    private Material novoMaterial(int quantidade) {
+        return Material.builder()
+                .nomeMaterial("Resina composta")
+                .quantidade(quantidade)
+                .valor(new BigDecimal("4.00"))
+                .reutilizavel(false)
+                .build();
+    }
+}
@@ -0,0 +1,49 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.odonto.sistema_odontologico.dto.ConsultaLentaDTO;
+
+class ConsultasLentasServiceTest {
+
+    @Test
+    void normalizarAgrupaConsultasQueSoDiferemNosValores() {
+        assertEquals("SELECT * FROM materiais WHERE id IN (?...) AND nome = ? AND valor > ?",
+                ConsultasLentasService.normalizar(
+                        "SELECT * FROM materiais WHERE id IN (1, 2, 3) AND nome = 'O''Brien' AND valor > 10.50"));
+        // aliases do Hibernate (p1_0) não são confundidos com literais
+        assertEquals("select p1_0.id from procedimentos p1_0 where p1_0.id in (?...)",
+                ConsultasLentasService.normalizar("select p1_0.id from procedimentos p1_0\n where p1_0.id in (?,?,?)"));
+    }
+
+    @Test
+    void rankingOrdenaPorTempoTotalSomandoOsFormatosIguais() {
+        ConsultasLentasService service = new ConsultasLentasService();
+        service.registrar("select * from pacientes where id = 1", 5);
+        service.registrar("select * from pacientes where id = 2", 7);
+        service.registrar("select * from materiais where id in (1, 2)", 30);
+        service.registrar("select * from procedimentos", 1);
+
+        List<ConsultaLentaDTO> top = service.topConsultas(2);
+
+        assertEquals(2, top.size());
+        assertEquals("select * from materiais where id in (?...)", top.get(0).getConsulta());
+        assertEquals("select * from pacientes where id = ?", top.get(1).getConsulta());
+        assertEquals(2, top.get(1).getExecucoes());
+        assertEquals(12, top.get(1).getTempoTotalMs());
+        assertEquals(7, top.get(1).getTempoMaximoMs());
+        assertEquals(6.0, top.get(1).getTempoMedioMs());
+
+        // a troca de janela mantém a anterior no ranking; zerar descarta tudo
+        service.trocarJanela();
+        assertEquals(3, service.topConsultas(10).size());
+        service.zerar();
+        assertTrue(service.topConsultas(10).isEmpty());
+        service.encerrar();
+    }
+}
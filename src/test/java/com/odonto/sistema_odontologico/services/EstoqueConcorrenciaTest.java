@@ -0,0 +1,140 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.odonto.sistema_odontologico.dto.ProcedimentoDTO;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+
+/**
+ * Teste de estresse: várias threads disputando o mesmo material não podem
+ * deixar o estoque negativo nem perder atualizações
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:estoque-concorrencia;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class EstoqueConcorrenciaTest {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private MaterialService materialService;
+
+    @Autowired
+    private PacienteService pacienteService;
+
+    @Autowired
+    private ProcedimentoService procedimentoService;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Test
+    void removerEstoqueConcorrenteNuncaDeixaEstoqueNegativo() throws Exception {
+        Material material = materialService.cadastrarMaterial(novoMaterial(50));
+        AtomicInteger removidos = new AtomicInteger();
+
+        executarEmParalelo(20, () -> {
+            try {
+                materialService.removerEstoque(material.getId(), 1);
+                removidos.incrementAndGet();
+            } catch (RuntimeException e) {
+                assertTrue(e.getMessage().startsWith("Estoque insuficiente"), e.getMessage());
+            }
+        });
+
+        assertEquals(50, removidos.get());
+        assertEquals(0, quantidadeAtual(material));
+    }
+
+    @Test
+    void adicionarEstoqueConcorrenteNaoPerdeAtualizacoes() throws Exception {
+        Material material = materialService.cadastrarMaterial(novoMaterial(0));
+
+        executarEmParalelo(25, () -> materialService.adicionarEstoque(material.getId(), 2));
+
+        assertEquals(THREADS * 25 * 2, quantidadeAtual(material));
+    }
+
+    @Test
+    void cadastroConcorrenteDeProcedimentosNaoVendeAlemDoEstoque() throws Exception {
+        Material material = materialService.cadastrarMaterial(novoMaterial(10));
+        Paciente paciente = pacienteService.cadastrarPaciente(Paciente.builder()
+                .nomePaciente("Paciente Concorrente")
+                .idade(40)
+                .fidelidade(0)
+                .build());
+        AtomicInteger cadastrados = new AtomicInteger();
+
+        executarEmParalelo(3, () -> {
+            try {
+                procedimentoService.cadastrarProcedimento(ProcedimentoDTO.builder()
+                        .nomeProcedimento("Restauração")
+                        .assistente(false)
+                        .duracao(30f)
+                        .pacienteId(paciente.getId())
+                        .materiaisIds(List.of(material.getId()))
+                        .build());
+                cadastrados.incrementAndGet();
+            } catch (RuntimeException e) {
+                assertTrue(e.getMessage().startsWith("Material sem estoque suficiente"), e.getMessage());
+            }
+        });
+
+        assertEquals(10, cadastrados.get());
+        assertEquals(0, quantidadeAtual(material));
+    }
+
+    private void executarEmParalelo(int repeticoesPorThread, Runnable tarefa) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> futuros = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futuros.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < repeticoesPorThread; i++) {
+                        tarefa.run();
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> futuro : futuros) {
+                futuro.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int quantidadeAtual(Material material) {
+        return materialRepository.findById(material.getId()).orElseThrow().getQuantidade();
+    }
+
+    private Material novoMaterial(int quantidade) {
+        return Material.builder()
+                .nomeMaterial("Luva descartável")
+                .quantidade(quantidade)
+                .valor(new BigDecimal("2.50"))
+                .reutilizavel(false)
+                .build();
+    }
+}
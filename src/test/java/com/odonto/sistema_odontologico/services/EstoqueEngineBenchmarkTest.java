@@ -0,0 +1,111 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+
+/**
+ * Compara a vazão de reservas de estoque: UPDATE atômico no banco x saldo em memória.
+ * Cada reserva roda na sua própria transação, como no cadastro de procedimento.
+ * Executar com: ./mvnw test -Dtest=EstoqueEngineBenchmarkTest -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:estoque-benchmark;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "odonto.estoque.engine=memoria",
+        "odonto.estoque.memoria.aceitar-perda-na-queda=true"
+})
+class EstoqueEngineBenchmarkTest {
+
+    private static final int THREADS = 8;
+    private static final int RESERVAS_POR_THREAD = 5_000;
+    // poucos materiais muito disputados (luvas, anestésico...)
+    private static final int MATERIAIS = 4;
+
+    @Autowired
+    private MaterialService materialService;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private EstoqueMemoriaEngine estoqueMemoria;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void compararVazaoBancoEMemoria() throws Exception {
+        List<Long> ids = criarMateriais();
+        double vazaoBanco = medir(ids, id -> Boolean.TRUE.equals(transactionTemplate.execute(
+                status -> materialRepository.descontarEstoque(id, 1) > 0)));
+
+        ids = criarMateriais();
+        double vazaoMemoria = medir(ids, id -> Boolean.TRUE.equals(transactionTemplate.execute(
+                status -> estoqueMemoria.descontar(id, 1))));
+        estoqueMemoria.gravarPendentes();
+
+        System.out.printf("Reservas/s - banco: %.0f | memória: %.0f | ganho: %.1fx%n",
+                vazaoBanco, vazaoMemoria, vazaoMemoria / vazaoBanco);
+
+        int totalReservas = THREADS * RESERVAS_POR_THREAD;
+        int restante = ids.stream().mapToInt(id -> materialRepository.findById(id).orElseThrow().getQuantidade()).sum();
+        assertEquals(MATERIAIS * 1_000_000 - totalReservas, restante);
+    }
+
+    private double medir(List<Long> ids, LongPredicate reservar) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> futuros = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futuros.add(executor.submit(() -> {
+                largada.await();
+                for (int i = 0; i < RESERVAS_POR_THREAD; i++) {
+                    reservar.test(ids.get((thread + i) % ids.size()));
+                }
+                return null;
+            }));
+        }
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Future<?> futuro : futuros) {
+            futuro.get(5, TimeUnit.MINUTES);
+        }
+        long duracao = System.nanoTime() - inicio;
+        executor.shutdown();
+        return THREADS * RESERVAS_POR_THREAD / (duracao / 1e9);
+    }
+
+    private List<Long> criarMateriais() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < MATERIAIS; i++) {
+            ids.add(materialService.cadastrarMaterial(Material.builder()
+                    .nomeMaterial("Material disputado " + i)
+                    .quantidade(1_000_000)
+                    .valor(new BigDecimal("1.00"))
+                    .reutilizavel(false)
+                    .build()).getId());
+        }
+        return ids;
+    }
+}
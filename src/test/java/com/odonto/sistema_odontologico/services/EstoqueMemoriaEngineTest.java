@@ -0,0 +1,64 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+
+/**
+ * Estoque em memória: alterações feitas em transações desfeitas não chegam ao saldo nem ao banco
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:estoque-memoria;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "odonto.estoque.engine=memoria",
+        "odonto.estoque.memoria.aceitar-perda-na-queda=true",
+        // só os testes disparam a gravação
+        "odonto.estoque.memoria.intervalo-gravacao-ms=3600000"
+})
+class EstoqueMemoriaEngineTest {
+
+    @Autowired
+    private MaterialService materialService;
+
+    @Autowired
+    private EstoqueMemoriaEngine estoqueEngine;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void atualizacaoDesfeitaNaoAlteraOSaldo() {
+        Material material = materialService.cadastrarMaterial(novoMaterial(10));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            materialService.atualizarMaterial(material.getId(), novoMaterial(50));
+            status.setRollbackOnly();
+        });
+        estoqueEngine.gravarPendentes();
+
+        // saldo em memória e linha gravada
+        assertEquals(10, estoqueEngine.refletirEstoque(materialRepository.findById(material.getId()).orElseThrow()).getQuantidade());
+        assertEquals(10, materialRepository.findById(material.getId()).orElseThrow().getQuantidade());
+    }
+
+    private Material novoMaterial(int quantidade) {
+        return Material.builder()
+                .nomeMaterial("Anestésico")
+                .quantidade(quantidade)
+                .valor(new BigDecimal("12.00"))
+                .reutilizavel(false)
+                .build();
+    }
+}
@@ -0,0 +1,110 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Exporta 1 milhão de procedimentos (2 materiais cada) e mede a memória ocupada durante a exportação.
+ * O banco fica em arquivo temporário para os dados não ocuparem o heap; rodar com heap pequeno:
+ * ./mvnw test -Dtest=ExportacaoBenchmarkTest -Dbenchmark=true -DargLine=-Xmx128m
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:${java.io.tmpdir}/odonto-exportacao-benchmark",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "odonto.sql.lentas.amostragem=0"
+})
+class ExportacaoBenchmarkTest {
+
+    private static final int PROCEDIMENTOS = 1_000_000;
+    private static final int PACIENTES = 1_000;
+    private static final int MATERIAIS = 100;
+    // memória retida que a exportação pode acrescentar (buffers e o procedimento atual)
+    private static final long CRESCIMENTO_MAXIMO = 32L * 1024 * 1024;
+
+    @Autowired
+    private ExportacaoService exportacaoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exportarUmMilhaoDeProcedimentosComMemoriaConstante() {
+        popularBase();
+        MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long base = memoria.getHeapMemoryUsage().getUsed();
+        SaidaContada saida = new SaidaContada(memoria);
+
+        long inicio = System.nanoTime();
+        long exportados = exportacaoService.exportarProcedimentos(ExportacaoService.Formato.CSV, null, null, saida);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        long crescimento = saida.maiorUsoAposGc - base;
+        System.out.printf("%d procedimentos, %.1f MB em %.1f s (%.0f linhas/s) | crescimento do heap: %.1f MB%n",
+                exportados, saida.bytes / 1e6, segundos, exportados / segundos, crescimento / 1e6);
+        assertEquals(PROCEDIMENTOS, exportados);
+        assertTrue(crescimento < CRESCIMENTO_MAXIMO, "heap cresceu " + crescimento / 1e6 + " MB durante a exportação");
+    }
+
+    private void popularBase() {
+        jdbcTemplate.update("INSERT INTO pacientes (id, nome_paciente, idade, fidelidade) " +
+                "SELECT X, 'Paciente ' || X, 30, 0 FROM SYSTEM_RANGE(1, ?)", PACIENTES);
+        jdbcTemplate.update("INSERT INTO materiais (id, nome_material, quantidade, valor, reutilizavel) " +
+                "SELECT X, 'Material ' || X, 1000, 5.00, MOD(X, 2) = 0 FROM SYSTEM_RANGE(1, ?)", MATERIAIS);
+        jdbcTemplate.update("INSERT INTO procedimentos (id, nome_procedimento, assistente, duracao, paciente_id, " +
+                "valor_mao_obra, valor_final, data_criacao) " +
+                "SELECT X, 'Procedimento ' || X, MOD(X, 3) = 0, 1.5, MOD(X, ?) + 1, 100.00, 157.50, " +
+                "DATEADD(SECOND, X, TIMESTAMP '2025-01-01 08:00:00') FROM SYSTEM_RANGE(1, ?)", PACIENTES, PROCEDIMENTOS);
+        jdbcTemplate.update("INSERT INTO procedimento_materiais (procedimento_id, material_id) " +
+                "SELECT X, MOD(X, ?) + 1 FROM SYSTEM_RANGE(1, ?)", MATERIAIS, PROCEDIMENTOS);
+        jdbcTemplate.update("INSERT INTO procedimento_materiais (procedimento_id, material_id) " +
+                "SELECT X, MOD(X + 1, ?) + 1 FROM SYSTEM_RANGE(1, ?)", MATERIAIS, PROCEDIMENTOS);
+    }
+
+    /**
+     * Descarta os bytes, medindo o heap retido (após GC) a cada 10 MB escritos
+     */
+    private static final class SaidaContada extends OutputStream {
+
+        private static final long MEDIR_A_CADA = 10L * 1024 * 1024;
+
+        private final MemoryMXBean memoria;
+        private long bytes;
+        private long proximaMedicao = MEDIR_A_CADA;
+        private long maiorUsoAposGc;
+
+        SaidaContada(MemoryMXBean memoria) {
+            this.memoria = memoria;
+        }
+
+        @Override
+        public void write(int b) {
+            contar(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            contar(len);
+        }
+
+        private void contar(int quantidade) {
+            bytes += quantidade;
+            if (bytes >= proximaMedicao) {
+                proximaMedicao += MEDIR_A_CADA;
+                System.gc();
+                maiorUsoAposGc = Math.max(maiorUsoAposGc, memoria.getHeapMemoryUsage().getUsed());
+            }
+        }
+    }
+}
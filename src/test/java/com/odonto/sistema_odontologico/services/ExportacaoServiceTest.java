@@ -0,0 +1,112 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+import com.odonto.sistema_odontologico.repositories.ProcedimentoRepository;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:exportacao;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ExportacaoServiceTest {
+
+    @Autowired
+    private ExportacaoService exportacaoService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private ProcedimentoRepository procedimentoRepository;
+
+    @BeforeEach
+    void popularBase() {
+        procedimentoRepository.deleteAll();
+        Paciente paciente = pacienteRepository.save(Paciente.builder()
+                .nomePaciente("Silva, \"Zé\"").idade(50).fidelidade(0).build());
+        Material luva = materialRepository.save(Material.builder()
+                .nomeMaterial("Luva").quantidade(10).valor(new BigDecimal("2.00")).reutilizavel(false).build());
+        Material espelho = materialRepository.save(Material.builder()
+                .nomeMaterial("Espelho").quantidade(10).valor(new BigDecimal("20.00")).reutilizavel(true).build());
+        procedimentoRepository.saveAll(List.of(
+                procedimento("Limpeza", paciente, List.of(luva, espelho)),
+                procedimento("Avaliação", paciente, List.of()),
+                procedimento("Restauração", paciente, List.of(luva))));
+    }
+
+    @Test
+    void csvTemUmaLinhaPorProcedimentoComCamposEscapados() {
+        String csv = exportar(ExportacaoService.Formato.CSV, null, null);
+        String[] linhas = csv.split("\r\n");
+
+        assertEquals(4, linhas.length);
+        assertEquals(ExportacaoService.CABECALHO_CSV, linhas[0]);
+        assertTrue(linhas[1].contains(",Limpeza,"));
+        assertTrue(linhas[1].contains(",\"Silva, \"\"Zé\"\"\",2,"), linhas[1]);
+        // a ordem dos materiais dentro do procedimento não é garantida
+        assertTrue(linhas[1].endsWith(",Luva|Espelho") || linhas[1].endsWith(",Espelho|Luva"), linhas[1]);
+        assertTrue(linhas[2].endsWith(",0,"), linhas[2]);
+    }
+
+    @Test
+    void ndjsonTemUmObjetoPorLinhaComPacienteEMateriais() throws Exception {
+        String ndjson = exportar(ExportacaoService.Formato.NDJSON, LocalDate.now(), LocalDate.now());
+        String[] linhas = ndjson.split("\n");
+
+        assertEquals(3, linhas.length);
+        JsonNode primeiro = objectMapper.readTree(linhas[0]);
+        assertEquals("Limpeza", primeiro.get("nomeProcedimento").asText());
+        assertEquals("Silva, \"Zé\"", primeiro.get("paciente").get("nomePaciente").asText());
+        assertEquals(2, primeiro.get("materiais").size());
+        assertEquals(0, objectMapper.readTree(linhas[1]).get("materiais").size());
+    }
+
+    @Test
+    void periodoSemProcedimentosExportaSoOCabecalho() {
+        LocalDate ontem = LocalDate.now().minusDays(1);
+        assertEquals(ExportacaoService.CABECALHO_CSV + "\r\n", exportar(ExportacaoService.Formato.CSV, ontem, ontem));
+    }
+
+    private String exportar(ExportacaoService.Formato formato, LocalDate de, LocalDate ate) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        exportacaoService.exportarProcedimentos(formato, de, ate, saida);
+        return saida.toString(StandardCharsets.UTF_8);
+    }
+
+    private Procedimento procedimento(String nome, Paciente paciente, List<Material> materiais) {
+        return Procedimento.builder()
+                .nomeProcedimento(nome)
+                .assistente(false)
+                .duracao(1f)
+                .paciente(paciente)
+                .materiais(materiais)
+                .valorMaoObra(new BigDecimal("100.00"))
+                .valorFinal(new BigDecimal("90.00"))
+                .build();
+    }
+}
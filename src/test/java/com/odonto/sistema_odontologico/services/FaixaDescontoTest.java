@@ -0,0 +1,169 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.odonto.sistema_odontologico.config.FaixasDescontoInicializador;
+import com.odonto.sistema_odontologico.models.LancamentoFidelidade;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+
+/**
+ * A faixa de desconto gravada acompanha idade e fidelidade em todos os caminhos de escrita
+ * (cadastro, edição, crédito atômico de pontos e preenchimento de linhas antigas), inclusive
+ * quando o saldo muda entre a leitura do paciente e a gravação
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:faixa;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class FaixaDescontoTest {
+
+    @Autowired
+    private PacienteService pacienteService;
+
+    @Autowired
+    private FaixasDescontoInicializador faixasDescontoInicializador;
+
+    @Autowired
+    private FidelidadeService fidelidadeService;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void faixaAcompanhaCadastroCreditoEEdicao() {
+        Paciente paciente = pacienteService.cadastrarPaciente(Paciente.builder()
+                .nomePaciente("Paciente Faixa").idade(65).fidelidade(90).build());
+        assertEquals(10, paciente.getFaixaDesconto());
+
+        // UPDATE atômico: a faixa é recalculada pelo CASE no mesmo comando
+        assertEquals(15, pacienteService.adicionarPontosFidelidade(paciente.getId(), 10).getFaixaDesconto());
+        assertEquals(20, pacienteService.adicionarPontosFidelidade(paciente.getId(), 100).getFaixaDesconto());
+
+        // edição só da idade: a faixa é recalculada no banco com o saldo gravado
+        Paciente edicao = Paciente.builder().nomePaciente("Paciente Faixa").idade(40).build();
+        assertEquals(10, pacienteService.atualizarPaciente(paciente.getId(), edicao).getFaixaDesconto());
+
+        assertTrue(pacienteService.listarPorFaixaDesconto(10).stream()
+                .anyMatch(p -> p.getId().equals(paciente.getId())));
+        assertTrue(pacienteService.listarPorFaixaDesconto(20).stream()
+                .noneMatch(p -> p.getId().equals(paciente.getId())));
+        assertThrows(IllegalArgumentException.class, () -> pacienteService.listarPorFaixaDesconto(7));
+    }
+
+    @Test
+    void linhasSemFaixaSaoPreenchidasComAMesmaRegra() {
+        jdbcTemplate.update("INSERT INTO pacientes (id, nome_paciente, idade, fidelidade) VALUES "
+                + "(900001, 'Antigo 1', 70, 250), (900002, 'Antigo 2', 30, 120), (900003, 'Antigo 3', 20, 0)");
+
+        faixasDescontoInicializador.preencherFaixas();
+
+        List<Integer> faixas = jdbcTemplate.queryForList(
+                "SELECT faixa_desconto FROM pacientes WHERE id BETWEEN 900001 AND 900003 ORDER BY id", Integer.class);
+        assertEquals(List.of(
+                Paciente.calcularFaixaDesconto(70, 250),
+                Paciente.calcularFaixaDesconto(30, 120),
+                Paciente.calcularFaixaDesconto(20, 0)), faixas);
+        assertEquals(List.of(20, 5, 0), faixas);
+    }
+
+    @Test
+    void regraDoBancoIgualARegraDaAplicacaoEmTodaAGrade() {
+        int[] idades = {0, 1, 59, 60, 61, 99, 150};
+        int[] saldos = {0, 1, 99, 100, 101, 199, 200, 201, 10_000};
+        List<Object[]> linhas = new ArrayList<>();
+        long id = 910_000;
+        for (int idade : idades) {
+            for (int saldo : saldos) {
+                linhas.add(new Object[]{id++, "Grade", idade, saldo});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO pacientes (id, nome_paciente, idade, fidelidade) VALUES (?, ?, ?, ?)", linhas);
+
+        // mesmo CASE de recalcularFaixasDesconto (crédito de pontos e edição)
+        faixasDescontoInicializador.preencherFaixas();
+
+        jdbcTemplate.query("SELECT idade, fidelidade, faixa_desconto FROM pacientes WHERE id BETWEEN 910000 AND 910999", linha -> {
+            int idade = linha.getInt("idade");
+            int saldo = linha.getInt("fidelidade");
+            assertEquals(Paciente.calcularFaixaDesconto(idade, saldo), linha.getInt("faixa_desconto"),
+                    "idade " + idade + ", fidelidade " + saldo);
+        });
+        assertEquals(idades.length * saldos.length, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pacientes WHERE id BETWEEN 910000 AND 910999 AND faixa_desconto IS NOT NULL", Integer.class));
+    }
+
+    @Test
+    void edicaoDeIdadeUsaOSaldoCreditadoDepoisDaLeitura() {
+        Paciente paciente = pacienteService.cadastrarPaciente(Paciente.builder()
+                .nomePaciente("Paciente Corrida").idade(40).fidelidade(90).build());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // o paciente já está carregado (saldo 90) quando outra transação confirma um crédito
+            pacienteRepository.findById(paciente.getId()).orElseThrow();
+            CompletableFuture.runAsync(() -> fidelidadeService.lancar(paciente.getId(), 20,
+                    LancamentoFidelidade.Origem.AJUSTE, null)).join();
+
+            Paciente edicao = Paciente.builder().nomePaciente("Paciente Corrida").idade(65).build();
+            Paciente editado = pacienteService.atualizarPaciente(paciente.getId(), edicao);
+            assertEquals(110, editado.getFidelidade());
+            assertEquals(15, editado.getFaixaDesconto());
+        });
+
+        assertEquals(15, faixaGravada(paciente));
+    }
+
+    @Test
+    void pacienteCarregadoNaTransacaoEReLidoAposOCredito() {
+        Paciente paciente = pacienteService.cadastrarPaciente(Paciente.builder()
+                .nomePaciente("Paciente Gerenciado").idade(30).fidelidade(95).build());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Paciente carregado = pacienteRepository.findById(paciente.getId()).orElseThrow();
+            fidelidadeService.lancar(paciente.getId(), 10, LancamentoFidelidade.Origem.AJUSTE, null);
+            assertEquals(105, carregado.getFidelidade());
+            assertEquals(5, carregado.getFaixaDesconto());
+
+            // sujar a instância e gravar não devolve saldo nem faixa antigos à linha
+            carregado.setNomePaciente("Paciente Gerenciado Editado");
+            pacienteRepository.flush();
+        });
+
+        assertEquals(5, faixaGravada(paciente));
+        assertEquals(105, pacienteRepository.findById(paciente.getId()).orElseThrow().getFidelidade());
+    }
+
+    @Test
+    void descontoUsaAFaixaGravada() {
+        Paciente gravado = Paciente.builder().nomePaciente("Gravado").idade(30).fidelidade(0).faixaDesconto(15).build();
+        Paciente semFaixa = Paciente.builder().nomePaciente("Sem faixa").idade(61).fidelidade(150).build();
+
+        // mesma soma em double do cálculo original: 0.10 + 0.05
+        assertEquals(0.10 + 0.05, gravado.calcularDesconto());
+        assertEquals(0.10 + 0.05, semFaixa.calcularDesconto());
+    }
+
+    private int faixaGravada(Paciente paciente) {
+        return jdbcTemplate.queryForObject("SELECT faixa_desconto FROM pacientes WHERE id = ?",
+                Integer.class, paciente.getId());
+    }
+}
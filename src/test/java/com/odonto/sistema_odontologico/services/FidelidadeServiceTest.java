@@ -0,0 +1,140 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.odonto.sistema_odontologico.models.LancamentoFidelidade;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.repositories.LancamentoFidelidadeRepository;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+
+/**
+ * Saldo de fidelidade atualizado por UPDATE atômico: muitas threads creditando o mesmo paciente
+ * não perdem pontos, e o extrato (antes e depois da compactação) soma exatamente o saldo
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:fidelidade;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class FidelidadeServiceTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private PacienteService pacienteService;
+
+    @Autowired
+    private FidelidadeService fidelidadeService;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private LancamentoFidelidadeRepository lancamentoRepository;
+
+    @Test
+    void creditosConcorrentesNoMesmoPacienteNaoPerdemPontos() throws Exception {
+        Paciente paciente = pacienteService.cadastrarPaciente(novoPaciente(5));
+        int creditosPorThread = 50;
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> futuros = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futuros.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < creditosPorThread; i++) {
+                        pacienteService.adicionarPontosFidelidade(paciente.getId(), 1);
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> futuro : futuros) {
+                futuro.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int esperado = 5 + THREADS * creditosPorThread;
+        assertEquals(esperado, fidelidade(paciente));
+        assertEquals(esperado, lancamentoRepository.somarPontos(paciente.getId()));
+    }
+
+    @Test
+    void debitoNaoDeixaSaldoNegativo() {
+        Paciente paciente = pacienteService.cadastrarPaciente(novoPaciente(10));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> pacienteService.adicionarPontosFidelidade(paciente.getId(), -11));
+        assertEquals(0, pacienteService.adicionarPontosFidelidade(paciente.getId(), -10).getFidelidade());
+        assertEquals(0, lancamentoRepository.somarPontos(paciente.getId()));
+    }
+
+    @Test
+    void edicaoDoPacienteLancaADiferencaDeFidelidade() {
+        Paciente paciente = pacienteService.cadastrarPaciente(novoPaciente(20));
+        pacienteService.adicionarPontosFidelidade(paciente.getId(), 30);
+
+        Paciente edicao = novoPaciente(100);
+        edicao.setNomePaciente("Paciente Editado");
+        Paciente editado = pacienteService.atualizarPaciente(paciente.getId(), edicao);
+
+        assertEquals(100, editado.getFidelidade());
+        assertEquals("Paciente Editado", editado.getNomePaciente());
+        assertEquals(100, lancamentoRepository.somarPontos(paciente.getId()));
+    }
+
+    @Test
+    void compactacaoMantemOSaldoEReduzOExtrato() {
+        Paciente paciente = pacienteService.cadastrarPaciente(novoPaciente(0));
+        for (int i = 0; i < 20; i++) {
+            pacienteService.adicionarPontosFidelidade(paciente.getId(), i + 1);
+        }
+        // os 15 primeiros lançamentos ficam antes do limite da compactação
+        LocalDateTime limite = LocalDateTime.now().minusDays(90);
+        List<LancamentoFidelidade> lancamentos = fidelidadeService.extrato(paciente.getId(), 100);
+        for (int i = 5; i < lancamentos.size(); i++) {
+            LancamentoFidelidade lancamento = lancamentos.get(i);
+            lancamento.setCriadoEm(limite.minusDays(i));
+            lancamentoRepository.save(lancamento);
+        }
+
+        assertEquals(1, fidelidadeService.compactar(limite));
+        assertEquals(0, fidelidadeService.compactar(limite));
+
+        List<LancamentoFidelidade> compactado = fidelidadeService.extrato(paciente.getId(), 100);
+        assertEquals(6, compactado.size());
+        assertEquals(LancamentoFidelidade.Origem.COMPACTACAO, compactado.get(5).getOrigem());
+        assertEquals(120, compactado.get(5).getPontos());
+        assertEquals(210, fidelidade(paciente));
+        assertEquals(210, lancamentoRepository.somarPontos(paciente.getId()));
+    }
+
+    private int fidelidade(Paciente paciente) {
+        return pacienteRepository.findById(paciente.getId()).orElseThrow().getFidelidade();
+    }
+
+    private Paciente novoPaciente(int fidelidade) {
+        return Paciente.builder()
+                .nomePaciente("Paciente Fidelidade")
+                .idade(40)
+                .fidelidade(fidelidade)
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.odonto.sistema_odontologico.dto.ErroImportacaoDTO;
+import com.odonto.sistema_odontologico.dto.ResultadoImportacaoDTO;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:importacao;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ImportacaoServiceTest {
+
+    @Autowired
+    private ImportacaoService importacaoService;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @BeforeEach
+    void limparBase() {
+        pacienteRepository.deleteAll();
+        materialRepository.deleteAll();
+    }
+
+    @Test
+    void importaCsvValidandoEDescartandoNomesRepetidos() throws Exception {
+        pacienteRepository.save(Paciente.builder().nomePaciente("José Silva").idade(40).fidelidade(0).build());
+        String csv = """
+                nomePaciente;idade;fidelidade
+                Ana Souza;30;5
+                "Costa; Maria";70;
+                jose  SILVA;41;0
+                Ana Souza;31;0
+                Pedro;200;0
+                Paulo;abc;0
+                Carla;25
+                """;
+
+        ResultadoImportacaoDTO resultado = importacaoService.importarPacientes(entrada(csv), ImportacaoService.Formato.CSV);
+
+        assertEquals(7, resultado.getTotal());
+        assertEquals(2, resultado.getImportados());
+        assertEquals(2, resultado.getDuplicados());
+        assertEquals(3, resultado.getFalhas());
+        assertEquals(List.of(4L, 5L, 6L, 7L, 8L), resultado.getErros().stream().map(ErroImportacaoDTO::getLinha).toList());
+        assertEquals("Idade inválida", resultado.getErros().get(2).getErro());
+
+        Paciente maria = pacienteRepository.findByNomePacienteContainingIgnoreCase("Costa; Maria").get(0);
+        assertEquals(70, maria.getIdade());
+        assertEquals(0, maria.getFidelidade());
+        assertEquals(3, pacienteRepository.count());
+    }
+
+    @Test
+    void importaJsonEmBlocosContinuandoAposItemInvalido() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        int quantidade = ImportacaoService.TAMANHO_BLOCO + 10;
+        for (int i = 0; i < quantidade; i++) {
+            json.append("{\"nomeMaterial\":\"Material ").append(i)
+                    .append("\",\"valor\":1.50,\"reutilizavel\":false},");
+        }
+        json.append("{\"nomeMaterial\":\"Quebrado\",\"quantidade\":\"muitos\",\"valor\":1},");
+        json.append("{\"nomeMaterial\":\"Sem valor\",\"quantidade\":1,\"reutilizavel\":true},");
+        json.append("{\"nomeMaterial\":\"Último\",\"quantidade\":3,\"valor\":2,\"reutilizavel\":true}]");
+
+        ResultadoImportacaoDTO resultado = importacaoService.importarMateriais(entrada(json.toString()), ImportacaoService.Formato.JSON);
+
+        assertEquals(quantidade + 3, resultado.getTotal());
+        assertEquals(quantidade + 1, resultado.getImportados());
+        assertEquals(2, resultado.getFalhas());
+        assertEquals(quantidade + 1, resultado.getErros().get(0).getLinha());
+        assertTrue(resultado.getLinhasPorSegundo() > 0);
+
+        assertEquals(quantidade + 1, materialRepository.count());
+        Material ultimo = materialRepository.findAll().stream()
+                .filter(m -> m.getNomeMaterial().equals("Último")).findFirst().orElseThrow();
+        assertEquals(3, ultimo.getQuantidade());
+        assertEquals(0, new BigDecimal("2.00").compareTo(ultimo.getValor()));
+    }
+
+    private static InputStream entrada(String conteudo) {
+        return new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,69 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IndiceTrigramasTest {
+
+    private IndiceTrigramas indice;
+
+    @BeforeEach
+    void setUp() {
+        indice = new IndiceTrigramas();
+        indice.indexar(1L, "João da Conceição");
+        indice.indexar(2L, "Maria Joana Araújo");
+        indice.indexar(3L, "Joaquim Silva");
+        indice.indexar(4L, "Anestésico Lidocaína");
+        indice.marcarPronto();
+    }
+
+    @Test
+    void buscaIgnoraAcentosEMaiusculas() {
+        assertEquals(List.of(1L), indice.buscar("CONCEICAO", 10));
+        assertEquals(List.of(4L), indice.buscar("anestesico", 10));
+        assertEquals(List.of(2L), indice.buscar("araújo", 10));
+    }
+
+    @Test
+    void ordenaPorRelevanciaELimita() {
+        // começa com o termo > palavra começa com o termo; empate pelo nome mais curto
+        assertEquals(List.of(3L, 1L, 2L), indice.buscar("joa", 10));
+        assertEquals(List.of(3L, 1L), indice.buscar("joa", 2));
+    }
+
+    @Test
+    void termoCurtoVerificaTodosOsNomes() {
+        assertEquals(List.of(3L, 1L, 2L), indice.buscar("jo", 10));
+        assertTrue(indice.buscar("xy", 10).isEmpty());
+    }
+
+    @Test
+    void atualizacaoERemocaoRefletemNaBusca() {
+        indice.indexar(3L, "Carlos Souza");
+        assertEquals(List.of(1L, 2L), indice.buscar("joa", 10));
+
+        indice.remover(1L);
+        assertEquals(List.of(2L), indice.buscar("joa", 10));
+        assertEquals(List.of(3L), indice.buscar("souza", 10));
+    }
+
+    @Test
+    void cargaInicialNaoSobrescreveAlteracoesFeitasDuranteACarga() {
+        IndiceTrigramas emCarga = new IndiceTrigramas();
+        emCarga.indexar(1L, "Nome Novo");
+        emCarga.remover(2L);
+
+        emCarga.carregar(1L, "Nome Antigo");
+        emCarga.carregar(2L, "Removido");
+        emCarga.marcarPronto();
+
+        assertEquals(List.of(1L), emCarga.buscar("novo", 10));
+        assertTrue(emCarga.buscar("antigo", 10).isEmpty());
+        assertTrue(emCarga.buscar("removido", 10).isEmpty());
+    }
+}
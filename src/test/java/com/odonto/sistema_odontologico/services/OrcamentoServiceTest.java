@@ -0,0 +1,98 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.odonto.sistema_odontologico.dto.ItemOrcamentoDTO;
+import com.odonto.sistema_odontologico.dto.ProcedimentoDTO;
+import com.odonto.sistema_odontologico.dto.ResultadoOrcamentoDTO;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+import com.odonto.sistema_odontologico.repositories.ProcedimentoRepository;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orcamento;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "odonto.orcamento.paralelismo=4"
+})
+class OrcamentoServiceTest {
+
+    @Autowired
+    private OrcamentoService orcamentoService;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private ProcedimentoRepository procedimentoRepository;
+
+    @Test
+    void orcamentoCalculaCadaItemNaOrdemSemGravarNada() {
+        Material luva = materialRepository.save(Material.builder()
+                .nomeMaterial("Luva").quantidade(1).valor(new BigDecimal("10.00")).reutilizavel(false).build());
+        Material espelho = materialRepository.save(Material.builder()
+                .nomeMaterial("Espelho").quantidade(1).valor(new BigDecimal("20.00")).reutilizavel(true).build());
+        Paciente paciente = pacienteRepository.save(Paciente.builder()
+                .nomePaciente("Paciente Orçamento").idade(65).fidelidade(150).build());
+        long procedimentosAntes = procedimentoRepository.count();
+
+        // 30 itens válidos (mais do que o estoque de luvas permitiria cadastrar) e 2 inválidos
+        List<ProcedimentoDTO> dtos = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            dtos.add(dto(paciente.getId(), List.of(luva.getId(), espelho.getId()), 45f + i));
+        }
+        dtos.add(dto(999_999L, List.of(luva.getId()), 30f));
+        dtos.add(dto(paciente.getId(), List.of(), 30f));
+
+        ResultadoOrcamentoDTO resultado = orcamentoService.orcar(dtos);
+
+        assertEquals(32, resultado.getTotal());
+        assertEquals(30, resultado.getPrecificados());
+        assertEquals(2, resultado.getFalhas());
+        // 10,00 + 10% de 20,00 + 45 min a R$ 100/h, com 15% de desconto
+        ItemOrcamentoDTO primeiro = resultado.getItens().get(0);
+        assertEquals(new BigDecimal("73.95"), primeiro.getValorFinal());
+        assertEquals(new BigDecimal("12.00"), primeiro.getDetalhamento().getCustoMateriais());
+        assertEquals(new BigDecimal("75.00"), primeiro.getDetalhamento().getCustoMaoObra());
+        assertEquals(primeiro.getValorFinal(), primeiro.getDetalhamento().getValorFinal());
+
+        BigDecimal soma = BigDecimal.ZERO;
+        for (int i = 0; i < 30; i++) {
+            ItemOrcamentoDTO item = resultado.getItens().get(i);
+            assertEquals(i, item.getIndice());
+            assertTrue(item.isSucesso());
+            soma = soma.add(item.getValorFinal());
+        }
+        assertEquals(soma, resultado.getValorTotal());
+        assertFalse(resultado.getItens().get(30).isSucesso());
+        assertFalse(resultado.getItens().get(31).isSucesso());
+
+        assertEquals(procedimentosAntes, procedimentoRepository.count());
+        assertEquals(1, materialRepository.findById(luva.getId()).orElseThrow().getQuantidade());
+        assertEquals(150, pacienteRepository.findById(paciente.getId()).orElseThrow().getFidelidade());
+    }
+
+    private ProcedimentoDTO dto(Long pacienteId, List<Long> materiaisIds, float duracao) {
+        return ProcedimentoDTO.builder()
+                .nomeProcedimento("Limpeza")
+                .assistente(false)
+                .duracao(duracao)
+                .pacienteId(pacienteId)
+                .materiaisIds(materiaisIds)
+                .build();
+    }
+}
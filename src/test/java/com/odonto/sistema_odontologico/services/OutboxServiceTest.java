@@ -0,0 +1,226 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.odonto.sistema_odontologico.dto.ProcedimentoDTO;
+import com.odonto.sistema_odontologico.dto.ReceitaPaciente;
+import com.odonto.sistema_odontologico.models.EventoOutbox;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import com.odonto.sistema_odontologico.repositories.EventoOutboxRepository;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+import com.odonto.sistema_odontologico.repositories.ProcedimentoRepository;
+
+/**
+ * Efeitos do cadastro de procedimento aplicados pelo outbox: chegam depois do commit e,
+ * mesmo com o evento entregue a vários processadores, são aplicados uma única vez
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        // só os testes disparam a varredura
+        "odonto.outbox.intervalo-varredura-ms=3600000"
+})
+class OutboxServiceTest {
+
+    private static final int PROCESSADORES = 4;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private ProcedimentoService procedimentoService;
+
+    @Autowired
+    private RelatorioService relatorioService;
+
+    @Autowired
+    private BuscaNomeService buscaNomeService;
+
+    @Autowired
+    private EventoOutboxRepository eventoOutboxRepository;
+
+    @Autowired
+    private ProcedimentoRepository procedimentoRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Test
+    void cadastroConcedeFidelidadeAposOCommit() throws Exception {
+        Paciente paciente = novoPaciente("Paciente Outbox");
+        Material material = novoMaterial();
+
+        procedimentoService.cadastrarProcedimento(ProcedimentoDTO.builder()
+                .nomeProcedimento("Limpeza")
+                .assistente(false)
+                .duracao(1f)
+                .pacienteId(paciente.getId())
+                .materiaisIds(List.of(material.getId()))
+                .build());
+
+        // despachado pela thread do outbox logo após o commit
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (fidelidade(paciente) == 0 && System.nanoTime() < limite) {
+            Thread.sleep(20);
+        }
+        assertEquals(FidelidadeService.PONTOS_POR_PROCEDIMENTO, fidelidade(paciente));
+        assertEquals(1, procedimentosNoResumo(paciente));
+        assertEquals(0, outboxService.processarPendentes());
+    }
+
+    @Test
+    void loteTambemAplicaOsEfeitosPeloOutbox() throws Exception {
+        Paciente paciente = novoPaciente("Paciente Lote");
+        Material material = novoMaterial();
+        ProcedimentoDTO dto = ProcedimentoDTO.builder()
+                .nomeProcedimento("Limpeza")
+                .assistente(false)
+                .duracao(1f)
+                .pacienteId(paciente.getId())
+                .materiaisIds(List.of(material.getId()))
+                .build();
+
+        assertEquals(3, procedimentoService.cadastrarLote(List.of(dto, dto, dto)).getCadastrados());
+
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (fidelidade(paciente) < 3 * FidelidadeService.PONTOS_POR_PROCEDIMENTO && System.nanoTime() < limite) {
+            Thread.sleep(20);
+        }
+        assertEquals(3 * FidelidadeService.PONTOS_POR_PROCEDIMENTO, fidelidade(paciente));
+        assertEquals(3, procedimentosNoResumo(paciente));
+        assertEquals(0, outboxService.processarPendentes());
+    }
+
+    @Test
+    void nomeEntraNaBuscaNoCommitSemEsperarOOutbox() {
+        Paciente paciente = novoPaciente("Paciente Busca");
+        Material material = novoMaterial();
+        ProcedimentoDTO.ProcedimentoDTOBuilder dto = ProcedimentoDTO.builder()
+                .assistente(false)
+                .duracao(1f)
+                .pacienteId(paciente.getId())
+                .materiaisIds(List.of(material.getId()));
+
+        Procedimento individual = procedimentoService.cadastrarProcedimento(dto.nomeProcedimento("Gengivoplastia").build());
+        Long doLote = procedimentoService.cadastrarLote(List.of(dto.nomeProcedimento("Frenectomia").build()))
+                .getItens().get(0).getProcedimentoId();
+
+        // sem esperar a thread do outbox: o índice é atualizado no próprio commit
+        assertEquals(List.of(individual.getId()),
+                buscaNomeService.buscar(BuscaNomeService.Tipo.PROCEDIMENTO, "Gengivoplastia", 10).orElseThrow());
+        assertEquals(List.of(doLote),
+                buscaNomeService.buscar(BuscaNomeService.Tipo.PROCEDIMENTO, "Frenectomia", 10).orElseThrow());
+    }
+
+    @Test
+    void eventoEntregueAVariosProcessadoresEAplicadoUmaVez() throws Exception {
+        Paciente paciente = novoPaciente("Paciente Redelivery");
+        Material material = novoMaterial();
+        int eventos = 30;
+        for (int i = 0; i < eventos; i++) {
+            // como se o cadastro tivesse sido confirmado e a aplicação reiniciada antes do despacho
+            eventoPendente(procedimentoRepository.save(procedimento(paciente, material)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(PROCESSADORES);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> futuros = new ArrayList<>();
+        try {
+            for (int t = 0; t < PROCESSADORES; t++) {
+                futuros.add(executor.submit(() -> {
+                    largada.await();
+                    return outboxService.processarPendentes();
+                }));
+            }
+            largada.countDown();
+            for (Future<?> futuro : futuros) {
+                futuro.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(eventos * FidelidadeService.PONTOS_POR_PROCEDIMENTO, fidelidade(paciente));
+        assertEquals(eventos, procedimentosNoResumo(paciente));
+        assertEquals(0, outboxService.totalPendentes());
+    }
+
+    @Test
+    void exclusaoAntesDoDespachoDescartaOEvento() {
+        Paciente paciente = novoPaciente("Paciente Exclusão");
+        Procedimento procedimento = procedimentoRepository.save(procedimento(paciente, novoMaterial()));
+        eventoPendente(procedimento);
+
+        procedimentoService.deletarProcedimento(procedimento.getId());
+
+        assertEquals(0, eventoOutboxRepository.count());
+        // o resumo nunca recebeu o procedimento e não é estornado; a fidelidade é mantida
+        assertEquals(0, procedimentosNoResumo(paciente));
+        assertEquals(FidelidadeService.PONTOS_POR_PROCEDIMENTO, fidelidade(paciente));
+        assertTrue(procedimentoRepository.findById(procedimento.getId()).isEmpty());
+    }
+
+    private void eventoPendente(Procedimento procedimento) {
+        eventoOutboxRepository.save(EventoOutbox.builder()
+                .tipo(EventoOutbox.Tipo.PROCEDIMENTO_CADASTRADO)
+                .agregadoId(procedimento.getId())
+                .criadoEm(LocalDateTime.now())
+                .tentativas(0)
+                .build());
+    }
+
+    private int fidelidade(Paciente paciente) {
+        return pacienteRepository.findById(paciente.getId()).orElseThrow().getFidelidade();
+    }
+
+    private long procedimentosNoResumo(Paciente paciente) {
+        LocalDate hoje = LocalDate.now();
+        return relatorioService.receitaPorPaciente(hoje, hoje, 100).stream()
+                .filter(receita -> receita.getPacienteId().equals(paciente.getId()))
+                .mapToLong(ReceitaPaciente::getProcedimentos)
+                .sum();
+    }
+
+    private Paciente novoPaciente(String nome) {
+        return pacienteRepository.save(Paciente.builder().nomePaciente(nome).idade(30).fidelidade(0).build());
+    }
+
+    private Material novoMaterial() {
+        return materialRepository.save(Material.builder()
+                .nomeMaterial("Luva").quantidade(100).valor(new BigDecimal("2.00")).reutilizavel(false).build());
+    }
+
+    private Procedimento procedimento(Paciente paciente, Material material) {
+        return Procedimento.builder()
+                .nomeProcedimento("Restauração")
+                .assistente(false)
+                .duracao(1f)
+                .paciente(paciente)
+                .materiais(List.of(material))
+                .valorMaoObra(new BigDecimal("100.00"))
+                .valorFinal(new BigDecimal("102.00"))
+                .build();
+    }
+}
@@ -0,0 +1,243 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.odonto.sistema_odontologico.dto.DetalhamentoPrecoDTO;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.models.Procedimento;
+
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Combinators;
+import net.jqwik.api.Example;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+import net.jqwik.api.Tuple;
+
+/**
+ * Os engines de preço comparados com o cálculo original (copiado abaixo, com duração / 60.0 e desconto
+ * em double), com valores em qualquer escala: o decimal dá exatamente o mesmo valor; o de centavos
+ * recusa valores com mais de 2 casas e no resto fica a no máximo 1 centavo
+ */
+class PrecoEngineEquivalenciaTest {
+
+    private static final BigDecimal UM_CENTAVO = new BigDecimal("0.01");
+
+    private final PrecoDecimalEngine decimal = new PrecoDecimalEngine();
+    private final PrecoCentavosEngine centavos = new PrecoCentavosEngine();
+
+    @Property(tries = 5000)
+    void decimalIgualAoCalculoOriginal(@ForAll("procedimentos") Procedimento procedimento) {
+        assertEquals(precoOriginal(procedimento), decimal.calcularValorFinal(procedimento), () -> procedimento.toString());
+        assertEquals(precoOriginal(procedimento), decimal.detalhar(procedimento).getValorFinal());
+    }
+
+    @Property(tries = 5000)
+    void centavosNoMaximoUmCentavoDoCalculoOriginal(@ForAll("procedimentos") Procedimento procedimento) {
+        if (temMaisDeDuasCasas(procedimento)) {
+            assertThrows(IllegalArgumentException.class, () -> centavos.calcularValorFinal(procedimento));
+            return;
+        }
+        BigDecimal original = precoOriginal(procedimento);
+        BigDecimal obtido = centavos.calcularValorFinal(procedimento);
+
+        assertEquals(2, obtido.scale());
+        assertTrue(obtido.subtract(original).abs().compareTo(UM_CENTAVO) <= 0,
+                () -> procedimento + ": " + obtido + " x " + original);
+    }
+
+    @Property(tries = 1000)
+    void detalhamentoEmCentavosConfereComODecimal(@ForAll("procedimentos") Procedimento procedimento) {
+        if (temMaisDeDuasCasas(procedimento)) {
+            return;
+        }
+        DetalhamentoPrecoDTO esperado = decimal.detalhar(procedimento);
+        DetalhamentoPrecoDTO obtido = centavos.detalhar(procedimento);
+
+        assertEquals(esperado.getCustoMateriais(), obtido.getCustoMateriais());
+        assertEquals(esperado.getPercentualDesconto(), obtido.getPercentualDesconto(), 1e-9);
+        assertTrue(obtido.getCustoMaoObra().subtract(esperado.getCustoMaoObra()).abs().compareTo(UM_CENTAVO) <= 0);
+        assertEquals(centavos.calcularValorFinal(procedimento), obtido.getValorFinal());
+    }
+
+    @Example
+    void duracaoFracionadaArredondaAMaoDeObraDoMesmoJeito() {
+        // 7,3 min a R$ 333,33/h = 40,555 e pouco; 1 min a R$ 50,01/h = 0,8335 -> 0,83
+        Procedimento fracionado = procedimento(List.of(), 7.3f, "333.33", false, 30, 0);
+        Procedimento meioCentavo = procedimento(List.of(), 1f, "50.01", false, 30, 0);
+
+        assertEquals(new BigDecimal("40.56"), decimal.calcularValorFinal(fracionado));
+        assertEquals(new BigDecimal("40.56"), centavos.calcularValorFinal(fracionado));
+        assertEquals(new BigDecimal("0.83"), decimal.calcularValorFinal(meioCentavo));
+        assertEquals(new BigDecimal("0.83"), centavos.calcularValorFinal(meioCentavo));
+    }
+
+    @Example
+    void procedimentoComDescontoMaximoDaOMesmoValor() {
+        // materiais 10,00 + 10% de 20,00; 45 min a R$ 100/h; assistente; idoso com fidelidade (15%)
+        Procedimento procedimento = procedimento(
+                List.of(material("10.00", false), material("20.00", true)), 45f, "100.00", true, 65, 150);
+
+        assertEquals(new BigDecimal("116.45"), decimal.calcularValorFinal(procedimento));
+        assertEquals(new BigDecimal("116.45"), centavos.calcularValorFinal(procedimento));
+    }
+
+    @Example
+    void procedimentoSemMateriaisNemDescontoDaOMesmoValor() {
+        Procedimento procedimento = procedimento(List.of(), 50f, "120.00", false, 30, 0);
+
+        assertEquals(new BigDecimal("100.00"), decimal.calcularValorFinal(procedimento));
+        assertEquals(new BigDecimal("100.00"), centavos.calcularValorFinal(procedimento));
+    }
+
+    @Example
+    void centavosRecusaValorComMaisDeDuasCasas() {
+        Procedimento fracaoDeCentavo = procedimento(List.of(), 60f, "100.005", false, 30, 0);
+        Procedimento zerosAMais = procedimento(List.of(material("2.5000", false)), 60f, "1E+2", false, 30, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> centavos.calcularValorFinal(fracaoDeCentavo));
+        assertEquals(new BigDecimal("100.01"), decimal.calcularValorFinal(fracaoDeCentavo));
+        assertEquals(new BigDecimal("102.50"), centavos.calcularValorFinal(zerosAMais));
+        assertEquals(new BigDecimal("102.50"), decimal.calcularValorFinal(zerosAMais));
+    }
+
+    @Example
+    void detalhamentoDeProcedimentoCadastradoMostraOTotalRecalculadoQuandoDiverge() {
+        CalculadoraPrecoService calculadora = new CalculadoraPrecoService(centavos);
+        Material luva = material("10.00", false);
+        Procedimento procedimento = procedimento(List.of(luva), 50f, "120.00", false, 30, 0);
+        procedimento.setValorFinal(centavos.calcularValorFinal(procedimento));
+
+        DetalhamentoPrecoDTO igual = calculadora.calcularDetalhamento(procedimento);
+        assertEquals(new BigDecimal("110.00"), igual.getValorFinal());
+        assertEquals(new BigDecimal("110.00"), igual.getValorRecalculado());
+        assertFalse(igual.isDivergente());
+
+        // material reajustado depois do cadastro: as parcelas somam o novo total, o gravado não muda
+        luva.setValor(new BigDecimal("15.00"));
+        DetalhamentoPrecoDTO reajustado = calculadora.calcularDetalhamento(procedimento);
+        assertEquals(new BigDecimal("110.00"), reajustado.getValorFinal());
+        assertEquals(new BigDecimal("115.00"), reajustado.getValorRecalculado());
+        assertEquals(reajustado.getSubtotal().subtract(reajustado.getValorDesconto()), reajustado.getValorRecalculado());
+        assertTrue(reajustado.isDivergente());
+        assertTrue(CalculadoraPrecoService.formatarTexto(reajustado).contains("Total recalculado hoje: R$ 115.00"));
+    }
+
+    @Provide
+    Arbitrary<Procedimento> procedimentos() {
+        Arbitrary<Material> materiais = Combinators.combine(
+                reais("1", "5000"),
+                Arbitraries.of(true, false)
+        ).as((valor, reutilizavel) -> material(valor, reutilizavel));
+
+        return Combinators.combine(
+                materiais.list().ofMaxSize(10),
+                Arbitraries.floats().between(1f, 480f).ofScale(1),
+                reais("50", "500"),
+                Arbitraries.of(true, false),
+                Arbitraries.integers().between(0, 150),
+                Arbitraries.integers().between(0, 1000)
+        ).as((lista, duracao, valorHora, assistente, idade, fidelidade) ->
+                procedimento(lista, duracao, valorHora, assistente, idade, fidelidade));
+    }
+
+    /**
+     * Valores em qualquer escala: na maioria com 2 casas (como os do banco), às vezes com 0, 1, 3 ou 4
+     * casas, e às vezes o mesmo valor escrito sem zeros à direita (100 vira 1E+2) ou com zeros a mais
+     */
+    private static Arbitrary<BigDecimal> reais(String minimo, String maximo) {
+        Arbitrary<BigDecimal> valores = Arbitraries.frequencyOf(
+                Tuple.of(6, escala(minimo, maximo, 2)),
+                Tuple.of(1, escala(minimo, maximo, 0)),
+                Tuple.of(1, escala(minimo, maximo, 1)),
+                Tuple.of(1, escala(minimo, maximo, 3)),
+                Tuple.of(1, escala(minimo, maximo, 4)));
+        return Combinators.combine(valores, Arbitraries.integers().between(0, 3)).as((valor, escrita) -> switch (escrita) {
+            case 0 -> valor.stripTrailingZeros();
+            case 1 -> valor.setScale(valor.scale() + 2, RoundingMode.UNNECESSARY);
+            default -> valor;
+        });
+    }
+
+    private static Arbitrary<BigDecimal> escala(String minimo, String maximo, int casas) {
+        return Arbitraries.bigDecimals().between(new BigDecimal(minimo), new BigDecimal(maximo)).ofScale(casas);
+    }
+
+    private static boolean temMaisDeDuasCasas(Procedimento procedimento) {
+        return Stream.concat(Stream.of(procedimento.getValorMaoObra()), procedimento.getMateriais().stream().map(Material::getValor))
+                .anyMatch(valor -> valor.stripTrailingZeros().scale() > 2);
+    }
+
+    /**
+     * Cálculo de preço como era antes dos engines, copiado sem mudanças de regra
+     */
+    private static BigDecimal precoOriginal(Procedimento procedimento) {
+        BigDecimal valorTotal = procedimento.getMateriais().stream()
+                .map(material -> material.getReutilizavel() ? material.getValor().multiply(new BigDecimal("0.10")) : material.getValor())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        valorTotal = valorTotal.add(procedimento.getValorMaoObra().multiply(BigDecimal.valueOf(procedimento.getDuracao() / 60.0)));
+        if (procedimento.getAssistente()) {
+            valorTotal = valorTotal.add(new BigDecimal("50.00"));
+        }
+
+        Paciente paciente = procedimento.getPaciente();
+        double percentualDesconto = 0.0;
+        if (paciente.getIdade() >= 60) {
+            percentualDesconto += 0.10;
+        }
+        if (paciente.getFidelidade() >= 100 && paciente.getFidelidade() < 200) {
+            percentualDesconto += 0.05;
+        } else if (paciente.getFidelidade() >= 200) {
+            percentualDesconto += 0.10;
+        }
+        percentualDesconto = Math.min(percentualDesconto, 0.25);
+
+        valorTotal = valorTotal.subtract(valorTotal.multiply(BigDecimal.valueOf(percentualDesconto)));
+        return valorTotal.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static Procedimento procedimento(List<Material> materiais, float duracao, String valorHora,
+                                             boolean assistente, int idade, int fidelidade) {
+        return procedimento(materiais, duracao, new BigDecimal(valorHora), assistente, idade, fidelidade);
+    }
+
+    private static Procedimento procedimento(List<Material> materiais, float duracao, BigDecimal valorHora,
+                                             boolean assistente, int idade, int fidelidade) {
+        Procedimento procedimento = new Procedimento();
+        procedimento.setNomeProcedimento("Procedimento");
+        procedimento.setMateriais(new ArrayList<>(materiais));
+        procedimento.setDuracao(duracao);
+        procedimento.setValorMaoObra(valorHora);
+        procedimento.setAssistente(assistente);
+        procedimento.setPaciente(Paciente.builder()
+                .nomePaciente("Paciente")
+                .idade(idade)
+                .fidelidade(fidelidade)
+                .build());
+        return procedimento;
+    }
+
+    private static Material material(String valor, boolean reutilizavel) {
+        return material(new BigDecimal(valor), reutilizavel);
+    }
+
+    private static Material material(BigDecimal valor, boolean reutilizavel) {
+        return Material.builder()
+                .nomeMaterial("Material")
+                .quantidade(10)
+                .valor(valor)
+                .reutilizavel(reutilizavel)
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+import com.odonto.sistema_odontologico.repositories.ProcedimentoRepository;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * A listagem completa em NDJSON faz duas consultas por página (ids e fetch join), não uma por procedimento
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:procedimento-ndjson;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ProcedimentoNdjsonTest {
+
+    // duas páginas de 500
+    private static final int QUANTIDADE = 600;
+    private static final int PACIENTES = 30;
+
+    @Autowired
+    private ProcedimentoService procedimentoService;
+
+    @Autowired
+    private ProcedimentoRepository procedimentoRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void consultasNaoCrescemComONumeroDeProcedimentos() throws Exception {
+        List<Paciente> pacientes = new ArrayList<>();
+        for (int i = 0; i < PACIENTES; i++) {
+            pacientes.add(Paciente.builder().nomePaciente("Paciente " + i).idade(30).fidelidade(0).build());
+        }
+        pacienteRepository.saveAll(pacientes);
+        Material luva = materialRepository.save(Material.builder()
+                .nomeMaterial("Luva").quantidade(10).valor(new BigDecimal("2.00")).reutilizavel(false).build());
+        Material espelho = materialRepository.save(Material.builder()
+                .nomeMaterial("Espelho").quantidade(10).valor(new BigDecimal("20.00")).reutilizavel(true).build());
+        List<Procedimento> procedimentos = new ArrayList<>();
+        for (int i = 0; i < QUANTIDADE; i++) {
+            procedimentos.add(Procedimento.builder()
+                    .nomeProcedimento("Limpeza " + i)
+                    .assistente(false)
+                    .duracao(30f)
+                    .paciente(pacientes.get(i % PACIENTES))
+                    .materiais(i % 2 == 0 ? List.of(luva, espelho) : List.of(luva))
+                    .valorMaoObra(new BigDecimal("100.00"))
+                    .valorFinal(new BigDecimal("52.00"))
+                    .build());
+        }
+        procedimentoRepository.saveAll(procedimentos);
+
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estatisticas.clear();
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        procedimentoService.escreverNdjson(saida);
+
+        assertEquals(4, estatisticas.getPrepareStatementCount());
+
+        String[] linhas = saida.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(QUANTIDADE, linhas.length);
+        long idAnterior = 0;
+        for (String linha : linhas) {
+            JsonNode procedimento = objectMapper.readTree(linha);
+            assertTrue(procedimento.get("id").asLong() > idAnterior);
+            idAnterior = procedimento.get("id").asLong();
+            assertTrue(procedimento.get("paciente").hasNonNull("nomePaciente"));
+            assertTrue(procedimento.get("materiais").size() >= 1);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.odonto.sistema_odontologico.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.odonto.sistema_odontologico.dto.ConsumoMaterial;
+import com.odonto.sistema_odontologico.dto.ProcedimentoDTO;
+import com.odonto.sistema_odontologico.dto.ReceitaPaciente;
+import com.odonto.sistema_odontologico.dto.ReceitaPeriodoDTO;
+import com.odonto.sistema_odontologico.models.Material;
+import com.odonto.sistema_odontologico.models.Paciente;
+import com.odonto.sistema_odontologico.models.Procedimento;
+import com.odonto.sistema_odontologico.repositories.MaterialRepository;
+import com.odonto.sistema_odontologico.repositories.PacienteRepository;
+
+/**
+ * Os resumos mantidos a cada cadastro/exclusão batem com o recálculo a partir dos procedimentos
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:relatorio;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class RelatorioServiceTest {
+
+    @Autowired
+    private RelatorioService relatorioService;
+
+    @Autowired
+    private ProcedimentoService procedimentoService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    @Autowired
+    private PacienteRepository pacienteRepository;
+
+    @Test
+    void resumosAcompanhamCadastroLoteEExclusao() {
+        Material luva = materialRepository.save(Material.builder()
+                .nomeMaterial("Luva").quantidade(100).valor(new BigDecimal("2.00")).reutilizavel(false).build());
+        Material espelho = materialRepository.save(Material.builder()
+                .nomeMaterial("Espelho").quantidade(1).valor(new BigDecimal("20.00")).reutilizavel(true).build());
+        Paciente ana = pacienteRepository.save(Paciente.builder()
+                .nomePaciente("Ana").idade(30).fidelidade(0).build());
+        Paciente bruno = pacienteRepository.save(Paciente.builder()
+                .nomePaciente("Bruno").idade(40).fidelidade(0).build());
+
+        Procedimento primeiro = procedimentoService.cadastrarProcedimento(
+                dto(ana.getId(), List.of(luva.getId(), espelho.getId()), 2f));
+        procedimentoService.cadastrarProcedimento(dto(ana.getId(), List.of(luva.getId()), 1f));
+        procedimentoService.cadastrarLote(List.of(
+                dto(ana.getId(), List.of(luva.getId()), 1f),
+                dto(bruno.getId(), List.of(luva.getId(), espelho.getId()), 0.5f)));
+        // os resumos dos cadastros individuais são aplicados pelo outbox
+        outboxService.processarPendentes();
+
+        LocalDate hoje = LocalDate.now();
+        List<ReceitaPeriodoDTO> receita = relatorioService.receita(hoje, hoje, "dia");
+        assertEquals(1, receita.size());
+        assertEquals(4, receita.get(0).getProcedimentos());
+
+        List<ConsumoMaterial> consumo = relatorioService.consumoMateriais(hoje, hoje);
+        // reutilizáveis não entram no consumo
+        assertEquals(1, consumo.size());
+        assertEquals(luva.getId(), consumo.get(0).getMaterialId());
+        assertEquals(4, consumo.get(0).getUnidades());
+
+        List<ReceitaPaciente> pacientes = relatorioService.receitaPorPaciente(hoje, hoje, 10);
+        assertEquals(ana.getId(), pacientes.get(0).getPacienteId());
+        assertEquals("Ana", pacientes.get(0).getNomePaciente());
+        assertEquals(3, pacientes.get(0).getProcedimentos());
+
+        procedimentoService.deletarProcedimento(primeiro.getId());
+
+        List<ReceitaPeriodoDTO> aposExclusao = relatorioService.receita(hoje, hoje, "mes");
+        assertEquals(hoje.withDayOfMonth(1), aposExclusao.get(0).getInicio());
+        assertEquals(3, aposExclusao.get(0).getProcedimentos());
+        assertEquals(receita.get(0).getReceita().subtract(primeiro.getValorFinal()), aposExclusao.get(0).getReceita());
+        assertEquals(3, relatorioService.consumoMaterialPorDia(luva.getId(), hoje, hoje).get(0).getUnidades());
+
+        relatorioService.reconstruir();
+
+        List<ReceitaPeriodoDTO> reconstruida = relatorioService.receita(hoje, hoje, "dia");
+        assertEquals(aposExclusao.get(0).getProcedimentos(), reconstruida.get(0).getProcedimentos());
+        assertEquals(0, aposExclusao.get(0).getReceita().compareTo(reconstruida.get(0).getReceita()));
+        assertEquals(3, relatorioService.consumoMateriais(hoje, hoje).get(0).getUnidades());
+    }
+
+    private ProcedimentoDTO dto(Long pacienteId, List<Long> materiaisIds, float duracao) {
+        return ProcedimentoDTO.builder()
+                .nomeProcedimento("Restauração")
+                .assistente(false)
+                .duracao(duracao)
+                .pacienteId(pacienteId)
+                .materiaisIds(materiaisIds)
+                .build();
+    }
+}